@@ -0,0 +1,509 @@
+package io.github.leoniedermeier.restclient.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Generates for every <code>RestClient</code> interface
+ * <ul>
+ * <li><code>&lt;Interface&gt;_RestClientMetaData</code>: the mapping of the
+ * methods, which is otherwise read from the annotations by reflection at
+ * startup,</li>
+ * <li><code>&lt;Interface&gt;_RestClientImpl</code>: an implementation of the
+ * interface which calls the method invoker of every method directly.</li>
+ * </ul>
+ * The <code>RestClientFactoryBean</code> uses the generated classes if they are
+ * present. Only the mapping and parameter annotations are read at compile
+ * time: the policies of the methods (e.g. <code>Retry</code>,
+ * <code>Hedged</code>, <code>Timeout</code>), their caching and coalescing and
+ * their response types are still resolved by reflection when the client is
+ * created, and a generated method passes its arguments as an array to its
+ * invoker, which binds them like for a proxy. Interfaces which use features the processor does not support (e.g.
+ * super interfaces, generic methods, <code>RequestPart</code> parameters or
+ * composed mapping annotations) are skipped with a note and are processed at
+ * runtime as before.
+ * <p>
+ * The annotations are referred to by name, so the processor has no
+ * dependencies.
+ */
+@SupportedAnnotationTypes(RestClientProcessor.REST_CLIENT)
+public class RestClientProcessor extends AbstractProcessor {
+
+    private static final class MappedMethod {
+
+        private final String httpMethod;
+
+        private final String[] headers;
+
+        private final ExecutableElement method;
+
+        private final List<MappedParameter> parameters = new ArrayList<>();
+
+        private final String path;
+
+        MappedMethod(ExecutableElement method, String httpMethod, String path, String[] headers) {
+            this.method = method;
+            this.httpMethod = httpMethod;
+            this.path = path;
+            this.headers = headers;
+        }
+    }
+
+    private static final class MappedParameter {
+
+        private final int index;
+
+        private final String name;
+
+        private final boolean required;
+
+        private final String type;
+
+        MappedParameter(String type, String name, int index, boolean required) {
+            this.type = type;
+            this.name = name;
+            this.index = index;
+            this.required = required;
+        }
+    }
+
+    /**
+     * Thrown if the interface uses a feature the processor does not support.
+     */
+    private static final class UnsupportedInterfaceException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedInterfaceException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    static final String REST_CLIENT = "io.github.leoniedermeier.restclient.annotation.RestClient";
+
+    private static final String BIND_PACKAGE = "org.springframework.web.bind.annotation.";
+
+    private static final String CREATION_PACKAGE = "io.github.leoniedermeier.restclient.creation.";
+
+    /**
+     * The mapping annotations and their HTTP method, <code>null</code> for
+     * <code>RequestMapping</code>.
+     */
+    private static final Map<String, String> MAPPINGS;
+
+    /**
+     * The supported parameter annotations.
+     */
+    private static final List<String> PARAMETERS = Collections
+            .unmodifiableList(Arrays.asList("PathVariable", "RequestParam", "RequestHeader", "RequestBody"));
+
+    private static final String REQUEST_MAPPING = BIND_PACKAGE + "RequestMapping";
+
+    /**
+     * Parameter annotations which the processor does not support.
+     */
+    private static final List<String> UNSUPPORTED_PARAMETERS = Collections.unmodifiableList(Arrays
+            .asList(BIND_PACKAGE + "RequestPart", "io.github.leoniedermeier.restclient.annotation.ResponseBodySink"));
+
+    static {
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put(REQUEST_MAPPING, null);
+        mappings.put(BIND_PACKAGE + "GetMapping", "GET");
+        mappings.put(BIND_PACKAGE + "PostMapping", "POST");
+        mappings.put(BIND_PACKAGE + "PutMapping", "PUT");
+        mappings.put(BIND_PACKAGE + "DeleteMapping", "DELETE");
+        mappings.put(BIND_PACKAGE + "PatchMapping", "PATCH");
+        MAPPINGS = Collections.unmodifiableMap(mappings);
+    }
+
+    private static String annotationName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the explicitly set values of the annotation by attribute name.
+     */
+    private static Map<String, Object> attributes(AnnotationMirror annotation) {
+        Map<String, Object> attributes = new HashMap<>();
+        annotation.getElementValues().forEach(
+                (attribute, value) -> attributes.put(attribute.getSimpleName().toString(), value.getValue()));
+        return attributes;
+    }
+
+    private static boolean booleanAttribute(Map<String, Object> attributes, String name, boolean defaultValue) {
+        Object value = attributes.get(name);
+        return value != null ? (Boolean) value : defaultValue;
+    }
+
+    /**
+     * Returns a Java string literal.
+     */
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (c < 0x20 || c > 0x7e) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Returns the first non empty string array of the attributes, e.g. of the
+     * aliases <code>value</code> and <code>path</code>.
+     */
+    private static List<String> stringArrayAttribute(Map<String, Object> attributes, String... names) {
+        for (String name : names) {
+            Object value = attributes.get(name);
+            if (value instanceof List && !((List<?>) value).isEmpty()) {
+                List<String> strings = new ArrayList<>();
+                for (Object element : (List<?>) value) {
+                    strings.add((String) ((AnnotationValue) element).getValue());
+                }
+                return strings;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the first non empty string of the attributes, e.g. of the aliases
+     * <code>value</code> and <code>name</code>.
+     */
+    private static String stringAttribute(Map<String, Object> attributes, String... names) {
+        for (String name : names) {
+            Object value = attributes.get(name);
+            if (value instanceof String && !((String) value).isEmpty()) {
+                return (String) value;
+            }
+        }
+        return null;
+    }
+
+    private static String stringArrayLiteral(String[] values) {
+        StringBuilder builder = new StringBuilder("new String[] {");
+        for (int i = 0; i < values.length; i++) {
+            builder.append(i == 0 ? " " : ", ").append(literal(values[i]));
+        }
+        return builder.append(" }").toString();
+    }
+
+    private static String boxed(TypeMirror type) {
+        switch (type.getKind()) {
+        case BOOLEAN:
+            return "java.lang.Boolean";
+        case BYTE:
+            return "java.lang.Byte";
+        case CHAR:
+            return "java.lang.Character";
+        case DOUBLE:
+            return "java.lang.Double";
+        case FLOAT:
+            return "java.lang.Float";
+        case INT:
+            return "java.lang.Integer";
+        case LONG:
+            return "java.lang.Long";
+        case SHORT:
+            return "java.lang.Short";
+        default:
+            return type.toString();
+        }
+    }
+
+    /**
+     * Returns the name of the interface with the names of the enclosing types,
+     * joined by <code>_</code>, and checks that the generated classes can access
+     * the interface.
+     */
+    private static String flatName(TypeElement type) throws UnsupportedInterfaceException {
+        StringBuilder name = new StringBuilder();
+        Element element = type;
+        while (element.getKind().isClass() || element.getKind().isInterface()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedInterfaceException("private type " + element);
+            }
+            name.insert(0, name.length() == 0 ? "" : "_").insert(0, element.getSimpleName());
+            element = element.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    private MappedMethod map(ExecutableElement method) throws UnsupportedInterfaceException {
+        if (!method.getTypeParameters().isEmpty()) {
+            throw new UnsupportedInterfaceException("generic method " + method);
+        }
+        AnnotationMirror mapping = null;
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            String name = annotationName(annotation);
+            if (MAPPINGS.containsKey(name)) {
+                if (mapping != null) {
+                    throw new UnsupportedInterfaceException("more than one mapping annotation on method " + method);
+                }
+                mapping = annotation;
+            } else if (isComposedMapping(annotation)) {
+                throw new UnsupportedInterfaceException("composed mapping annotation " + name);
+            }
+        }
+        if (mapping == null) {
+            return null;
+        }
+        Map<String, Object> attributes = attributes(mapping);
+        String httpMethod = MAPPINGS.get(annotationName(mapping));
+        if (httpMethod == null) {
+            Object methods = attributes.get("method");
+            List<?> httpMethods = methods instanceof List ? (List<?>) methods : Collections.emptyList();
+            if (httpMethods.size() > 1) {
+                throw new UnsupportedInterfaceException("more than one HTTP method on method " + method);
+            }
+            httpMethod = httpMethods.isEmpty() ? "GET"
+                    : ((VariableElement) ((AnnotationValue) httpMethods.get(0)).getValue()).getSimpleName().toString();
+        }
+        List<String> paths = stringArrayAttribute(attributes, "value", "path");
+        if (paths.size() > 1) {
+            throw new UnsupportedInterfaceException("more than one path on method " + method);
+        }
+        String path = paths.isEmpty() || paths.get(0).isEmpty() ? null : paths.get(0);
+        String[] headers = stringArrayAttribute(attributes, "headers").toArray(new String[0]);
+
+        MappedMethod mappedMethod = new MappedMethod(method, httpMethod, path, headers);
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int index = 0; index < parameters.size(); index++) {
+            VariableElement parameter = parameters.get(index);
+            for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                String name = annotationName(annotation);
+                if (UNSUPPORTED_PARAMETERS.contains(name)) {
+                    throw new UnsupportedInterfaceException(name + " parameter of method " + method);
+                }
+                if (!name.startsWith(BIND_PACKAGE) || !PARAMETERS.contains(name.substring(BIND_PACKAGE.length()))) {
+                    continue;
+                }
+                String type = name.substring(BIND_PACKAGE.length());
+                Map<String, Object> parameterAttributes = attributes(annotation);
+                String parameterName = "RequestBody".equals(type) ? "__requestBody"
+                        : stringAttribute(parameterAttributes, "value", "name");
+                if (parameterName == null) {
+                    parameterName = parameter.getSimpleName().toString();
+                }
+                mappedMethod.parameters.add(new MappedParameter(type, parameterName, index,
+                        booleanAttribute(parameterAttributes, "required", true)));
+            }
+        }
+        return mappedMethod;
+    }
+
+    private boolean isComposedMapping(AnnotationMirror annotation) {
+        for (AnnotationMirror meta : annotation.getAnnotationType().asElement().getAnnotationMirrors()) {
+            if (REQUEST_MAPPING.equals(annotationName(meta))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    processingEnv.getMessager().printMessage(Kind.ERROR, "RestClient must annotate an interface",
+                            element);
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                try {
+                    process(type);
+                } catch (UnsupportedInterfaceException ex) {
+                    processingEnv.getMessager().printMessage(Kind.NOTE,
+                            "No classes generated for " + type + ", it is processed at runtime: " + ex.getMessage(),
+                            type);
+                } catch (IOException ex) {
+                    processingEnv.getMessager().printMessage(Kind.ERROR,
+                            "Could not generate the classes for " + type + ": " + ex, type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void process(TypeElement type) throws UnsupportedInterfaceException, IOException {
+        if (!type.getInterfaces().isEmpty()) {
+            throw new UnsupportedInterfaceException("interface with super interfaces");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedInterfaceException("generic interface");
+        }
+        String flatName = flatName(type);
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+
+        List<MappedMethod> mappedMethods = new ArrayList<>();
+        List<ExecutableElement> unmappedMethods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            MappedMethod mappedMethod = map(method);
+            if (mappedMethod != null) {
+                mappedMethods.add(mappedMethod);
+            } else {
+                unmappedMethods.add(method);
+            }
+        }
+        writeMetaData(type, packageName, flatName, mappedMethods);
+        writeImplementation(type, packageName, flatName, mappedMethods, unmappedMethods);
+    }
+
+    private void writeHeader(StringBuilder source, TypeElement type, String packageName) {
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(RestClientProcessor.class.getName()).append(" from {@link ")
+                .append(type.getQualifiedName()).append("}, do not edit.\n */\n");
+    }
+
+    private void writeImplementation(TypeElement type, String packageName, String flatName,
+            List<MappedMethod> mappedMethods, List<ExecutableElement> unmappedMethods) throws IOException {
+        String className = flatName + "_RestClientImpl";
+        StringBuilder source = new StringBuilder();
+        writeHeader(source, type, packageName);
+        source.append("@SuppressWarnings(\"unchecked\")\n");
+        source.append("public final class ").append(className).append(" implements ").append(type.getQualifiedName())
+                .append(" {\n\n");
+        source.append("    private final ").append(CREATION_PACKAGE).append("RestClientInvokers invokers;\n\n");
+        source.append("    public ").append(className).append("(").append(CREATION_PACKAGE)
+                .append("RestClientInvokers invokers) {\n");
+        source.append("        this.invokers = invokers;\n    }\n");
+
+        for (int index = 0; index < mappedMethods.size(); index++) {
+            ExecutableElement method = mappedMethods.get(index).method;
+            writeSignature(source, method);
+            StringBuilder arguments = new StringBuilder("new Object[] {");
+            List<? extends VariableElement> parameters = method.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                arguments.append(i == 0 ? " " : ", ").append(parameters.get(i).getSimpleName());
+            }
+            arguments.append(parameters.isEmpty() ? "}" : " }");
+            String call = "this.invokers.invoke(" + index + ", " + arguments + ")";
+            TypeMirror returnType = method.getReturnType();
+            if (returnType.getKind() == TypeKind.VOID) {
+                source.append("        ").append(call).append(";\n");
+            } else {
+                source.append("        return (").append(boxed(returnType)).append(") ").append(call).append(";\n");
+            }
+            source.append("    }\n");
+        }
+        for (ExecutableElement method : unmappedMethods) {
+            writeSignature(source, method);
+            source.append("        throw new IllegalStateException(")
+                    .append(literal("Missing MethodMetaData for method " + method)).append(");\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+        write(packageName, className, source, type);
+    }
+
+    private void writeMetaData(TypeElement type, String packageName, String flatName,
+            List<MappedMethod> mappedMethods) throws IOException {
+        String className = flatName + "_RestClientMetaData";
+        StringBuilder source = new StringBuilder();
+        writeHeader(source, type, packageName);
+        source.append("public final class ").append(className).append(" implements ").append(CREATION_PACKAGE)
+                .append("GeneratedRestClientMetaData {\n\n");
+        source.append("    @Override\n");
+        source.append("    public ").append(CREATION_PACKAGE).append("GeneratedMethodMetaData[] getMethods() {\n");
+        source.append("        return new ").append(CREATION_PACKAGE).append("GeneratedMethodMetaData[] {\n");
+        for (MappedMethod mappedMethod : mappedMethods) {
+            StringBuilder parameterTypes = new StringBuilder("new Class<?>[] {");
+            List<? extends VariableElement> parameters = mappedMethod.method.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                parameterTypes.append(i == 0 ? " " : ", ")
+                        .append(processingEnv.getTypeUtils().erasure(parameters.get(i).asType())).append(".class");
+            }
+            parameterTypes.append(parameters.isEmpty() ? "}" : " }");
+            source.append("                new ").append(CREATION_PACKAGE).append("GeneratedMethodMetaData(")
+                    .append(literal(mappedMethod.method.getSimpleName().toString())).append(", ")
+                    .append(parameterTypes).append(", ").append(literal(mappedMethod.httpMethod)).append(", ")
+                    .append(literal(mappedMethod.path)).append(", ").append(stringArrayLiteral(mappedMethod.headers));
+            for (MappedParameter parameter : mappedMethod.parameters) {
+                source.append(",\n                        ").append(CREATION_PACKAGE)
+                        .append("GeneratedMethodMetaData.parameter(").append(literal(parameter.type)).append(", ")
+                        .append(literal(parameter.name)).append(", ").append(parameter.index).append(", ")
+                        .append(parameter.required).append(")");
+            }
+            source.append("),\n");
+        }
+        source.append("        };\n    }\n}\n");
+        write(packageName, className, source, type);
+    }
+
+    private void writeSignature(StringBuilder source, ExecutableElement method) {
+        source.append("\n    @Override\n    public ").append(method.getReturnType()).append(' ')
+                .append(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(parameters.get(i).asType()).append(' ')
+                    .append(parameters.get(i).getSimpleName());
+        }
+        source.append(") {\n");
+    }
+
+    private void write(String packageName, String className, StringBuilder source, TypeElement type)
+            throws IOException {
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * The factory uses the classes generated by the annotation processor. The
+ * classes <code>GeneratedImplementationTest_Client_*</code> are generated for
+ * {@link Client} by the processor of this module when the tests are compiled.
+ */
+class GeneratedImplementationTest {
+
+    @RestClient(url = "${url}")
+    interface Client {
+
+        @RequestMapping(path = "/items/{id}", headers = "x=1")
+        String get(@PathVariable String id, @RequestHeader("X-Id") String requestId);
+
+        String unmapped();
+    }
+
+    private RestClientFactoryBean factoryBean;
+
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(Client.class);
+        factoryBean.setEnvironment(new MockEnvironment().withProperty("url", "http://my-uri"));
+        factoryBean.setRestOperations(restTemplate);
+    }
+
+    @Test
+    void generatedImplementationIsUsed() throws Exception {
+        Client client = (Client) factoryBean.getObject();
+
+        assertSame(GeneratedImplementationTest_Client_RestClientImpl.class, client.getClass());
+    }
+
+    @Test
+    void call() throws Exception {
+        server.expect(requestTo("http://my-uri/items/1")).andExpect(header("x", "1"))
+                .andExpect(header("X-Id", "abc")).andRespond(withSuccess("value", MediaType.TEXT_PLAIN));
+        Client client = (Client) factoryBean.getObject();
+
+        assertEquals("value", client.get("1", "abc"));
+        server.verify();
+        assertEquals(1, factoryBean.getMetrics().getAll().iterator().next().getCallCount());
+    }
+
+    @Test
+    void unmappedMethod() throws Exception {
+        Client client = (Client) factoryBean.getObject();
+
+        assertThrows(IllegalStateException.class, client::unmapped);
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.leoniedermeier.restclient.processor;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.leoniedermeier.restclient.creation.RestClientInvokers;
+
+class RestClientProcessorTest {
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static final String CREATION = "io.github.leoniedermeier.restclient.creation.";
+
+    private static final String CLIENT = String.join("\n", //
+            "package sample;", //
+            "import org.springframework.web.bind.annotation.*;", //
+            "import io.github.leoniedermeier.restclient.annotation.RestClient;", //
+            "public class Outer {", //
+            "    @RestClient(url = \"${url}\")", //
+            "    public interface Client {", //
+            "        @GetMapping(\"/items/{id}\")", //
+            "        String get(@PathVariable String id);", //
+            "        @RequestMapping(path = \"/items\", method = RequestMethod.POST, headers = \"x=\\\"1\\\"\")", //
+            "        void create(@RequestBody Object item, @RequestHeader(name = \"X-Id\", required = false) String id);",
+            "        @RequestMapping(\"/count\")", //
+            "        int count(@RequestParam(\"q\") String query, int unannotated);", //
+            "        String unmapped();", //
+            "        default String withDefault() { return \"default\"; }", //
+            "    }", //
+            "}");
+
+    @TempDir
+    Path output;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    private boolean compile(String className, String code) throws IOException {
+        // the generated classes are compiled against the library on the class path
+        List<JavaFileObject> sources = asList(new Source(className, code));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    asList("-d", output.toString(), "-s", output.toString(), "-classpath",
+                            System.getProperty("java.class.path")),
+                    null, sources);
+            task.setProcessors(asList(new RestClientProcessor()));
+            return task.call();
+        }
+    }
+
+    /**
+     * Creates the {@link RestClientInvokers} of the library, whose method invokers
+     * call the function with the index of the method and the arguments.
+     */
+    private static RestClientInvokers invokers(int methods, BiFunction<Integer, Object[], Object> function)
+            throws ReflectiveOperationException {
+        // the method invokers are internal to the library
+        Class<?> methodInvokerType = Class.forName(CREATION + "MethodInvoker");
+        Object[] methodInvokers = (Object[]) Array.newInstance(methodInvokerType, methods);
+        for (int i = 0; i < methods; i++) {
+            int index = i;
+            methodInvokers[i] = Proxy.newProxyInstance(methodInvokerType.getClassLoader(),
+                    new Class<?>[] { methodInvokerType },
+                    (proxy, method, arguments) -> function.apply(index, (Object[]) arguments[0]));
+        }
+        Constructor<RestClientInvokers> constructor = RestClientInvokers.class
+                .getDeclaredConstructor(methodInvokers.getClass());
+        constructor.setAccessible(true);
+        return constructor.newInstance((Object) methodInvokers);
+    }
+
+    private String generated(String path) throws IOException {
+        return new String(Files.readAllBytes(output.resolve(path)), StandardCharsets.UTF_8);
+    }
+
+    private boolean hasDiagnostic(Diagnostic.Kind kind, String message) {
+        return diagnostics.getDiagnostics().stream()
+                .anyMatch(diagnostic -> diagnostic.getKind() == kind && diagnostic.getMessage(null).contains(message));
+    }
+
+    @Test
+    void metaData() throws Exception {
+        assertTrue(compile("sample.Outer", CLIENT), () -> diagnostics.getDiagnostics().toString());
+
+        String metaData = generated("sample/Outer_Client_RestClientMetaData.java");
+        assertTrue(metaData.contains("new " + CREATION + "GeneratedMethodMetaData(\"get\", "
+                + "new Class<?>[] { java.lang.String.class }, \"GET\", \"/items/{id}\", new String[] { },\n"
+                + "                        " + CREATION + "GeneratedMethodMetaData.parameter(\"PathVariable\", \"id\", 0, true)),"),
+                metaData);
+        assertTrue(metaData.contains("\"POST\", \"/items\", new String[] { \"x=\\\"1\\\"\" }"), metaData);
+        assertTrue(metaData.contains("parameter(\"RequestBody\", \"__requestBody\", 0, true)"), metaData);
+        assertTrue(metaData.contains("parameter(\"RequestHeader\", \"X-Id\", 1, false)"), metaData);
+        assertTrue(metaData.contains("new Class<?>[] { java.lang.String.class, int.class }, \"GET\", \"/count\""),
+                metaData);
+        assertTrue(metaData.contains("parameter(\"RequestParam\", \"q\", 0, true))"), metaData);
+        assertFalse(metaData.contains("unmapped"), metaData);
+    }
+
+    @Test
+    void implementation() throws Exception {
+        assertTrue(compile("sample.Outer", CLIENT), () -> diagnostics.getDiagnostics().toString());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                getClass().getClassLoader())) {
+            Class<?> client = classLoader.loadClass("sample.Outer$Client");
+            List<String> calls = new ArrayList<>();
+            Object implementation = classLoader.loadClass("sample.Outer_Client_RestClientImpl")
+                    .getConstructor(RestClientInvokers.class).newInstance(invokers(3, (index, arguments) -> {
+                        calls.add(index + " " + asList(arguments));
+                        return index == 0 ? "value" : index == 2 ? (Object) 42 : null;
+                    }));
+
+            assertEquals("value", client.getMethod("get", String.class).invoke(implementation, "1"));
+            client.getMethod("create", Object.class, String.class).invoke(implementation, "item", null);
+            assertEquals(42, client.getMethod("count", String.class, int.class).invoke(implementation, "q", 7));
+            assertEquals("default", client.getMethod("withDefault").invoke(implementation));
+            Method unmapped = client.getMethod("unmapped");
+            InvocationTargetException exception = assertThrows(InvocationTargetException.class,
+                    () -> unmapped.invoke(implementation));
+            assertTrue(exception.getCause() instanceof IllegalStateException);
+
+            assertEquals(asList("0 [1]", "1 [item, null]", "2 [q, 7]"), calls);
+        }
+    }
+
+    @Test
+    void unsupportedInterfaceIsSkipped() throws Exception {
+        String code = String.join("\n", //
+                "package sample;", //
+                "import org.springframework.web.bind.annotation.*;", //
+                "@io.github.leoniedermeier.restclient.annotation.RestClient(url = \"url\")", //
+                "public interface Upload {", //
+                "    @PostMapping(\"/upload\")", //
+                "    void upload(@RequestPart(\"file\") Object file);", //
+                "}");
+
+        assertTrue(compile("sample.Upload", code), () -> diagnostics.getDiagnostics().toString());
+
+        assertTrue(hasDiagnostic(Diagnostic.Kind.NOTE, "No classes generated for sample.Upload"));
+        assertFalse(Files.exists(output.resolve("sample/Upload_RestClientMetaData.java")));
+        assertFalse(Files.exists(output.resolve("sample/Upload_RestClientImpl.java")));
+    }
+
+    @Test
+    void restClientOnClass() throws Exception {
+        String code = String.join("\n", //
+                "package sample;", //
+                "@io.github.leoniedermeier.restclient.annotation.RestClient(url = \"url\")", //
+                "public class NotAnInterface {", //
+                "}");
+
+        assertFalse(compile("sample.NotAnInterface", code));
+
+        assertTrue(hasDiagnostic(Diagnostic.Kind.ERROR, "RestClient must annotate an interface"));
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.leoniedermeier.restclient.benchmark;
+
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * The method shapes of the benchmarks. The interface is used for the
+ * <code>RestClient</code> proxy and for the Feign client, so both process the
+ * same annotations.
+ */
+@RestClient(url = StubClientHttpRequestFactory.BASE_URL)
+public interface BenchmarkClient {
+
+    @RequestMapping(path = "/items", method = RequestMethod.GET)
+    Item header(@RequestHeader("X-Request-Id") String requestId);
+
+    @RequestMapping(path = "/items/{id}", method = RequestMethod.GET)
+    Item pathVariable(@PathVariable("id") String id);
+
+    @RequestMapping(path = "/items", method = RequestMethod.GET)
+    Item queryParam(@RequestParam("name") String name);
+
+    @RequestMapping(path = "/items", method = RequestMethod.POST, consumes = "application/json")
+    Item requestBody(@RequestBody Item item);
+}
@@ -0,0 +1,52 @@
+package io.github.leoniedermeier.restclient.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+
+/**
+ * A Feign {@link Client} which executes the requests with a
+ * {@link ClientHttpRequestFactory}, so that Feign runs against the same stub as
+ * the other benchmarks.
+ */
+public class ClientHttpRequestFactoryFeignClient implements Client {
+
+    private final ClientHttpRequestFactory requestFactory;
+
+    public ClientHttpRequestFactoryFeignClient(ClientHttpRequestFactory requestFactory) {
+        super();
+        this.requestFactory = requestFactory;
+    }
+
+    @Override
+    public Response execute(Request request, Options options) throws IOException {
+        ClientHttpRequest clientHttpRequest = requestFactory.createRequest(URI.create(request.url()),
+                HttpMethod.resolve(request.httpMethod().name()));
+        request.headers().forEach((name, values) -> clientHttpRequest.getHeaders().addAll(name, new ArrayList<>(values)));
+        if (request.body() != null) {
+            clientHttpRequest.getBody().write(request.body());
+        }
+        try (ClientHttpResponse response = clientHttpRequest.execute()) {
+            Map<String, Collection<String>> headers = new LinkedHashMap<>(response.getHeaders());
+            try (InputStream body = response.getBody()) {
+                return Response.builder().status(response.getRawStatusCode()).reason(response.getStatusText())
+                        .headers(headers).body(StreamUtils.copyToByteArray(body)).request(request).build();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.leoniedermeier.restclient.benchmark;
+
+/**
+ * The request and response body of the benchmarks.
+ */
+public class Item {
+
+    private String id;
+
+    private String name;
+
+    public Item() {
+        super();
+    }
+
+    public Item(String id, String name) {
+        super();
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,168 @@
+package io.github.leoniedermeier.restclient.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import feign.Feign;
+import io.github.leoniedermeier.restclient.creation.RestClientFactoryBean;
+import io.github.leoniedermeier.restclient.creation.RestClientFactoryBean.ProxyMode;
+
+/**
+ * Compares the client side overhead of a call through a
+ * {@link RestClientFactoryBean} proxy with a direct
+ * {@link RestTemplate#exchange} call and a Feign client. All requests are
+ * answered by a {@link StubClientHttpRequestFactory}.
+ * <p>
+ * Run with <code>mvn -Pjmh test-compile exec:exec</code>. The default
+ * <code>-prof gc</code> reports the allocated bytes per operation as
+ * <code>gc.alloc.rate.norm</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProxyInvocationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FeignState {
+
+        BenchmarkClient client;
+
+        @Setup
+        public void setUp(RestTemplateState restTemplateState) {
+            HttpMessageConverters messageConverters = new HttpMessageConverters(false,
+                    restTemplateState.restTemplate.getMessageConverters());
+            client = Feign.builder().client(new ClientHttpRequestFactoryFeignClient(REQUEST_FACTORY))
+                    .contract(new SpringMvcContract()).encoder(new SpringEncoder(() -> messageConverters))
+                    .decoder(new ResponseEntityDecoder(new SpringDecoder(() -> messageConverters)))
+                    .target(BenchmarkClient.class, StubClientHttpRequestFactory.BASE_URL);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ProxyState {
+
+        BenchmarkClient client;
+
+        @Param({ "AOP", "GENERATED" })
+        ProxyMode proxyMode;
+
+        @Setup
+        public void setUp(RestTemplateState restTemplateState) throws Exception {
+            RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+            factoryBean.setType(BenchmarkClient.class);
+            factoryBean.setEnvironment(new StandardEnvironment());
+            factoryBean.setRestOperations(restTemplateState.restTemplate);
+            factoryBean.setProxyMode(proxyMode);
+            client = (BenchmarkClient) factoryBean.getObject();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RestTemplateState {
+
+        final RestTemplate restTemplate = new RestTemplate(REQUEST_FACTORY);
+    }
+
+    private static final String ID = "42";
+
+    private static final Item ITEM = new Item(ID, "The answer");
+
+    private static final String NAME = "The answer";
+
+    private static final StubClientHttpRequestFactory REQUEST_FACTORY = new StubClientHttpRequestFactory();
+
+    private static final String REQUEST_ID = "b5b0f0c4";
+
+    private static final String URL = StubClientHttpRequestFactory.BASE_URL;
+
+    @Benchmark
+    public Item feignHeader(FeignState state) {
+        return state.client.header(REQUEST_ID);
+    }
+
+    @Benchmark
+    public Item feignPathVariable(FeignState state) {
+        return state.client.pathVariable(ID);
+    }
+
+    @Benchmark
+    public Item feignQueryParam(FeignState state) {
+        return state.client.queryParam(NAME);
+    }
+
+    @Benchmark
+    public Item feignRequestBody(FeignState state) {
+        return state.client.requestBody(ITEM);
+    }
+
+    @Benchmark
+    public Item proxyHeader(ProxyState state) {
+        return state.client.header(REQUEST_ID);
+    }
+
+    @Benchmark
+    public Item proxyPathVariable(ProxyState state) {
+        return state.client.pathVariable(ID);
+    }
+
+    @Benchmark
+    public Item proxyQueryParam(ProxyState state) {
+        return state.client.queryParam(NAME);
+    }
+
+    @Benchmark
+    public Item proxyRequestBody(ProxyState state) {
+        return state.client.requestBody(ITEM);
+    }
+
+    @Benchmark
+    public Item restTemplateHeader(RestTemplateState state) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Request-Id", REQUEST_ID);
+        return state.restTemplate.exchange(URL + "/items", HttpMethod.GET, new HttpEntity<>(headers), Item.class)
+                .getBody();
+    }
+
+    @Benchmark
+    public Item restTemplatePathVariable(RestTemplateState state) {
+        return state.restTemplate.exchange(URL + "/items/{id}", HttpMethod.GET, null, Item.class, ID).getBody();
+    }
+
+    @Benchmark
+    public Item restTemplateQueryParam(RestTemplateState state) {
+        return state.restTemplate.exchange(URL + "/items?name={name}", HttpMethod.GET, null, Item.class, NAME)
+                .getBody();
+    }
+
+    @Benchmark
+    public Item restTemplateRequestBody(RestTemplateState state) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return state.restTemplate.exchange(URL + "/items", HttpMethod.POST, new HttpEntity<>(ITEM, headers), Item.class)
+                .getBody();
+    }
+}
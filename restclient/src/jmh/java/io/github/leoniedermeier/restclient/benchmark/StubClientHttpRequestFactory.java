@@ -0,0 +1,124 @@
+package io.github.leoniedermeier.restclient.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * A {@link ClientHttpRequestFactory} which answers every request in process
+ * with the same canned JSON response. The request body is discarded, so the
+ * benchmarks measure only the client side overhead.
+ */
+public class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private static class StubRequest extends AbstractClientHttpRequest {
+
+        private final HttpMethod method;
+
+        private final URI uri;
+
+        StubRequest(HttpMethod method, URI uri) {
+            super();
+            this.method = method;
+            this.uri = uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return StreamUtils.nonClosing(NULL_OUTPUT_STREAM);
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) {
+            return new StubResponse();
+        }
+    }
+
+    private static class StubResponse implements ClientHttpResponse {
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(RESPONSE_BODY);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return RESPONSE_HEADERS;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return HttpStatus.OK.value();
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+    }
+
+    public static final String BASE_URL = "http://stub";
+
+    private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // discard
+        }
+
+        @Override
+        public void write(int b) {
+            // discard
+        }
+    };
+
+    private static final byte[] RESPONSE_BODY = "{\"id\":\"42\",\"name\":\"The answer\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final HttpHeaders RESPONSE_HEADERS;
+
+    static {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(RESPONSE_BODY.length);
+        RESPONSE_HEADERS = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return new StubRequest(httpMethod, uri);
+    }
+}
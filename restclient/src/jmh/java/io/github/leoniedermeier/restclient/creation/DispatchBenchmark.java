@@ -0,0 +1,94 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.benchmark.BenchmarkClient;
+import io.github.leoniedermeier.restclient.benchmark.StubClientHttpRequestFactory;
+
+/**
+ * Measures the dispatch of a proxy call to the invoker of the method, without
+ * the request itself:
+ * <ul>
+ * <li><code>perCallInvoker</code> looks up the {@link MethodMetaData} and
+ * creates a new invoker for every call, like the dispatcher did before the
+ * invokers were prebuilt.</li>
+ * <li><code>equalityMap</code> looks up the prebuilt invoker in a
+ * {@link HashMap}, which calls {@link Method#hashCode()}.</li>
+ * <li><code>identityMap</code> looks up the prebuilt invoker in the
+ * {@link IdentityHashMap} of the dispatcher.</li>
+ * </ul>
+ * Run with
+ * <code>mvn -Pjmh test-compile exec:exec -Djmh.args="-prof gc Dispatch"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DispatchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Methods {
+
+        Map<Method, MethodInvoker> equalityMap;
+
+        Map<Method, MethodInvoker> identityMap;
+
+        Map<Method, MethodMetaData> metaData;
+
+        /**
+         * The instance which the proxy passes for every call of the method.
+         */
+        Method method;
+
+        RestTemplate restTemplate;
+
+        @Setup
+        public void setUp() {
+            restTemplate = new RestTemplate(new StubClientHttpRequestFactory());
+            MethodMetaDataParser parser = new MethodMetaDataParser(new StandardEnvironment(),
+                    restTemplate.getMessageConverters());
+            metaData = new HashMap<>();
+            equalityMap = new HashMap<>();
+            for (Method declaredMethod : BenchmarkClient.class.getDeclaredMethods()) {
+                MethodMetaData methodMetaData = parser.parse(declaredMethod);
+                metaData.put(declaredMethod, methodMetaData);
+                equalityMap.put(declaredMethod, new RestOperationsMethodInvoker(restTemplate, methodMetaData, null));
+            }
+            identityMap = new IdentityHashMap<>(equalityMap);
+            method = BenchmarkClient.class.getDeclaredMethods()[0];
+        }
+    }
+
+    @Benchmark
+    public MethodInvoker equalityMap(Methods methods) {
+        return methods.equalityMap.get(methods.method);
+    }
+
+    @Benchmark
+    public MethodInvoker identityMap(Methods methods) {
+        return methods.identityMap.get(methods.method);
+    }
+
+    @Benchmark
+    public MethodInvoker perCallInvoker(Methods methods) {
+        return new RestOperationsMethodInvoker(methods.restTemplate, methods.metaData.get(methods.method), null);
+    }
+}
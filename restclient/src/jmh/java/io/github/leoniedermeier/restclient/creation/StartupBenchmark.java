@@ -0,0 +1,116 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static java.util.stream.Collectors.toList;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.benchmark.StubClientHttpRequestFactory;
+
+/**
+ * Measures how the start up scales with the number of methods: the parsing of
+ * the methods of one interface, serial and with
+ * {@link MethodMetaDataParser#parse(List)}, and the refresh of an application
+ * context with <code>interfaces</code> generated <code>RestClient</code>
+ * interfaces.
+ * <p>
+ * Every iteration generates new interfaces, so the caches of Spring and of the
+ * parser are cold like at the start of an application.
+ * <p>
+ * The benchmark is in the package of the parser, because {@link MethodMetaData}
+ * is package private. Run with
+ * <code>mvn -Pjmh test-compile exec:exec -Djmh.args="Startup"</code>.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class StartupBenchmark {
+
+    @State(Scope.Thread)
+    public static class Interfaces {
+
+        private static int generation;
+
+        ClassLoader classLoader;
+
+        @Param({ "10", "100" })
+        int interfaces;
+
+        @Param({ "10", "100", "1000" })
+        int methodsPerInterface;
+
+        List<Class<?>> types;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            ClientInterfaceGenerator generator = new ClientInterfaceGenerator();
+            classLoader = generator.getClassLoader();
+            types = generator.generate("generated.Client" + generation++ + "_", interfaces, methodsPerInterface);
+        }
+    }
+
+    private static List<Method> methods(Class<?> type) {
+        return Arrays.asList(type.getMethods());
+    }
+
+    @Benchmark
+    public GenericApplicationContext contextStartup(Interfaces interfaces) {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        // the JDK proxies are created with the context class loader
+        thread.setContextClassLoader(interfaces.classLoader);
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.setClassLoader(interfaces.classLoader);
+            context.registerBean("restTemplate", RestTemplate.class,
+                    () -> new RestTemplate(new StubClientHttpRequestFactory()));
+            for (Class<?> type : interfaces.types) {
+                context.registerBeanDefinition(type.getName(),
+                        BeanDefinitionBuilder.genericBeanDefinition(RestClientFactoryBean.class)
+                                .addPropertyValue("type", type).addPropertyReference("restOperations", "restTemplate")
+                                .getBeanDefinition());
+            }
+            context.refresh();
+            // the objects of factory beans are created on first use, like the injection into a consumer
+            for (Class<?> type : interfaces.types) {
+                context.getBean(type);
+            }
+            return context;
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    @Benchmark
+    public List<MethodMetaData> parseParallel(Interfaces interfaces) {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new StandardEnvironment());
+        return interfaces.types.stream().flatMap(type -> parser.parse(methods(type)).stream()).collect(toList());
+    }
+
+    @Benchmark
+    public List<MethodMetaData> parseSerial(Interfaces interfaces) {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new StandardEnvironment());
+        return interfaces.types.stream().flatMap(type -> methods(type).stream()).map(parser::parse)
+                .collect(toList());
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Collects the calls of a single item method and sends them as one request of a
+ * batch method of the same interface.
+ * <p>
+ * The single item method has exactly one parameter, the key of the item. The
+ * batch method has exactly one parameter, a <code>List</code> or
+ * <code>Set</code> of keys, and returns a <code>Map</code> from the key to the
+ * item, or a <code>List</code> of items with the {@link #keyProperty()}. The
+ * keys are compared with <code>equals</code>, so the keys of the
+ * <code>Map</code> or the key property have the type of the parameter of the
+ * single item method. A call whose key is missing in the result of the batch
+ * method fails with a <code>RestClientException</code>.
+ * <p>
+ * A batch is sent when it contains {@link #maxSize()} keys, or
+ * {@link #window()} milliseconds after its first call.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Batched {
+
+	/**
+	 * @return The name of the batch method.
+	 */
+	String method();
+
+	/**
+	 * @return The maximum number of calls in one batch.
+	 */
+	int maxSize() default 100;
+
+	/**
+	 * @return The time in milliseconds calls are collected for a batch.
+	 */
+	long window() default 10;
+
+	/**
+	 * @return The property of the items which holds the key, if the batch method
+	 *         returns a <code>List</code>.
+	 */
+	String keyProperty() default "";
+}
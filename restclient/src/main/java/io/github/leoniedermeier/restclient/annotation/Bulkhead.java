@@ -0,0 +1,37 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the number of concurrent calls, so a slow server cannot occupy all
+ * threads of the application.
+ * <p>
+ * The annotation on a <code>RestClient</code> interface limits the calls of all
+ * its methods together, the annotation on a method limits the calls of the
+ * method. A call which does not get a permit within {@link #maxWait()}
+ * milliseconds throws a <code>CallRejectedException</code>, unless the method
+ * has a {@link Fallback}. A call returning a <code>CompletableFuture</code>,
+ * <code>Mono</code> or <code>Flux</code> holds its permit until it completes.
+ * A <code>Mono</code> or <code>Flux</code> does not wait for a permit on the
+ * subscribing thread, but on a thread of the bounded elastic scheduler.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+	/**
+	 * @return The maximum number of concurrent calls.
+	 */
+	int maxConcurrentCalls() default 25;
+
+	/**
+	 * @return The time in milliseconds a call waits for a permit, <code>0</code>
+	 *         rejects the call immediately.
+	 */
+	long maxWait() default 0;
+}
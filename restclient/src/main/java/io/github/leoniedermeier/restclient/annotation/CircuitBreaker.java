@@ -0,0 +1,59 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rejects the calls while the failure rate of the recent calls is too high, so
+ * the calling threads do not block until the timeout of an unavailable server.
+ * <p>
+ * The annotation on a <code>RestClient</code> interface creates one circuit
+ * breaker for all its methods, the annotation on a method creates a circuit
+ * breaker of its own for the method. Responses with a 4xx status do not count
+ * as failures.
+ * <p>
+ * The circuit breaker opens when at least {@link #minimumCalls()} of the last
+ * {@link #slidingWindowSize()} calls were recorded and the percentage of the
+ * failed calls reaches the {@link #failureRateThreshold()}. After
+ * {@link #openDuration()} milliseconds, {@link #halfOpenCalls()} trial calls
+ * are permitted. If all of them succeed, the circuit breaker closes, otherwise
+ * it opens again. It also opens again if the outcome of a trial call is not
+ * known within the open duration, but at least 10 seconds, for example because
+ * a streamed result was never closed. A rejected call throws a
+ * <code>CallRejectedException</code>, unless the method has a
+ * {@link Fallback}.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CircuitBreaker {
+
+	/**
+	 * @return The percentage of failed calls which opens the circuit breaker.
+	 */
+	int failureRateThreshold() default 50;
+
+	/**
+	 * @return The number of recent calls of which the failure rate is computed.
+	 */
+	int slidingWindowSize() default 100;
+
+	/**
+	 * @return The minimum number of recorded calls before the circuit breaker can
+	 *         open.
+	 */
+	int minimumCalls() default 20;
+
+	/**
+	 * @return The time in milliseconds the circuit breaker stays open.
+	 */
+	long openDuration() default 10_000;
+
+	/**
+	 * @return The number of trial calls permitted after the open duration.
+	 */
+	int halfOpenCalls() default 5;
+}
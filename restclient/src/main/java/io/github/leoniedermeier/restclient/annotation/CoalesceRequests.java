@@ -0,0 +1,24 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesces concurrent calls of a <code>GET</code> method, or of all
+ * <code>GET</code> methods of a <code>RestClient</code> interface. Calls with
+ * the same URI and headers which are issued while such a request is in flight
+ * do not send a request of their own, they receive the result or the exception
+ * of the request in flight.
+ * <p>
+ * All waiting callers receive the same result object, so it should not be
+ * modified.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CoalesceRequests {
+
+}
@@ -0,0 +1,53 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the number of concurrent requests of a <code>RestClient</code> with a
+ * limit which adapts to the latency of the server.
+ * <p>
+ * The limit grows while the latency stays near the lowest latency observed, and
+ * shrinks when the latency rises or requests time out, so the server is kept
+ * busy without queueing requests. A call which does not get a permit within
+ * {@link #maxWait()} milliseconds throws a <code>CallRejectedException</code>,
+ * unless the method has a {@link Fallback}.
+ * <p>
+ * Only the requests sent with the <code>RestOperations</code> of the client are
+ * limited, not the methods returning a <code>Mono</code> or <code>Flux</code>.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrencyLimit {
+
+	/**
+	 * @return The limit before any latency has been observed.
+	 */
+	int initialLimit() default 20;
+
+	/**
+	 * @return The lower bound of the limit.
+	 */
+	int minLimit() default 1;
+
+	/**
+	 * @return The upper bound of the limit.
+	 */
+	int maxLimit() default 200;
+
+	/**
+	 * @return The time in milliseconds a call waits for a permit, <code>0</code>
+	 *         rejects the call immediately.
+	 */
+	long maxWait() default 0;
+
+	/**
+	 * @return The maximum number of calls waiting for a permit, further calls are
+	 *         rejected immediately.
+	 */
+	int maxQueue() default 50;
+}
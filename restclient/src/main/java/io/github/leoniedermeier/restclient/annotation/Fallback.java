@@ -0,0 +1,29 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names a default method of the <code>RestClient</code> interface which is
+ * called instead, if a call of the annotated method fails or is rejected by a
+ * {@link CircuitBreaker} or {@link Bulkhead}.
+ * <p>
+ * The fallback method has the same return type and the same parameters as the
+ * annotated method, optionally followed by a <code>Throwable</code> parameter
+ * which receives the exception. For a method returning a
+ * <code>CompletableFuture</code>, <code>Mono</code> or <code>Flux</code>, the
+ * fallback is also called if the result completes with an exception.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Fallback {
+
+	/**
+	 * @return The name of the default method.
+	 */
+	String value();
+}
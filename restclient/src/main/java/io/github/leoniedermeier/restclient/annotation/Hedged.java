@@ -0,0 +1,47 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends a second identical request if a call of a method, or of an idempotent
+ * method of a <code>RestClient</code> interface, has not completed within a
+ * delay. The first successful response is returned, the other request is
+ * cancelled or its response is discarded.
+ * <p>
+ * Only <code>GET</code>, <code>HEAD</code>, <code>PUT</code> and
+ * <code>DELETE</code> methods returning the response body, a
+ * <code>CompletableFuture</code> or a <code>Mono</code> are hedged. A blocking
+ * call is executed by the executor of the client, so the calling thread can
+ * return the response of either request. Thread-bound context other than the
+ * <code>Deadline</code> is only passed on by the task decorator of the client,
+ * see <code>RestClientFactoryBean.setTaskDecorator(TaskDecorator)</code>.
+ * <p>
+ * The number of hedged requests in flight is limited per client, see
+ * <code>RestClientFactoryBean.setMaxHedges(int)</code>.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Hedged {
+
+	/**
+	 * @return The fixed delay in milliseconds. If <code>0</code>, the delay is the
+	 *         {@link #percentile()} of the observed latencies of the method.
+	 */
+	long delay() default 0;
+
+	/**
+	 * @return The percentile of the latencies used as adaptive delay.
+	 */
+	double percentile() default 0.95;
+
+	/**
+	 * @return The minimum adaptive delay in milliseconds, it is also used until
+	 *         enough latencies have been observed.
+	 */
+	long minDelay() default 10;
+}
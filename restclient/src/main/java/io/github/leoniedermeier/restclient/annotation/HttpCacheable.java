@@ -0,0 +1,22 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables the HTTP response cache for a <code>GET</code> method, or for all
+ * <code>GET</code> methods of a <code>RestClient</code> interface.
+ * <p>
+ * Responses are cached according to their <code>Cache-Control</code>,
+ * <code>Expires</code>, <code>ETag</code>, <code>Last-Modified</code> and
+ * <code>Vary</code> headers.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface HttpCacheable {
+
+}
@@ -0,0 +1,24 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a parameter of type <code>java.nio.file.Path</code> or
+ * <code>java.nio.channels.WritableByteChannel</code> which receives the raw
+ * response body. The body is transferred in pooled buffers of a fixed size,
+ * without message conversion.
+ * <p>
+ * A <code>Path</code> is created or truncated and closed after the transfer, a
+ * <code>WritableByteChannel</code> is left open. The method returns
+ * <code>void</code>, or <code>long</code> for the number of transferred bytes.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ResponseBodySink {
+
+}
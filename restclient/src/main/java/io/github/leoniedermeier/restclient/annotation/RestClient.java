@@ -0,0 +1,77 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.core.annotation.AliasFor;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RestClient {
+
+	@AliasFor("name")
+	String value() default "";
+
+	@AliasFor("value")
+	String name() default "";
+
+	/**
+	 * @return an absolute URL or resolvable hostname (the protocol is optional).
+	 */
+	String url();
+
+	/**
+	 * The pool settings apply if the <code>RestClientFactoryBean</code> creates
+	 * its own HTTP client, i.e. if no <code>RestOperations</code> is set. Each
+	 * setting can be overridden with the property
+	 * <code>restclient.&lt;name&gt;.&lt;setting&gt;</code>, e.g.
+	 * <code>restclient.posts.max-connections-per-route</code>.
+	 * 
+	 * @return the maximum number of pooled connections.
+	 */
+	int maxConnectionsTotal() default 50;
+
+	/**
+	 * @return the maximum number of pooled connections per route (host and port).
+	 */
+	int maxConnectionsPerRoute() default 20;
+
+	/**
+	 * @return the connect timeout in milliseconds, also used as timeout for
+	 *         leasing a connection from the pool.
+	 */
+	int connectTimeout() default 5000;
+
+	/**
+	 * @return the read (socket) timeout in milliseconds.
+	 */
+	int readTimeout() default 30000;
+
+	/**
+	 * @return the time in milliseconds a connection is kept alive if the server
+	 *         does not send a <code>Keep-Alive</code> header.
+	 */
+	long keepAlive() default 30000;
+
+	/**
+	 * @return the time in milliseconds after which idle connections are evicted
+	 *         from the pool.
+	 */
+	long idleEviction() default 60000;
+
+	/**
+	 * @return <code>true</code> if the requests accept gzip and deflate encoded
+	 *         responses, which are decompressed while they are read.
+	 */
+	boolean acceptCompressed() default false;
+
+	/**
+	 * @return the size in bytes above which request bodies are gzip compressed,
+	 *         <code>-1</code> if the server does not accept compressed requests.
+	 */
+	int compressRequestsAbove() default -1;
+}
@@ -0,0 +1,72 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.io.IOException;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Retries the failed calls of a method, or of all idempotent methods of a
+ * <code>RestClient</code> interface.
+ * <p>
+ * The annotation on the interface only applies to <code>GET</code>,
+ * <code>HEAD</code>, <code>PUT</code> and <code>DELETE</code> methods. The
+ * annotation on a method also enables the retry of other HTTP methods. Methods
+ * returning a <code>CompletableFuture</code> or a <code>Mono</code> are retried
+ * asynchronously, the other reactive and streaming return types, streaming
+ * request bodies and <code>ResponseBodySink</code> parameters are not
+ * supported.
+ * <p>
+ * The delay before the n-th retry is {@link #backoff()} multiplied
+ * <code>n - 1</code> times with the {@link #multiplier()}, at most
+ * {@link #maxBackoff()}, reduced by a random fraction of at most
+ * {@link #jitter()}. The retries of all methods of an interface share one
+ * retry budget, which stops retrying while most calls fail. A call is not
+ * retried if its <code>Deadline</code> expires before the delay has elapsed.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Retry {
+
+	/**
+	 * @return The maximum number of attempts including the first call.
+	 */
+	int maxAttempts() default 3;
+
+	/**
+	 * @return The delay in milliseconds before the first retry.
+	 */
+	long backoff() default 100;
+
+	/**
+	 * @return The factor by which the delay grows with every retry.
+	 */
+	double multiplier() default 2;
+
+	/**
+	 * @return The maximum delay in milliseconds before a retry.
+	 */
+	long maxBackoff() default 2000;
+
+	/**
+	 * @return The maximum fraction between <code>0</code> and <code>1</code> by
+	 *         which a delay is randomly reduced.
+	 */
+	double jitter() default 0.5;
+
+	/**
+	 * @return The response statuses which are retried.
+	 */
+	int[] statuses() default { 502, 503, 504 };
+
+	/**
+	 * @return The exceptions which are retried, they are also searched in the
+	 *         causes of an exception.
+	 */
+	Class<? extends Throwable>[] exceptions() default { ResourceAccessException.class, IOException.class };
+}
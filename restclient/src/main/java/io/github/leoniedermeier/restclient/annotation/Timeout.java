@@ -0,0 +1,53 @@
+package io.github.leoniedermeier.restclient.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The timeouts of the calls of a method, or of all methods of a
+ * <code>RestClient</code> interface. They override the timeouts of the client,
+ * an attribute which is not set on the method is taken from the annotation on
+ * the interface. They can be overridden by the properties
+ * <code>restclient.&lt;name&gt;.methods.&lt;method&gt;.connect-timeout</code>
+ * and <code>.read-timeout</code>, where <code>&lt;method&gt;</code> is the
+ * name of the method, or its signature like <code>get(String,int)</code> to
+ * configure one of overloaded methods. The signature takes precedence.
+ * <p>
+ * The timeouts are capped by the remaining time of a <code>Deadline</code>,
+ * passed as parameter of the method or attached to the calling thread. If
+ * {@link #deadlineHeader()} is set, the remaining time in milliseconds is
+ * forwarded to the server in this header.
+ * <p>
+ * The timeouts are applied to the requests of the pooled
+ * <code>HttpClient</code> which the factory creates. With another
+ * <code>RestOperations</code> only an expired deadline is detected before the
+ * request is sent. Methods returning a <code>Mono</code> or <code>Flux</code>
+ * are not affected. The factory logs a warning for a method whose timeouts or
+ * deadline are ignored.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Timeout {
+
+	/**
+	 * @return The connect timeout in milliseconds, <code>-1</code> for the
+	 *         timeout of the client.
+	 */
+	int connect() default -1;
+
+	/**
+	 * @return The read timeout in milliseconds, <code>-1</code> for the timeout of
+	 *         the client.
+	 */
+	int read() default -1;
+
+	/**
+	 * @return The name of the header with the remaining time of the deadline in
+	 *         milliseconds, empty if the deadline is not forwarded.
+	 */
+	String deadlineHeader() default "";
+}
@@ -0,0 +1,198 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+import io.github.leoniedermeier.restclient.annotation.ConcurrencyLimit;
+
+/**
+ * The concurrency limit of a <code>RestClient</code>, configured by a
+ * {@link ConcurrencyLimit} annotation.
+ * <p>
+ * The limit is adjusted with the gradient of the latencies after every request:
+ * the ratio of the lowest latency observed to the latency of the request, kept
+ * between <code>0.5</code> and <code>1</code>. The new limit is the old limit
+ * multiplied with the gradient plus its square root, which allows some
+ * queueing, smoothed with the old limit. So the limit grows while the latency
+ * stays at the baseline and shrinks when the requests start to queue at the
+ * server. A dropped request, which timed out or was rejected by an overloaded
+ * server, decreases the limit by a tenth. The limit does not grow while fewer
+ * than half of the permits are used. The lowest latency is reset every
+ * {@value #PROBE_INTERVAL} requests, so the baseline follows the server.
+ * <p>
+ * Permits are taken and the limit is adjusted without locks. Only the calls
+ * waiting for a permit synchronize.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private static final int PROBE_INTERVAL = 1000;
+
+    private static final double SMOOTHING = 0.2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * The bits of the limit as <code>double</code>, so small increments add up.
+     */
+    private final AtomicLong limit;
+
+    private final Object lock = new Object();
+
+    private final int maxLimit;
+
+    private final int maxQueue;
+
+    private final long maxWait;
+
+    private final int minLimit;
+
+    private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong samples = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimit concurrencyLimit) {
+        super();
+        Assert.isTrue(concurrencyLimit.minLimit() > 0, "minLimit must be positive");
+        Assert.isTrue(concurrencyLimit.maxLimit() >= concurrencyLimit.minLimit(),
+                "maxLimit must not be less than minLimit");
+        this.minLimit = concurrencyLimit.minLimit();
+        this.maxLimit = concurrencyLimit.maxLimit();
+        this.maxQueue = concurrencyLimit.maxQueue();
+        this.maxWait = TimeUnit.MILLISECONDS.toNanos(concurrencyLimit.maxWait());
+        this.limit = new AtomicLong(Double.doubleToLongBits(clamp(concurrencyLimit.initialLimit())));
+    }
+
+    /**
+     * Takes a permit, waits up to <code>maxWait</code> if none is available.
+     *
+     * @return <code>true</code> if the call is permitted, <code>false</code> if
+     *         it is rejected.
+     */
+    boolean acquire() {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (maxWait <= 0 || queued.incrementAndGet() > maxQueue) {
+            if (maxWait > 0) {
+                queued.decrementAndGet();
+            }
+            return false;
+        }
+        try {
+            long deadline = System.nanoTime() + maxWait;
+            synchronized (lock) {
+                while (!tryAcquire()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /**
+     * Returns the number of permitted calls which have not completed yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the current limit of concurrent calls.
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    /**
+     * Returns the lowest latency observed since the last reset.
+     *
+     * @return The latency, <code>-1</code> if none has been observed.
+     */
+    public long getMinRtt(TimeUnit unit) {
+        long value = minRtt.get();
+        return value == Long.MAX_VALUE ? -1 : unit.convert(value, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of calls waiting for a permit.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Adjusts the limit with the latency of a completed call.
+     *
+     * @param rtt      The latency in nanoseconds.
+     * @param inFlight The number of calls in flight, including the completed one.
+     * @param dropped  <code>true</code> if the request was dropped.
+     */
+    void record(long rtt, int inFlight, boolean dropped) {
+        if (samples.incrementAndGet() % PROBE_INTERVAL == 0) {
+            minRtt.set(rtt);
+        } else {
+            minRtt.accumulateAndGet(rtt, Math::min);
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, (double) minRtt.get() / Math.max(1, rtt)));
+        limit.updateAndGet(bits -> {
+            double current = Double.longBitsToDouble(bits);
+            if (dropped) {
+                return Double.doubleToLongBits(clamp(current * BACKOFF_RATIO));
+            }
+            if (inFlight < current / 2) {
+                return bits;
+            }
+            double next = current * gradient + Math.sqrt(current);
+            return Double.doubleToLongBits(clamp(current * (1 - SMOOTHING) + next * SMOOTHING));
+        });
+    }
+
+    /**
+     * Releases the permit of a completed call and adjusts the limit.
+     *
+     * @param rtt     The latency in nanoseconds.
+     * @param dropped <code>true</code> if the request timed out or the server was
+     *                overloaded.
+     */
+    void release(long rtt, boolean dropped) {
+        record(rtt, inFlight.getAndDecrement(), dropped);
+        if (queued.get() > 0) {
+            synchronized (lock) {
+                lock.notify();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+}
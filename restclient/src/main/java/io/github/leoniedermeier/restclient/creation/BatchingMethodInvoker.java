@@ -0,0 +1,211 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+
+import io.github.leoniedermeier.restclient.annotation.Batched;
+
+/**
+ * Collects the calls of a single item method and executes them with one call
+ * of the batch method.
+ * <p>
+ * A batch which reaches the maximum size is executed by the thread of the last
+ * call, or by the {@link Executor} if the single item method returns a
+ * {@link CompletableFuture}. A batch whose window elapses is executed by the
+ * {@link Executor}.
+ */
+class BatchingMethodInvoker implements MethodInvoker {
+
+    /**
+     * A pending call of the single item method.
+     */
+    private static final class Call {
+
+        private final Object key;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Call(Object key) {
+            this.key = key;
+        }
+    }
+
+    private final boolean async;
+
+    private final MethodInvoker batchMethodInvoker;
+
+    private final Executor executor;
+
+    private final String keyProperty;
+
+    private final String methodName;
+
+    private final boolean keySet;
+
+    private final int maxSize;
+
+    /**
+     * The calls of the current batch, guarded by <code>this</code>.
+     */
+    private List<Call> pending = new ArrayList<>();
+
+    private final long window;
+
+    /**
+     * @param singleMethodMetaData The meta data of the single item method.
+     * @param batchMethod          The batch method.
+     * @param batchMethodInvoker   The {@link MethodInvoker} of the batch method.
+     * @param batched              The annotation of the single item method.
+     * @param executor             The {@link Executor} which executes the
+     *                             batches.
+     * @throws IllegalStateException If the methods do not have the required
+     *                               parameters and return types.
+     */
+    BatchingMethodInvoker(MethodMetaData singleMethodMetaData, Method batchMethod, MethodInvoker batchMethodInvoker,
+            Batched batched, Executor executor) {
+        super();
+        Method singleMethod = singleMethodMetaData.getMethod();
+        Assert.state(singleMethod.getParameterCount() == 1,
+                () -> "Batched method " + singleMethod + " must have exactly one parameter");
+        Assert.state(
+                singleMethodMetaData.getReturnType() == MethodMetaData.ReturnType.Value
+                        || singleMethodMetaData.getReturnType() == MethodMetaData.ReturnType.CompletableFuture,
+                () -> "Batched method " + singleMethod + " must return the item or a CompletableFuture");
+        Assert.state(batchMethod.getParameterCount() == 1 && (batchMethod.getParameterTypes()[0] == List.class
+                || batchMethod.getParameterTypes()[0] == Collection.class
+                || batchMethod.getParameterTypes()[0] == Set.class),
+                () -> "Batch method " + batchMethod + " must have exactly one List or Set parameter");
+        Class<?> batchReturnType = batchMethod.getReturnType();
+        Assert.state(Map.class == batchReturnType || (List.class == batchReturnType
+                && StringUtils.hasText(batched.keyProperty())),
+                () -> "Batch method " + batchMethod + " must return a Map, or a List with the keyProperty of "
+                        + singleMethod);
+        Assert.state(batched.maxSize() > 0 && batched.window() >= 0,
+                () -> "Invalid maxSize or window of batched method " + singleMethod);
+        this.async = singleMethodMetaData.getReturnType() == MethodMetaData.ReturnType.CompletableFuture;
+        this.batchMethodInvoker = batchMethodInvoker;
+        this.executor = executor;
+        this.keyProperty = List.class == batchReturnType ? batched.keyProperty() : null;
+        this.keySet = batchMethod.getParameterTypes()[0] == Set.class;
+        this.maxSize = batched.maxSize();
+        this.methodName = singleMethod.getName();
+        this.window = batched.window();
+    }
+
+    /**
+     * Executes the batch with the {@link Executor}. If the executor rejects it,
+     * the calls fail with a {@link CallRejectedException}.
+     */
+    private void executeAsync(List<Call> batch) {
+        try {
+            executor.execute(() -> execute(batch));
+        } catch (RejectedExecutionException ex) {
+            CallRejectedException rejection = new CallRejectedException(
+                    "Executor rejected a batch of method " + methodName);
+            rejection.initCause(ex);
+            for (Call call : batch) {
+                call.result.completeExceptionally(rejection);
+            }
+        }
+    }
+
+    /**
+     * Executes the batch and completes its calls with their items, or with the
+     * exception of the batch call. A call whose key is missing in the result
+     * fails with a {@link RestClientException}.
+     */
+    private void execute(List<Call> batch) {
+        try {
+            Set<Object> keys = new LinkedHashSet<>();
+            for (Call call : batch) {
+                keys.add(call.key);
+            }
+            Object result = batchMethodInvoker.invoke(new Object[] { keySet ? keys : new ArrayList<>(keys) });
+            Map<Object, Object> items = itemsByKey(result);
+            for (Call call : batch) {
+                if (items.containsKey(call.key)) {
+                    call.result.complete(items.get(call.key));
+                } else {
+                    call.result.completeExceptionally(new RestClientException(
+                            "No item for key " + call.key + " in the batch result of method " + methodName));
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            for (Call call : batch) {
+                call.result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private void flush(List<Call> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                // already executed because it reached the maximum size
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        executeAsync(batch);
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        Call call = new Call(arguments[0]);
+        List<Call> full = null;
+        List<Call> started = null;
+        synchronized (this) {
+            pending.add(call);
+            if (pending.size() >= maxSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            } else if (pending.size() == 1) {
+                started = pending;
+            }
+        }
+        if (started != null) {
+            List<Call> batch = started;
+            DelayScheduler.schedule(() -> flush(batch), window, TimeUnit.MILLISECONDS);
+        }
+        if (full != null) {
+            if (async) {
+                executeAsync(full);
+            } else {
+                execute(full);
+            }
+        }
+        return async ? call.result : MethodInvoker.await(call.result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> itemsByKey(Object result) {
+        if (result instanceof Map) {
+            return (Map<Object, Object>) result;
+        }
+        Map<Object, Object> items = new HashMap<>();
+        if (result != null) {
+            for (Object item : (Collection<?>) result) {
+                if (item != null) {
+                    BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(item);
+                    items.put(beanWrapper.getPropertyValue(keyProperty), item);
+                }
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free pool of heap {@link ByteBuffer}s of a fixed size. At most
+ * <code>maxPooled</code> buffers are kept, additional buffers are left to the
+ * garbage collector. The buffers are backed by an array, so they can be filled
+ * by {@link java.io.InputStream#read(byte[], int, int)} without a copy.
+ */
+final class ByteBufferPool {
+
+    /**
+     * The pool used for the transfer of response bodies.
+     */
+    static final ByteBufferPool DEFAULT = new ByteBufferPool(64 * 1024, 16);
+
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private final int bufferSize;
+
+    private final int maxPooled;
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * @param bufferSize The capacity of the buffers.
+     * @param maxPooled  The maximum number of buffers kept in the pool.
+     */
+    ByteBufferPool(int bufferSize, int maxPooled) {
+        super();
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Returns a cleared buffer from the pool or a new one.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool. The buffer must not be used afterwards.
+     */
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            buffers.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    int size() {
+        return pooled.get();
+    }
+}
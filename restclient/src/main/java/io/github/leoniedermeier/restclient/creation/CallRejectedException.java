@@ -0,0 +1,17 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown if a call is rejected without sending a request, because the circuit
+ * breaker is open, no permit of the bulkhead or of the concurrency limit is
+ * available, or the executor rejects a batch.
+ */
+public class CallRejectedException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CallRejectedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A lock-free pool of {@link Deflater}s or {@link Inflater}s. Creating them
+ * allocates native memory which is only freed by <code>end()</code> or the
+ * finalizer, so they are reset and reused. At most <code>maxPooled</code>
+ * instances are kept, additional instances are ended.
+ */
+final class CodecPool<T> {
+
+    private static final int MAX_POOLED = 32;
+
+    /**
+     * Deflaters without zlib header for gzip streams, with the fastest
+     * compression level: JSON compresses well even at this level.
+     */
+    static final CodecPool<Deflater> GZIP_DEFLATERS = new CodecPool<>(
+            () -> new Deflater(Deflater.BEST_SPEED, true), Deflater::reset, Deflater::end, MAX_POOLED);
+
+    /**
+     * Inflaters without zlib header for gzip streams.
+     */
+    static final CodecPool<Inflater> GZIP_INFLATERS = new CodecPool<>(() -> new Inflater(true), Inflater::reset,
+            Inflater::end, MAX_POOLED);
+
+    /**
+     * Inflaters with zlib header for the <code>deflate</code> content encoding.
+     */
+    static final CodecPool<Inflater> ZLIB_INFLATERS = new CodecPool<>(Inflater::new, Inflater::reset,
+            Inflater::end, MAX_POOLED);
+
+    private final Supplier<T> factory;
+
+    private final Consumer<T> end;
+
+    private final ConcurrentLinkedQueue<T> instances = new ConcurrentLinkedQueue<>();
+
+    private final int maxPooled;
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final Consumer<T> reset;
+
+    /**
+     * @param factory   Creates a new instance.
+     * @param reset     Resets an instance before it is pooled.
+     * @param end       Frees an instance which is not pooled.
+     * @param maxPooled The maximum number of instances kept in the pool.
+     */
+    CodecPool(Supplier<T> factory, Consumer<T> reset, Consumer<T> end, int maxPooled) {
+        super();
+        this.factory = factory;
+        this.reset = reset;
+        this.end = end;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Returns a reset instance from the pool or a new one.
+     */
+    T acquire() {
+        T instance = instances.poll();
+        if (instance == null) {
+            return factory.get();
+        }
+        pooled.decrementAndGet();
+        return instance;
+    }
+
+    /**
+     * Returns the instance to the pool. The instance must not be used
+     * afterwards.
+     */
+    void release(T instance) {
+        if (pooled.incrementAndGet() <= maxPooled) {
+            reset.accept(instance);
+            instances.offer(instance);
+        } else {
+            pooled.decrementAndGet();
+            end.accept(instance);
+        }
+    }
+
+    int size() {
+        return pooled.get();
+    }
+}
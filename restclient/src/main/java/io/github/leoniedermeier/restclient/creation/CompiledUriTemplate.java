@@ -0,0 +1,222 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+
+/**
+ * An immutable URI template which is compiled once per method from the base url
+ * and the paths of the <code>RequestMapping</code> annotations.
+ * <p>
+ * The literal chunks of the template are encoded at compile time. Expanding the
+ * template only appends the encoded values of the path variable and request
+ * parameter arguments to one pre-sized buffer and creates the {@link URI}.
+ * <p>
+ * The values are encoded strictly: every character except the unreserved
+ * characters of RFC 3986 is percent encoded. This differs from the former
+ * expansion with <code>UriComponentsBuilder.fromHttpUrl(url)</code> and
+ * <code>toUri()</code>, which only quoted the characters illegal in the URI
+ * component. A <code>/</code> in a path variable is now sent as
+ * <code>%2F</code> instead of adding a path segment, and reserved characters
+ * like <code>&amp;</code>, <code>=</code> or <code>+</code> in a request
+ * parameter are now encoded instead of changing the query. A path variable
+ * can therefore no longer contain several path segments. The base url is no
+ * longer required to be an http or https url.
+ */
+final class CompiledUriTemplate {
+
+    private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Compiles the template.
+     *
+     * @param url            The base url, may be <code>null</code>.
+     * @param pathSegments   The path segments which are appended to the base url.
+     * @param pathVariables  The path variable parameters.
+     * @param requestParams  The request parameters, appended as query parameters
+     *                       in the given order.
+     * @return The compiled template, never <code>null</code>.
+     * @throws IllegalStateException If there is no path variable parameter for a
+     *                               URI variable of the template.
+     */
+    static CompiledUriTemplate compile(String url, List<String> pathSegments, ParameterDesciption[] pathVariables,
+            ParameterDesciption[] requestParams) {
+        UriComponentsBuilder builder = url != null ? UriComponentsBuilder.fromUriString(url)
+                : UriComponentsBuilder.newInstance();
+        pathSegments.forEach(builder::path);
+        String template = builder.encode().build().toUriString();
+
+        String fragment = "";
+        int fragmentIndex = template.indexOf('#');
+        if (fragmentIndex >= 0) {
+            fragment = template.substring(fragmentIndex);
+            template = template.substring(0, fragmentIndex);
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<ParameterDesciption> slots = new ArrayList<>();
+        int literalStart = 0;
+        int index = template.indexOf('{');
+        while (index >= 0) {
+            int end = findClosingBrace(template, index);
+            String variable = template.substring(index + 1, end);
+            int colon = variable.indexOf(':');
+            String name = (colon >= 0 ? variable.substring(0, colon) : variable).trim();
+            literals.add(template.substring(literalStart, index));
+            slots.add(findPathVariable(pathVariables, name, template));
+            literalStart = end + 1;
+            index = template.indexOf('{', literalStart);
+        }
+        literals.add(template.substring(literalStart));
+
+        String[] queryNames = new String[requestParams.length];
+        for (int i = 0; i < queryNames.length; i++) {
+            StringBuilder encoded = new StringBuilder();
+            appendEncoded(encoded, requestParams[i].getName());
+            queryNames[i] = encoded.toString();
+        }
+        return new CompiledUriTemplate(literals.toArray(new String[0]), slots.toArray(new ParameterDesciption[0]),
+                queryNames, requestParams.clone(), template.indexOf('?') >= 0, fragment);
+    }
+
+    private static void appendByte(StringBuilder builder, int b) {
+        builder.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+
+    /**
+     * Appends the value to the builder. All characters except the unreserved
+     * characters of RFC 3986 are percent encoded with their UTF-8 bytes.
+     */
+    private static void appendEncoded(StringBuilder builder, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                builder.append(c);
+                continue;
+            }
+            int codePoint = c;
+            if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    codePoint = Character.toCodePoint(c, value.charAt(++i));
+                } else {
+                    // same replacement as String.getBytes(UTF_8) for a malformed surrogate
+                    codePoint = '?';
+                }
+            }
+            if (codePoint < 0x80) {
+                appendByte(builder, codePoint);
+            } else if (codePoint < 0x800) {
+                appendByte(builder, 0xC0 | (codePoint >> 6));
+                appendByte(builder, 0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                appendByte(builder, 0xE0 | (codePoint >> 12));
+                appendByte(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(builder, 0x80 | (codePoint & 0x3F));
+            } else {
+                appendByte(builder, 0xF0 | (codePoint >> 18));
+                appendByte(builder, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendByte(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(builder, 0x80 | (codePoint & 0x3F));
+            }
+        }
+    }
+
+    private static int findClosingBrace(String template, int openingBrace) {
+        int level = 0;
+        for (int i = openingBrace; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                level++;
+            } else if (c == '}' && --level == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unclosed URI variable in template " + template);
+    }
+
+    private static ParameterDesciption findPathVariable(ParameterDesciption[] pathVariables, String name,
+            String template) {
+        for (ParameterDesciption pathVariable : pathVariables) {
+            if (pathVariable.getName().equals(name)) {
+                return pathVariable;
+            }
+        }
+        throw new IllegalStateException("No PathVariable for URI variable '" + name + "' in template " + template);
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.'
+                || c == '_' || c == '~';
+    }
+
+    private final int estimatedLength;
+
+    private final String fragment;
+
+    private final String[] literals;
+
+    private final String[] queryNames;
+
+    private final ParameterDesciption[] requestParams;
+
+    private final ParameterDesciption[] slots;
+
+    private final boolean templateHasQuery;
+
+    private CompiledUriTemplate(String[] literals, ParameterDesciption[] slots, String[] queryNames,
+            ParameterDesciption[] requestParams, boolean templateHasQuery, String fragment) {
+        this.literals = literals;
+        this.slots = slots;
+        this.queryNames = queryNames;
+        this.requestParams = requestParams;
+        this.templateHasQuery = templateHasQuery;
+        this.fragment = fragment;
+
+        int length = fragment.length() + (slots.length + requestParams.length) * ESTIMATED_VALUE_LENGTH;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        for (String queryName : queryNames) {
+            length += queryName.length() + 2;
+        }
+        this.estimatedLength = length;
+    }
+
+    /**
+     * Expands the template with the values of the method arguments.
+     *
+     * @param arguments The arguments of the method invocation.
+     * @return The expanded {@link URI}.
+     */
+    URI expand(Object[] arguments) {
+        StringBuilder builder = new StringBuilder(estimatedLength);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            Object value = slots[i].getArgumentValue(arguments);
+            if (value != null) {
+                appendEncoded(builder, value.toString());
+            }
+        }
+        builder.append(literals[slots.length]);
+
+        boolean hasQuery = templateHasQuery;
+        for (int i = 0; i < requestParams.length; i++) {
+            Object value = requestParams[i].getArgumentValue(arguments);
+            builder.append(hasQuery ? '&' : '?').append(queryNames[i]);
+            hasQuery = true;
+            if (value != null) {
+                builder.append('=');
+                appendEncoded(builder, value.toString());
+            }
+        }
+        builder.append(fragment);
+        return URI.create(builder.toString());
+    }
+}
@@ -0,0 +1,439 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Decorates a {@link ClientHttpRequestFactory} with the gzip compression of the
+ * request and response bodies.
+ * <p>
+ * The requests accept gzip and deflate encoded responses, which are
+ * decompressed while they are read. A request body larger than the threshold
+ * is gzip compressed while it is written. If the size of the body is unknown,
+ * up to <code>threshold</code> bytes are buffered until the decision is made.
+ * If the decorated request is a {@link StreamingHttpOutputMessage}, the
+ * headers are sent before the body is written, so a body of unknown size is
+ * first written into a buffer of <code>threshold</code> bytes: it is sent
+ * from the buffer if it fits, otherwise it is written again compressed. A
+ * {@link SingleUseBody} is not buffered, it is compressed if its size is
+ * unknown. The codecs are taken from the {@link CodecPool}s.
+ */
+class CompressingClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    /**
+     * A streaming body which can only be written once, for example because it
+     * copies an <code>InputStream</code>.
+     */
+    interface SingleUseBody extends StreamingHttpOutputMessage.Body {
+    }
+
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private static final String GZIP = "gzip";
+
+    /**
+     * Collects a streaming body of unknown size up to the threshold. A larger
+     * body is stopped by an {@link Overflow}, so it is not written any further.
+     */
+    private static final class BoundedBuffer extends OutputStream {
+
+        private static final class Overflow extends IOException {
+
+            private static final long serialVersionUID = 1L;
+
+            Overflow() {
+                super("Request body larger than the compression threshold");
+            }
+
+            @Override
+            public synchronized Throwable fillInStackTrace() {
+                return this;
+            }
+        }
+
+        private byte[] buffer = new byte[0];
+
+        private int count;
+
+        private boolean overflow;
+
+        private final int threshold;
+
+        BoundedBuffer(int threshold) {
+            super();
+            this.threshold = threshold;
+        }
+
+        private void ensureCapacity(int len) throws Overflow {
+            if (count + len > threshold) {
+                overflow = true;
+                throw new Overflow();
+            }
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(threshold, Math.max(count + len, 2 * buffer.length + 64)));
+            }
+        }
+
+        /**
+         * Returns the buffered body, which is sent with its
+         * <code>Content-Length</code>.
+         */
+        StreamingHttpOutputMessage.Body toBody(HttpHeaders headers) {
+            byte[] body = buffer;
+            int length = count;
+            headers.setContentLength(length);
+            return outputStream -> outputStream.write(body, 0, length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureCapacity(len);
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureCapacity(1);
+            buffer[count++] = (byte) b;
+        }
+    }
+
+    /**
+     * Writes the request body, raw or compressed.
+     */
+    private static final class BodyStream extends OutputStream {
+
+        private byte[] buffer;
+
+        private int count;
+
+        private final ClientHttpRequest request;
+
+        private OutputStream target;
+
+        private final int threshold;
+
+        BodyStream(ClientHttpRequest request, int threshold) throws IOException {
+            super();
+            this.request = request;
+            this.threshold = threshold;
+            long contentLength = request.getHeaders().getContentLength();
+            if (contentLength > threshold) {
+                compress();
+            } else if (contentLength >= 0) {
+                target = request.getBody();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        private void compress() throws IOException {
+            HttpHeaders headers = request.getHeaders();
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            target = new PooledGzipOutputStream(StreamUtils.nonClosing(request.getBody()));
+            if (count > 0) {
+                target.write(buffer, 0, count);
+            }
+            buffer = null;
+        }
+
+        /**
+         * Writes the buffered body or finishes the compressed body.
+         */
+        void finish() throws IOException {
+            if (target == null) {
+                target = request.getBody();
+                if (count > 0) {
+                    target.write(buffer, 0, count);
+                }
+                buffer = null;
+            } else if (target instanceof PooledGzipOutputStream) {
+                target.close();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        /**
+         * Returns <code>true</code> if the bytes fit into the buffer, otherwise
+         * switches to the compressed body.
+         */
+        private boolean buffer(int len) throws IOException {
+            if (count + len <= threshold) {
+                if (buffer == null) {
+                    buffer = new byte[threshold];
+                }
+                return true;
+            }
+            compress();
+            return false;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null && buffer(len)) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            } else {
+                target.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target == null && buffer(1)) {
+                buffer[count++] = (byte) b;
+            } else {
+                target.write(b);
+            }
+        }
+    }
+
+    /**
+     * A request whose body is compressed if it is larger than the threshold.
+     */
+    private class CompressingRequest implements ClientHttpRequest {
+
+        private BodyStream body;
+
+        final ClientHttpRequest request;
+
+        CompressingRequest(ClientHttpRequest request) {
+            super();
+            this.request = request;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            if (body != null) {
+                body.finish();
+            }
+            return decompressing(request.execute());
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (body == null) {
+                if (requestThreshold < 0 || request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                    return request.getBody();
+                }
+                body = new BodyStream(request, requestThreshold);
+            }
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public String getMethodValue() {
+            return request.getMethodValue();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+    }
+
+    /**
+     * A streaming request, its body is written when the request is sent.
+     */
+    private final class StreamingCompressingRequest extends CompressingRequest implements StreamingHttpOutputMessage {
+
+        private Body body;
+
+        StreamingCompressingRequest(ClientHttpRequest request) {
+            super(request);
+        }
+
+        /**
+         * Returns the body compressed unless its size is below the threshold. A
+         * body of unknown size is written into a {@link BoundedBuffer} to find out.
+         */
+        private Body compressing(Body body) throws IOException {
+            HttpHeaders headers = request.getHeaders();
+            long contentLength = headers.getContentLength();
+            if (requestThreshold < 0 || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || contentLength >= 0 && contentLength <= requestThreshold) {
+                return body;
+            }
+            if (contentLength < 0 && !(body instanceof SingleUseBody)) {
+                BoundedBuffer buffer = new BoundedBuffer(requestThreshold);
+                try {
+                    body.writeTo(buffer);
+                    return buffer.toBody(headers);
+                } catch (IOException | RuntimeException ex) {
+                    // the writer may have wrapped the overflow
+                    if (!buffer.overflow) {
+                        throw ex;
+                    }
+                }
+            }
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return outputStream -> {
+                try (OutputStream gzip = new PooledGzipOutputStream(StreamUtils.nonClosing(outputStream))) {
+                    body.writeTo(StreamUtils.nonClosing(gzip));
+                }
+            };
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            if (body != null) {
+                ((StreamingHttpOutputMessage) request).setBody(compressing(body));
+            }
+            return super.execute();
+        }
+
+        @Override
+        public void setBody(Body body) {
+            this.body = body;
+        }
+    }
+
+    /**
+     * A response whose body is decompressed while it is read.
+     */
+    private static final class DecompressingResponse implements ClientHttpResponse {
+
+        private InputStream body;
+
+        private final boolean gzip;
+
+        private final HttpHeaders headers;
+
+        private final ClientHttpResponse response;
+
+        DecompressingResponse(ClientHttpResponse response, boolean gzip) {
+            super();
+            this.response = response;
+            this.gzip = gzip;
+            HttpHeaders decodedHeaders = new HttpHeaders();
+            decodedHeaders.putAll(response.getHeaders());
+            decodedHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+            decodedHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+            this.headers = decodedHeaders;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (body != null) {
+                    body.close();
+                }
+            } catch (IOException ex) {
+                // the response is closed anyway
+            } finally {
+                response.close();
+            }
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = gzip ? PooledInflaterInputStream.gzip(response.getBody())
+                        : PooledInflaterInputStream.zlib(response.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+    }
+
+    /**
+     * Returns the response, decompressing if it has a gzip or deflate content
+     * encoding.
+     */
+    static ClientHttpResponse decompressing(ClientHttpResponse response) {
+        String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null) {
+            return response;
+        }
+        encoding = encoding.trim();
+        if (encoding.equalsIgnoreCase(GZIP) || encoding.equalsIgnoreCase("x-gzip")) {
+            return new DecompressingResponse(response, true);
+        }
+        return encoding.equalsIgnoreCase("deflate") ? new DecompressingResponse(response, false) : response;
+    }
+
+    private final boolean acceptCompressed;
+
+    private final ClientHttpRequestFactory requestFactory;
+
+    private final int requestThreshold;
+
+    /**
+     * @param requestFactory   The decorated factory.
+     * @param acceptCompressed <code>true</code> if the requests accept compressed
+     *                         responses.
+     * @param requestThreshold The size in bytes above which request bodies are
+     *                         compressed, <code>-1</code> if they are never
+     *                         compressed.
+     */
+    CompressingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory, boolean acceptCompressed,
+            int requestThreshold) {
+        super();
+        this.requestFactory = requestFactory;
+        this.acceptCompressed = acceptCompressed;
+        this.requestThreshold = requestThreshold;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        ClientHttpRequest request = requestFactory.createRequest(uri, httpMethod);
+        if (acceptCompressed && !request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+        return request instanceof StreamingHttpOutputMessage ? new StreamingCompressingRequest(request)
+                : new CompressingRequest(request);
+    }
+}
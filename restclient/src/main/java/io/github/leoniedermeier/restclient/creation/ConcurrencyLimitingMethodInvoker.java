@@ -0,0 +1,84 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+
+/**
+ * Limits the concurrent calls of a {@link MethodInvoker} with the
+ * {@link AdaptiveConcurrencyLimiter} of the client.
+ * <p>
+ * The latency is measured from the permit to the response, for a
+ * <code>CompletableFuture</code> until the future completes. A call waiting for
+ * a permit blocks the calling thread.
+ */
+class ConcurrencyLimitingMethodInvoker implements MethodInvoker {
+
+    /**
+     * Returns <code>true</code> if the request timed out or could not be sent, or
+     * the server answered that it is overloaded.
+     */
+    private static boolean isDropped(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof RestClientResponseException) {
+            int status = ((RestClientResponseException) error).getRawStatusCode();
+            return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        return error instanceof ResourceAccessException;
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final MethodInvoker methodInvoker;
+
+    private final String methodName;
+
+    private final ReturnType returnType;
+
+    ConcurrencyLimitingMethodInvoker(MethodInvoker methodInvoker, MethodMetaData methodMetaData,
+            AdaptiveConcurrencyLimiter limiter) {
+        super();
+        this.methodInvoker = methodInvoker;
+        this.methodName = methodMetaData.getMethod().getName();
+        this.returnType = methodMetaData.getReturnType();
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        if (!limiter.acquire()) {
+            CallRejectedException rejection = new CallRejectedException(
+                    "Concurrency limit " + limiter.getLimit() + " reached for method " + methodName);
+            if (returnType == ReturnType.CompletableFuture) {
+                CompletableFuture<?> future = new CompletableFuture<>();
+                future.completeExceptionally(rejection);
+                return future;
+            }
+            throw rejection;
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = methodInvoker.invoke(arguments);
+        } catch (RuntimeException ex) {
+            limiter.release(System.nanoTime() - start, isDropped(ex));
+            throw ex;
+        } catch (Error ex) {
+            limiter.release(System.nanoTime() - start, true);
+            throw ex;
+        }
+        if (returnType == ReturnType.CompletableFuture) {
+            return ((CompletableFuture<?>) result).whenComplete(
+                    (value, error) -> limiter.release(System.nanoTime() - start, error != null && isDropped(error)));
+        }
+        limiter.release(System.nanoTime() - start, false);
+        return result;
+    }
+}
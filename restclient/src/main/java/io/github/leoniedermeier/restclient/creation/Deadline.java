@@ -0,0 +1,142 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The point in time after which the caller is no longer interested in the
+ * result of a call, for example because the inbound request has timed out.
+ * <p>
+ * A deadline is either passed as parameter of a method, or attached to the
+ * calling thread, typically by a filter which reads the remaining time of the
+ * inbound request:
+ *
+ * <pre>
+ * try (Deadline.Scope scope = Deadline.after(remaining, TimeUnit.MILLISECONDS).attach()) {
+ *     chain.doFilter(request, response);
+ * }
+ * </pre>
+ *
+ * The calls executed by another thread, for example methods returning a
+ * <code>CompletableFuture</code>, see the deadline of the calling thread.
+ */
+public final class Deadline {
+
+    /**
+     * Restores the previous deadline of the thread when closed.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            super();
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            set(previous);
+        }
+    }
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Creates a deadline after the given time from now.
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * Returns the deadline attached to the current thread.
+     *
+     * @return The deadline, <code>null</code> if none is attached.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the earlier of two deadlines, either may be <code>null</code>.
+     */
+    static Deadline earliest(Deadline a, Deadline b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.nanoTime - b.nanoTime <= 0 ? a : b;
+    }
+
+    private static void set(Deadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    /**
+     * Returns a task which runs with the deadline of the current thread attached.
+     */
+    static Runnable wrap(Runnable task) {
+        Deadline deadline = current();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope scope = deadline.attach()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Returns a supplier which runs with the deadline of the current thread
+     * attached.
+     */
+    static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Deadline deadline = current();
+        if (deadline == null) {
+            return supplier;
+        }
+        return () -> {
+            try (Scope scope = deadline.attach()) {
+                return supplier.get();
+            }
+        };
+    }
+
+    private final long nanoTime;
+
+    private Deadline(long nanoTime) {
+        super();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Attaches the deadline to the current thread until the returned scope is
+     * closed.
+     */
+    public Scope attach() {
+        Scope scope = new Scope(current());
+        set(this);
+        return scope;
+    }
+
+    public boolean isExpired() {
+        return nanoTime - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Returns the remaining time, a negative value if the deadline has expired.
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(nanoTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline in " + remaining(TimeUnit.MILLISECONDS) + " ms";
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown if the {@link Deadline} of a call has expired before the request is
+ * sent.
+ */
+public class DeadlineExceededException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String msg) {
+        super(msg);
+    }
+}
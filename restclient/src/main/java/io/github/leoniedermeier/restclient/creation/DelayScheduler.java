@@ -0,0 +1,42 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the delayed tasks of the invokers, for example the flush of a batch, a
+ * hedged attempt or a retry. The tasks only hand the work over to an executor,
+ * so all invokers share a single daemon thread. The thread is created with the
+ * first scheduled task and stops after a minute without tasks.
+ */
+final class DelayScheduler {
+
+    private static final class Holder {
+
+        private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+        private static ScheduledThreadPoolExecutor createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "restclient-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setKeepAliveTime(1, TimeUnit.MINUTES);
+            scheduler.allowCoreThreadTimeOut(true);
+            // cancelled hedges are removed instead of waiting for their delay
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    /**
+     * Runs the task after the given delay in the thread of the scheduler.
+     */
+    static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return Holder.SCHEDULER.schedule(task, delay, unit);
+    }
+
+    private DelayScheduler() {
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import io.github.leoniedermeier.restclient.annotation.Fallback;
+
+/**
+ * A default method of a <code>RestClient</code> interface which is called if a
+ * call of a method fails, see {@link Fallback}.
+ * <p>
+ * The default method is called with a {@link MethodHandle} bound to the proxy,
+ * so it also works for the JDK proxies which do not implement default methods.
+ */
+final class FallbackMethod {
+
+    /**
+     * Returns a {@link Lookup} with private access to the interface. Java 9+ has
+     * <code>MethodHandles.privateLookupIn</code>, on Java 8 the private
+     * constructor of {@link Lookup} is used.
+     */
+    private static Lookup privateLookupIn(Class<?> type) throws ReflectiveOperationException {
+        try {
+            Method privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+            return (Lookup) privateLookupIn.invoke(null, type, MethodHandles.lookup());
+        } catch (NoSuchMethodException ex) {
+            Constructor<Lookup> constructor = Lookup.class.getDeclaredConstructor(Class.class, int.class);
+            ReflectionUtils.makeAccessible(constructor);
+            return constructor.newInstance(type, Lookup.PRIVATE);
+        }
+    }
+
+    /**
+     * Resolves the fallback method of a method.
+     *
+     * @param method The annotated method.
+     * @param name   The name of the default method.
+     * @param proxy  Supplies the proxy on which the default method is called.
+     * @throws IllegalStateException If there is no matching default method.
+     */
+    static FallbackMethod resolve(Method method, String name, Supplier<Object> proxy) {
+        Class<?> type = method.getDeclaringClass();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?>[] withThrowable = Arrays.copyOf(parameterTypes, parameterTypes.length + 1);
+        withThrowable[parameterTypes.length] = Throwable.class;
+        Method fallback = ReflectionUtils.findMethod(type, name, withThrowable);
+        boolean withError = fallback != null;
+        if (!withError) {
+            fallback = ReflectionUtils.findMethod(type, name, parameterTypes);
+        }
+        Assert.state(fallback != null && fallback.isDefault(), () -> "No default method " + name + " with the "
+                + "parameters of method " + method + " and an optional Throwable parameter");
+        Assert.state(fallback.getReturnType() == method.getReturnType(),
+                () -> "Fallback method " + name + " must have the return type of method " + method);
+        try {
+            return new FallbackMethod(privateLookupIn(type).unreflectSpecial(fallback, type), withError, proxy);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Cannot access fallback method " + fallback, ex);
+        }
+    }
+
+    private final MethodHandle methodHandle;
+
+    private final Supplier<Object> proxy;
+
+    private final boolean withError;
+
+    private FallbackMethod(MethodHandle methodHandle, boolean withError, Supplier<Object> proxy) {
+        super();
+        this.methodHandle = methodHandle;
+        this.withError = withError;
+        this.proxy = proxy;
+    }
+
+    /**
+     * Calls the fallback method.
+     *
+     * @param arguments The arguments of the failed call.
+     * @param error     The exception of the failed call.
+     * @return The result of the fallback method.
+     */
+    Object invoke(Object[] arguments, Throwable error) {
+        Object[] fallbackArguments = new Object[arguments.length + (withError ? 2 : 1)];
+        fallbackArguments[0] = proxy.get();
+        System.arraycopy(arguments, 0, fallbackArguments, 1, arguments.length);
+        if (withError) {
+            fallbackArguments[fallbackArguments.length - 1] = error;
+        }
+        try {
+            return methodHandle.invokeWithArguments(fallbackArguments);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Fallback method failed", ex);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Finds and instantiates the classes which the annotation processor generates
+ * for a <code>RestClient</code> interface. For the interface
+ * <code>a.b.Outer.Client</code> these are <code>a.b.Outer_Client_RestClientMetaData</code>
+ * and <code>a.b.Outer_Client_RestClientImpl</code>.
+ */
+class GeneratedClients {
+
+    static final String IMPLEMENTATION_SUFFIX = "_RestClientImpl";
+
+    static final String META_DATA_SUFFIX = "_RestClientMetaData";
+
+    /**
+     * Creates the generated implementation of the interface.
+     *
+     * @param methods        The methods in the order of the generated meta data.
+     * @param methodInvokers The {@link MethodInvoker}s of the methods.
+     */
+    static Object createImplementation(Class<?> type, List<Method> methods,
+            Map<Method, MethodInvoker> methodInvokers) {
+        Class<?> implementation = findClass(type, IMPLEMENTATION_SUFFIX);
+        if (implementation == null) {
+            throw new IllegalStateException("No generated implementation for interface " + type);
+        }
+        MethodInvoker[] invokers = new MethodInvoker[methods.size()];
+        for (int i = 0; i < invokers.length; i++) {
+            invokers[i] = methodInvokers.get(methods.get(i));
+        }
+        try {
+            Constructor<?> constructor = implementation.getDeclaredConstructor(RestClientInvokers.class);
+            return BeanUtils.instantiateClass(constructor, new RestClientInvokers(invokers));
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("Invalid generated implementation " + implementation, ex);
+        }
+    }
+
+    private static Class<?> findClass(Class<?> type, String suffix) {
+        String name = ClassUtils.getPackageName(type) + "." + ClassUtils.getShortName(type).replace('.', '_')
+                + suffix;
+        if (!ClassUtils.isPresent(name, type.getClassLoader())) {
+            return null;
+        }
+        return ClassUtils.resolveClassName(name, type.getClassLoader());
+    }
+
+    /**
+     * Returns the generated meta data of the interface.
+     *
+     * @return The meta data, <code>null</code> if the annotation processor did
+     *         not generate a class for the interface.
+     */
+    static GeneratedRestClientMetaData findMetaData(Class<?> type) {
+        Class<?> metaData = findClass(type, META_DATA_SUFFIX);
+        if (metaData == null) {
+            return null;
+        }
+        return (GeneratedRestClientMetaData) BeanUtils.instantiateClass(metaData);
+    }
+
+    /**
+     * Returns the methods of the generated meta data.
+     */
+    static List<Method> resolveMethods(Class<?> type, GeneratedRestClientMetaData metaData) {
+        GeneratedMethodMetaData[] generatedMethods = metaData.getMethods();
+        List<Method> methods = new ArrayList<>(generatedMethods.length);
+        for (GeneratedMethodMetaData generatedMethod : generatedMethods) {
+            Method method = ReflectionUtils.findMethod(type, generatedMethod.getName(),
+                    generatedMethod.getParameterTypes());
+            if (method == null) {
+                throw new IllegalStateException("Generated meta data of interface " + type
+                        + " does not match the interface, recompile it: no method " + generatedMethod.getName());
+            }
+            methods.add(method);
+        }
+        return methods;
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.leoniedermeier.restclient.creation;
+
+/**
+ * The mapping of one method of a <code>RestClient</code> interface as it is
+ * determined at compile time by the annotation processor. The values are not
+ * resolved: placeholders are resolved and the response type is determined when
+ * the client is created.
+ * <p>
+ * Instances are created by the generated
+ * {@link GeneratedRestClientMetaData} classes.
+ */
+public final class GeneratedMethodMetaData {
+
+    /**
+     * An annotated parameter of the method.
+     */
+    public static final class Parameter {
+
+        private final int index;
+
+        private final String name;
+
+        private final boolean required;
+
+        private final String type;
+
+        private Parameter(String type, String name, int index, boolean required) {
+            super();
+            this.type = type;
+            this.name = name;
+            this.index = index;
+            this.required = required;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the simple name of the annotation of the parameter, e.g.
+         * <code>PathVariable</code>.
+         */
+        public String getType() {
+            return type;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+    }
+
+    /**
+     * Creates a {@link Parameter}.
+     *
+     * @param type     The simple name of the annotation of the parameter:
+     *                 <code>PathVariable</code>, <code>RequestParam</code>,
+     *                 <code>RequestHeader</code> or <code>RequestBody</code>.
+     * @param name     The name of the parameter, the parameter name if the
+     *                 annotation has no name.
+     * @param index    The index of the parameter.
+     * @param required The <code>required</code> attribute of the annotation.
+     */
+    public static Parameter parameter(String type, String name, int index, boolean required) {
+        return new Parameter(type, name, index, required);
+    }
+
+    private final String[] headers;
+
+    private final String httpMethod;
+
+    private final String name;
+
+    private final Class<?>[] parameterTypes;
+
+    private final Parameter[] parameters;
+
+    private final String path;
+
+    /**
+     * @param name           The name of the method.
+     * @param parameterTypes The parameter types of the method.
+     * @param httpMethod     The name of the HTTP method.
+     * @param path           The path of the method, <code>null</code> if it has
+     *                       none.
+     * @param headers        The <code>headers</code> of the mapping annotation.
+     * @param parameters     The annotated parameters.
+     */
+    public GeneratedMethodMetaData(String name, Class<?>[] parameterTypes, String httpMethod, String path,
+            String[] headers, Parameter... parameters) {
+        super();
+        this.name = name;
+        this.parameterTypes = parameterTypes;
+        this.httpMethod = httpMethod;
+        this.path = path;
+        this.headers = headers;
+        this.parameters = parameters;
+    }
+
+    public String[] getHeaders() {
+        return headers;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Parameter[] getParameters() {
+        return parameters;
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.InvocationHandler;
+import org.springframework.cglib.proxy.NoOp;
+
+/**
+ * Creates a proxy by generating a class which implements the interface with
+ * CGLIB. Every method of the generated class has its own callback which calls
+ * the {@link MethodInvoker} of the method directly: there is no lookup of the
+ * method, no <code>MethodInvocation</code> and no interceptor chain.
+ * <p>
+ * The callback indexes only depend on the interface and its methods with an
+ * invoker, so the proxies of an interface share one generated class, which
+ * CGLIB caches per class loader.
+ */
+class GeneratedProxyFactory {
+
+    /**
+     * Maps the methods to their callback indexes. CGLIB uses it as part of the
+     * key of its class cache, so it is equal for the same methods.
+     */
+    private static class MethodCallbackFilter implements CallbackFilter {
+
+        private final Map<Method, Integer> callbackIndexes;
+
+        MethodCallbackFilter(Map<Method, Integer> callbackIndexes) {
+            super();
+            this.callbackIndexes = callbackIndexes;
+        }
+
+        @Override
+        public int accept(Method method) {
+            Integer index = callbackIndexes.get(method);
+            if (index != null) {
+                return index;
+            }
+            return method.getDeclaringClass() == Object.class || method.isDefault() ? NO_OP : MISSING;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof MethodCallbackFilter
+                    && callbackIndexes.equals(((MethodCallbackFilter) obj).callbackIndexes);
+        }
+
+        @Override
+        public int hashCode() {
+            return callbackIndexes.hashCode();
+        }
+    }
+
+    private static class MethodInvokerCallback implements InvocationHandler {
+
+        private final MethodInvoker methodInvoker;
+
+        MethodInvokerCallback(MethodInvoker methodInvoker) {
+            super();
+            this.methodInvoker = methodInvoker;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) {
+            return methodInvoker.invoke(arguments);
+        }
+    }
+
+    private static class MissingMethodCallback implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) {
+            throw new IllegalStateException("Missing MethodMetaData for method " + MethodMetaData.signature(method));
+        }
+    }
+
+    /**
+     * Callback index for the methods of {@link Object} and default methods, which
+     * are not overridden.
+     */
+    private static final int NO_OP = 0;
+
+    /**
+     * Callback index for abstract methods without {@link MethodInvoker}.
+     */
+    private static final int MISSING = 1;
+
+    static Object createProxy(Class<?> type, Map<Method, MethodInvoker> methodToMethodInvoker) {
+        List<Callback> callbacks = new ArrayList<>();
+        callbacks.add(NoOp.INSTANCE);
+        callbacks.add(new MissingMethodCallback());
+        Map<Method, Integer> callbackIndexes = new HashMap<>();
+        // a stable order, so the same methods get the same indexes
+        List<Method> methods = new ArrayList<>(methodToMethodInvoker.keySet());
+        methods.sort(Comparator.comparing((Method method) -> method.getDeclaringClass().getName())
+                .thenComparing(MethodMetaData::signature));
+        for (Method method : methods) {
+            callbackIndexes.put(method, callbacks.size());
+            callbacks.add(new MethodInvokerCallback(methodToMethodInvoker.get(method)));
+        }
+
+        Enhancer enhancer = new Enhancer();
+        enhancer.setInterfaces(new Class<?>[] { type });
+        enhancer.setClassLoader(type.getClassLoader());
+        // the class is defined in the package of the interface, required on JDK 9+
+        enhancer.setContextClass(type);
+        enhancer.setUseFactory(false);
+        enhancer.setCallbackFilter(new MethodCallbackFilter(callbackIndexes));
+        enhancer.setCallbacks(callbacks.toArray(new Callback[0]));
+        return enhancer.create();
+    }
+
+    private GeneratedProxyFactory() {
+        super();
+    }
+}
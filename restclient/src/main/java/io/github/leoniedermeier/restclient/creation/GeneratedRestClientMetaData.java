@@ -0,0 +1,17 @@
+package io.github.leoniedermeier.restclient.creation;
+
+/**
+ * Implemented by the <code>&lt;Interface&gt;_RestClientMetaData</code> classes
+ * which the annotation processor generates for <code>RestClient</code>
+ * interfaces. If the class is present, the {@link RestClientFactoryBean} reads
+ * the mapping of the methods from it instead of the annotations.
+ */
+public interface GeneratedRestClientMetaData {
+
+    /**
+     * Returns the mappings of the methods with a <code>RequestMapping</code>. The
+     * position of a method is the index which the generated implementation passes
+     * to {@link RestClientInvokers#invoke(int, Object[])}.
+     */
+    GeneratedMethodMetaData[] getMethods();
+}
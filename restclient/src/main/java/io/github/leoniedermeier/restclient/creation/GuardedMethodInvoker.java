@@ -0,0 +1,541 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Guards the calls of a {@link MethodInvoker} with a circuit breaker and a
+ * bulkhead, and calls the fallback method if a call fails or is rejected.
+ * <p>
+ * A call first takes a permit of the bulkhead, then asks the circuit breaker.
+ * The permit is released and the outcome is recorded when the call completes,
+ * for a <code>CompletableFuture</code> when the future completes, for a
+ * <code>Mono</code> or <code>Flux</code> when the subscription terminates.
+ * A streamed result, i.e. a <code>Stream</code>, <code>Iterator</code>,
+ * <code>Spliterator</code>, <code>InputStream</code> or
+ * <code>ReadableByteChannel</code>, holds the permit until the body is
+ * consumed or the result is closed, and a failure while reading the body is
+ * recorded in the circuit breaker.
+ */
+class GuardedMethodInvoker implements MethodInvoker {
+
+    /**
+     * Releases the permit of a streamed <code>InputStream</code> at the end of
+     * the body, on a read error or when it is closed.
+     */
+    private static final class GuardedInputStream extends FilterInputStream {
+
+        private final Permit permit;
+
+        GuardedInputStream(InputStream in, Permit permit) {
+            super(in);
+            this.permit = permit;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                permit.release(false);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int read = super.read();
+                if (read < 0) {
+                    permit.release(false);
+                }
+                return read;
+            } catch (IOException | RuntimeException ex) {
+                permit.release(true);
+                throw ex;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                int read = super.read(b, off, len);
+                if (read < 0) {
+                    permit.release(false);
+                }
+                return read;
+            } catch (IOException | RuntimeException ex) {
+                permit.release(true);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a streamed <code>ReadableByteChannel</code> at the
+     * end of the body, on a read error or when it is closed.
+     */
+    private static final class GuardedChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel channel;
+
+        private final Permit permit;
+
+        GuardedChannel(ReadableByteChannel channel, Permit permit) {
+            super();
+            this.channel = channel;
+            this.permit = permit;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                permit.release(false);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            try {
+                int read = channel.read(dst);
+                if (read < 0) {
+                    permit.release(false);
+                }
+                return read;
+            } catch (IOException | RuntimeException ex) {
+                permit.release(true);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a streamed <code>Iterator</code> after the last
+     * element, on a read error or when it is closed.
+     */
+    private static final class GuardedIterator implements Iterator<Object>, Closeable {
+
+        private final Iterator<?> iterator;
+
+        private final Permit permit;
+
+        GuardedIterator(Iterator<?> iterator, Permit permit) {
+            super();
+            this.iterator = iterator;
+            this.permit = permit;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (iterator instanceof Closeable) {
+                    ((Closeable) iterator).close();
+                }
+            } finally {
+                permit.release(false);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                boolean hasNext = iterator.hasNext();
+                if (!hasNext) {
+                    permit.release(false);
+                }
+                return hasNext;
+            } catch (RuntimeException ex) {
+                permit.release(isFailure(ex));
+                throw ex;
+            }
+        }
+
+        @Override
+        public Object next() {
+            try {
+                return iterator.next();
+            } catch (RuntimeException ex) {
+                permit.release(isFailure(ex));
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a streamed <code>Spliterator</code> or
+     * <code>Stream</code> after the last element, on a read error or when it is
+     * closed. An exception of the action of the caller is not a failure of the
+     * call.
+     */
+    private static final class GuardedSpliterator extends Spliterators.AbstractSpliterator<Object>
+            implements Consumer<Object>, Closeable {
+
+        private Consumer<? super Object> action;
+
+        /**
+         * <code>true</code> while the action of the caller runs, and after it
+         * failed.
+         */
+        private boolean inAction;
+
+        private final Permit permit;
+
+        private final Spliterator<?> spliterator;
+
+        GuardedSpliterator(Spliterator<?> spliterator, Permit permit) {
+            super(Long.MAX_VALUE, spliterator.characteristics());
+            this.spliterator = spliterator;
+            this.permit = permit;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (spliterator instanceof Closeable) {
+                    ((Closeable) spliterator).close();
+                }
+            } finally {
+                permit.release(false);
+            }
+        }
+
+        @Override
+        public void accept(Object value) {
+            inAction = true;
+            action.accept(value);
+            inAction = false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            this.action = action;
+            try {
+                boolean advanced = spliterator.tryAdvance(this);
+                if (!advanced) {
+                    permit.release(false);
+                }
+                return advanced;
+            } catch (RuntimeException ex) {
+                if (!inAction) {
+                    permit.release(isFailure(ex));
+                }
+                throw ex;
+            } finally {
+                this.action = null;
+                inAction = false;
+            }
+        }
+    }
+
+    /**
+     * Guards the subscriptions of a <code>Mono</code> or <code>Flux</code>. It is
+     * only created for a reactive method, so the invoker works without Reactor on
+     * the class path.
+     * <p>
+     * The subscribing thread may be an event loop, so it does not wait for the
+     * bulkhead: if no permit is free, the subscription waits on a thread of the
+     * bounded elastic scheduler.
+     */
+    private final class ReactiveGuard {
+
+        private Flux<Object> guard(Flux<Object> flux, boolean bulkheadAcquired) {
+            CallRejectedException rejection = acquire(bulkheadAcquired);
+            if (rejection != null) {
+                return Flux.error(rejection);
+            }
+            Permit permit = new Permit();
+            return flux.doOnComplete(() -> permit.release(false))
+                    .doOnError(error -> permit.release(isFailure(error)))
+                    .doOnCancel(() -> permit.release(false));
+        }
+
+        private Mono<Object> guard(Mono<Object> mono, boolean bulkheadAcquired) {
+            CallRejectedException rejection = acquire(bulkheadAcquired);
+            if (rejection != null) {
+                return Mono.error(rejection);
+            }
+            Permit permit = new Permit();
+            return mono.doOnSuccess(value -> permit.release(false))
+                    .doOnError(error -> permit.release(isFailure(error)))
+                    .doOnCancel(() -> permit.release(false));
+        }
+
+        @SuppressWarnings("unchecked")
+        Object invoke(Object[] arguments) {
+            Object publisher = methodInvoker.invoke(arguments);
+            if (publisher instanceof Mono) {
+                Mono<Object> mono = Mono.defer(() -> {
+                    if (bulkhead == null || bulkhead.tryAcquire()) {
+                        return guard((Mono<Object>) publisher, true);
+                    }
+                    if (maxWait <= 0) {
+                        return guard((Mono<Object>) publisher, false);
+                    }
+                    return Mono.defer(() -> guard((Mono<Object>) publisher, tryAcquireBulkhead()))
+                            .subscribeOn(Schedulers.boundedElastic());
+                });
+                return fallback == null ? mono
+                        : mono.onErrorResume(error -> (Mono<Object>) fallback.invoke(arguments, error));
+            }
+            Flux<Object> flux = Flux.defer(() -> {
+                if (bulkhead == null || bulkhead.tryAcquire()) {
+                    return guard((Flux<Object>) publisher, true);
+                }
+                if (maxWait <= 0) {
+                    return guard((Flux<Object>) publisher, false);
+                }
+                return Flux.defer(() -> guard((Flux<Object>) publisher, tryAcquireBulkhead()))
+                        .subscribeOn(Schedulers.boundedElastic());
+            });
+            return fallback == null ? flux
+                    : flux.onErrorResume(error -> (Flux<Object>) fallback.invoke(arguments, error));
+        }
+
+        private boolean isFailure(Throwable error) {
+            return error instanceof WebClientResponseException
+                    ? GuardedMethodInvoker.isFailure(((WebClientResponseException) error).getRawStatusCode())
+                    : GuardedMethodInvoker.isFailure(error);
+        }
+    }
+
+    /**
+     * The permit of one subscription of a reactive call or of one streamed
+     * result, released once.
+     */
+    private final class Permit extends AtomicBoolean {
+
+        private static final long serialVersionUID = 1L;
+
+        void release(boolean failure) {
+            if (compareAndSet(false, true)) {
+                GuardedMethodInvoker.this.release(failure);
+            }
+        }
+    }
+
+    /**
+     * Returns <code>false</code> for a response with a 4xx status, which is not a
+     * failure of the server.
+     */
+    private static boolean isFailure(Throwable error) {
+        return isFailure(error instanceof RestClientResponseException
+                ? ((RestClientResponseException) error).getRawStatusCode()
+                : -1);
+    }
+
+    private static boolean isFailure(int status) {
+        return status < 400 || status >= 500;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause()
+                : throwable;
+    }
+
+    private final Semaphore bulkhead;
+
+    private final RingBufferCircuitBreaker circuitBreaker;
+
+    private final FallbackMethod fallback;
+
+    private final long maxWait;
+
+    private final MethodInvoker methodInvoker;
+
+    private final String methodName;
+
+    /**
+     * Guards the reactive results, <code>null</code> if the method does not
+     * return a <code>Mono</code> or <code>Flux</code>.
+     */
+    private final ReactiveGuard reactiveGuard;
+
+    private final ReturnType returnType;
+
+    /**
+     * @param circuitBreaker The circuit breaker, may be <code>null</code>.
+     * @param bulkhead       The permits of the bulkhead, may be
+     *                       <code>null</code>.
+     * @param maxWait        The time in milliseconds a call waits for a permit
+     *                       of the bulkhead.
+     * @param fallback       The fallback method, may be <code>null</code>.
+     */
+    GuardedMethodInvoker(MethodInvoker methodInvoker, MethodMetaData methodMetaData,
+            RingBufferCircuitBreaker circuitBreaker, Semaphore bulkhead, long maxWait, FallbackMethod fallback) {
+        super();
+        this.methodInvoker = methodInvoker;
+        this.methodName = methodMetaData.getMethod().getName();
+        this.returnType = methodMetaData.getReturnType();
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.maxWait = maxWait;
+        this.fallback = fallback;
+        this.reactiveGuard = returnType.isReactive() ? new ReactiveGuard() : null;
+    }
+
+    /**
+     * Takes a permit of the bulkhead and of the circuit breaker.
+     *
+     * @return <code>null</code> if the call is permitted, otherwise the exception
+     *         which rejects it.
+     */
+    private CallRejectedException acquire() {
+        return acquire(bulkhead == null || tryAcquireBulkhead());
+    }
+
+    /**
+     * Takes a permit of the circuit breaker after the bulkhead.
+     *
+     * @param bulkheadAcquired <code>true</code> if a permit of the bulkhead was
+     *                         taken, or the method has no bulkhead.
+     * @return <code>null</code> if the call is permitted, otherwise the exception
+     *         which rejects it.
+     */
+    private CallRejectedException acquire(boolean bulkheadAcquired) {
+        if (!bulkheadAcquired) {
+            return new CallRejectedException("Bulkhead of method " + methodName + " is full");
+        }
+        if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            return new CallRejectedException("Circuit breaker of method " + methodName + " is open");
+        }
+        return null;
+    }
+
+    private Object fallback(Object[] arguments, RuntimeException error) {
+        if (fallback == null) {
+            throw error;
+        }
+        return fallback.invoke(arguments, error);
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        if (reactiveGuard != null) {
+            return reactiveGuard.invoke(arguments);
+        }
+        CallRejectedException rejection = acquire();
+        if (rejection != null) {
+            return returnType == ReturnType.CompletableFuture ? withFallback(failedFuture(rejection), arguments)
+                    : fallback(arguments, rejection);
+        }
+        Object result;
+        try {
+            result = methodInvoker.invoke(arguments);
+        } catch (RuntimeException ex) {
+            release(isFailure(ex));
+            return fallback(arguments, ex);
+        } catch (Error ex) {
+            release(true);
+            throw ex;
+        }
+        if (returnType == ReturnType.CompletableFuture) {
+            return withFallback(((CompletableFuture<?>) result)
+                    .whenComplete((value, error) -> release(error != null && isFailure(unwrap(error)))), arguments);
+        }
+        if (result != null && (returnType.isStreaming() || returnType.isRawBody())) {
+            return guard(result, new Permit());
+        }
+        release(false);
+        return result;
+    }
+
+    /**
+     * Wraps a streamed result, which holds the permit until the body is consumed
+     * or the result is closed.
+     */
+    private Object guard(Object result, Permit permit) {
+        switch (returnType) {
+        case InputStream:
+            return new GuardedInputStream((InputStream) result, permit);
+        case ReadableByteChannel:
+            return new GuardedChannel((ReadableByteChannel) result, permit);
+        case Iterator:
+            return new GuardedIterator((Iterator<?>) result, permit);
+        case Spliterator:
+            return new GuardedSpliterator((Spliterator<?>) result, permit);
+        default:
+            Stream<?> stream = (Stream<?>) result;
+            return StreamSupport.stream(new GuardedSpliterator(stream.spliterator(), permit), false).onClose(() -> {
+                try {
+                    stream.close();
+                } finally {
+                    permit.release(false);
+                }
+            });
+        }
+    }
+
+    private static CompletableFuture<?> failedFuture(Throwable error) {
+        CompletableFuture<?> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Releases the permit of the bulkhead and records the outcome in the circuit
+     * breaker.
+     */
+    private void release(boolean failure) {
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.record(failure);
+        }
+    }
+
+    private boolean tryAcquireBulkhead() {
+        if (maxWait <= 0) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<?> withFallback(CompletableFuture<?> future, Object[] arguments) {
+        if (fallback == null) {
+            return future;
+        }
+        return future.handle((value, error) -> error == null ? CompletableFuture.completedFuture((Object) value)
+                : (CompletableFuture<Object>) fallback.invoke(arguments, unwrap(error)))
+                .thenCompose(Function.identity());
+    }
+}
@@ -0,0 +1,402 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.core.task.TaskDecorator;
+
+import io.github.leoniedermeier.restclient.annotation.Hedged;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends a hedged request if a call of a {@link MethodInvoker} has not completed
+ * within the delay of the {@link Hedged} annotation of the method.
+ * <p>
+ * A blocking attempt runs as a {@link FutureTask} in the {@link Executor}, the
+ * losing attempt is cancelled, which interrupts its thread. Both attempts are
+ * decorated by the {@link TaskDecorator} in the calling thread, so it can pass
+ * on thread-bound context such as the MDC. The permit of a
+ * hedged request is only released when its call has really ended, so the
+ * permits limit the requests in flight. An attempt of a method returning a
+ * <code>CompletableFuture</code> is not cancelled, since that would not stop
+ * the request; its permit is released when the future completes.
+ * <p>
+ * The adaptive delay is the percentile of the recent latencies of the attempts,
+ * successful or not, which the invoker records itself in a
+ * {@link WindowedLatencyHistogram}. It is recomputed at most once per second,
+ * since reading the histogram sums all its buckets.
+ */
+class HedgingMethodInvoker implements MethodInvoker {
+
+    /**
+     * The state of one call of a method returning a value or a
+     * <code>CompletableFuture</code>.
+     */
+    private final class HedgedCall {
+
+        /**
+         * A blocking attempt. It ends when its task has run, or when the executor
+         * rejected it.
+         */
+        private final class Attempt extends FutureTask<Object> {
+
+            private final boolean isHedge;
+
+            private volatile long start;
+
+            /**
+             * The task passed to the executor, decorated in the calling thread.
+             */
+            private final Runnable task;
+
+            Attempt(boolean isHedge) {
+                super(blockingCall::get);
+                this.isHedge = isHedge;
+                this.task = taskDecorator != null ? taskDecorator.decorate(this) : this;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    complete(get(), null, isHedge);
+                } catch (ExecutionException ex) {
+                    complete(null, ex.getCause(), isHedge);
+                } catch (CancellationException | InterruptedException ex) {
+                    complete(null, ex, isHedge);
+                }
+            }
+
+            void rejected(RejectedExecutionException ex) {
+                setException(ex);
+                ended(isHedge, -1);
+            }
+
+            @Override
+            public void run() {
+                start = System.nanoTime();
+                try {
+                    super.run();
+                } finally {
+                    // a cancelled attempt is not a sample of the latency
+                    ended(isHedge, isCancelled() ? -1 : System.nanoTime() - start);
+                }
+            }
+        }
+
+        private final Supplier<CompletableFuture<?>> asyncCall;
+
+        private final Supplier<Object> blockingCall;
+
+        /**
+         * Set by the first successful attempt, which records the metrics and
+         * cancels the other attempt before it completes the result.
+         */
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        /**
+         * The hedged attempt once it is sent, if it is blocking.
+         */
+        private volatile Attempt hedge;
+
+        /**
+         * The blocking hedged attempt, created with the call so that it is
+         * decorated in the calling thread. <code>null</code> for a
+         * <code>CompletableFuture</code>.
+         */
+        private final Attempt hedgeAttempt;
+
+        /**
+         * The number of attempts which may still complete the call, it is
+         * <code>0</code> once all attempts failed.
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        /**
+         * The primary attempt if it is blocking.
+         */
+        private volatile Attempt primary;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private volatile ScheduledFuture<?> timer;
+
+        HedgedCall(Supplier<Object> blockingCall, Supplier<CompletableFuture<?>> asyncCall) {
+            super();
+            this.blockingCall = blockingCall;
+            this.asyncCall = asyncCall;
+            this.hedgeAttempt = blockingCall != null ? new Attempt(true) : null;
+        }
+
+        /**
+         * Starts an attempt.
+         *
+         * @return The blocking attempt, <code>null</code> for a
+         *         <code>CompletableFuture</code>, which is not cancelled.
+         */
+        private Attempt attempt(boolean isHedge) {
+            if (blockingCall != null) {
+                Attempt attempt = isHedge ? hedgeAttempt : new Attempt(false);
+                try {
+                    executor.execute(attempt.task);
+                } catch (RejectedExecutionException ex) {
+                    attempt.rejected(ex);
+                }
+                return attempt;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<?> future;
+            try {
+                future = asyncCall.get();
+            } catch (RuntimeException | Error ex) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(ex);
+            }
+            future.whenComplete((value, error) -> {
+                ended(isHedge, System.nanoTime() - start);
+                complete(value, error, isHedge);
+            });
+            return null;
+        }
+
+        private void complete(Object value, Throwable error, boolean isHedge) {
+            if (error == null) {
+                if (completed.compareAndSet(false, true)) {
+                    if (isHedge && methodMetrics != null) {
+                        methodMetrics.recordHedgeWon();
+                    }
+                    cancel(timer);
+                    cancel(isHedge ? primary : hedge);
+                    result.complete(value);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                cancel(timer);
+                result.completeExceptionally(unwrap(error));
+            }
+        }
+
+        /**
+         * Called when the call of an attempt has really ended.
+         *
+         * @param latency The latency in nanoseconds, <code>-1</code> if the
+         *                attempt did not complete on its own.
+         */
+        private void ended(boolean isHedge, long latency) {
+            if (latency >= 0) {
+                HedgingMethodInvoker.this.latency.record(latency);
+            }
+            if (isHedge) {
+                hedges.release();
+            }
+        }
+
+        private void hedge() {
+            if (result.isDone() || !hedges.tryAcquire()) {
+                return;
+            }
+            int current;
+            do {
+                current = pending.get();
+                if (current == 0) {
+                    hedges.release();
+                    return;
+                }
+            } while (!pending.compareAndSet(current, current + 1));
+            if (methodMetrics != null) {
+                methodMetrics.recordHedge();
+            }
+            Attempt attempt = attempt(true);
+            hedge = attempt;
+            if (result.isDone()) {
+                // the primary request completed while the hedged request was sent
+                cancel(attempt);
+            }
+        }
+
+        CompletableFuture<Object> start(long delay) {
+            primary = attempt(false);
+            if (!result.isDone()) {
+                timer = DelayScheduler.schedule(this::hedge, delay, TimeUnit.MILLISECONDS);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Hedges the subscription of a <code>Mono</code>. Only this class refers to
+     * Reactor, which is an optional dependency.
+     * <p>
+     * The attempts race on their values only: a failed attempt is replaced by a
+     * <code>Mono</code> which never completes while the other attempt may still
+     * succeed, the error is only passed on when no attempt is left.
+     */
+    private final class ReactiveHedge {
+
+        /**
+         * Records the latency of an attempt, successful or not, and passes its error
+         * on only if it is the last pending attempt.
+         *
+         * @param pending The number of attempts which may still complete the call.
+         */
+        private Mono<?> attempt(Mono<?> attempt, AtomicInteger pending) {
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                return attempt.doOnSuccess(value -> latency.record(System.nanoTime() - start))
+                        .onErrorResume(error -> {
+                            latency.record(System.nanoTime() - start);
+                            return pending.decrementAndGet() == 0 ? Mono.error(error) : Mono.never();
+                        });
+            });
+        }
+
+        Object invoke(Object[] arguments) {
+            Mono<?> primary = (Mono<?>) methodInvoker.invoke(arguments);
+            return Mono.defer(() -> {
+                AtomicInteger pending = new AtomicInteger(1);
+                Mono<?> hedge = Mono.delay(Duration.ofMillis(delay())).then(Mono.defer(() -> {
+                    if (!hedges.tryAcquire()) {
+                        return Mono.never();
+                    }
+                    int current;
+                    do {
+                        current = pending.get();
+                        if (current == 0) {
+                            // the primary request has already failed
+                            hedges.release();
+                            return Mono.never();
+                        }
+                    } while (!pending.compareAndSet(current, current + 1));
+                    if (methodMetrics != null) {
+                        methodMetrics.recordHedge();
+                    }
+                    // the permit is released before the signal is passed on
+                    return attempt(((Mono<?>) methodInvoker.invoke(arguments)).doOnSuccess(value -> {
+                        hedges.release();
+                        if (methodMetrics != null) {
+                            methodMetrics.recordHedgeWon();
+                        }
+                    }).doOnError(error -> hedges.release()).doOnCancel(hedges::release), pending);
+                }));
+                return Mono.first(attempt(primary, pending), hedge);
+            });
+        }
+    }
+
+    /**
+     * The minimum number of calls before the adaptive delay is used.
+     */
+    private static final long MIN_SAMPLES = 100;
+
+    private static final long UPDATE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private static void cancel(Future<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause()
+                : throwable;
+    }
+
+    private volatile long adaptiveDelay;
+
+    private final Executor executor;
+
+    private final Hedged hedged;
+
+    private final Semaphore hedges;
+
+    private final WindowedLatencyHistogram latency = new WindowedLatencyHistogram();
+
+    private final MethodInvoker methodInvoker;
+
+    private final MethodMetrics methodMetrics;
+
+    private volatile long nextUpdate = System.nanoTime();
+
+    /**
+     * Hedges the <code>Mono</code> results, <code>null</code> for other methods.
+     */
+    private final ReactiveHedge reactiveHedge;
+
+    private final ReturnType returnType;
+
+    private final TaskDecorator taskDecorator;
+
+    /**
+     * @param executor      The {@link Executor} which executes the blocking
+     *                      calls.
+     * @param hedges        The permits for the hedged requests in flight, shared
+     *                      by the methods of a client.
+     * @param methodMetrics The metrics which count the hedged requests, may be
+     *                      <code>null</code>.
+     * @param taskDecorator The decorator of the blocking attempts, may be
+     *                      <code>null</code>.
+     */
+    HedgingMethodInvoker(MethodInvoker methodInvoker, Hedged hedged, ReturnType returnType, Executor executor,
+            Semaphore hedges, MethodMetrics methodMetrics, TaskDecorator taskDecorator) {
+        super();
+        this.taskDecorator = taskDecorator;
+        this.methodInvoker = methodInvoker;
+        this.hedged = hedged;
+        this.returnType = returnType;
+        this.executor = executor;
+        this.hedges = hedges;
+        this.methodMetrics = methodMetrics;
+        this.adaptiveDelay = hedged.minDelay();
+        this.reactiveHedge = returnType == ReturnType.Mono ? new ReactiveHedge() : null;
+    }
+
+    /**
+     * Returns the delay in milliseconds after which a hedged request is sent.
+     */
+    long delay() {
+        if (hedged.delay() > 0) {
+            return hedged.delay();
+        }
+        long now = System.nanoTime();
+        if (now - nextUpdate >= 0) {
+            nextUpdate = now + UPDATE_INTERVAL;
+            adaptiveDelay = latency.getCount() < MIN_SAMPLES ? hedged.minDelay()
+                    : Math.max(hedged.minDelay(),
+                            (long) Math.ceil(latency.getPercentile(hedged.percentile(), TimeUnit.MILLISECONDS)));
+        }
+        return adaptiveDelay;
+    }
+
+    /**
+     * Returns the recent latencies of the attempts from which the adaptive delay
+     * is computed.
+     */
+    WindowedLatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        if (reactiveHedge != null) {
+            return reactiveHedge.invoke(arguments);
+        }
+        if (returnType == ReturnType.CompletableFuture) {
+            return new HedgedCall(null,
+                    Deadline.wrap(() -> (CompletableFuture<?>) methodInvoker.invoke(arguments))).start(delay());
+        }
+        return MethodInvoker.await(
+                new HedgedCall(Deadline.wrap(() -> methodInvoker.invoke(arguments)), null).start(delay()));
+    }
+}
@@ -0,0 +1,659 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * A bounded, thread safe cache for the responses of <code>GET</code> methods
+ * annotated with <code>HttpCacheable</code>, following the HTTP caching rules
+ * of a shared cache.
+ * <p>
+ * Entries are keyed by the expanded URI and the values of the request headers
+ * named in the <code>Vary</code> header of the response, so the variants of a
+ * URI are cached side by side. The raw status, headers and body are cached, the
+ * body is converted again on every hit, so callers never share a result object.
+ * <p>
+ * Responses with <code>Cache-Control: private</code> or
+ * <code>no-store</code> are not stored. The response to a request with an
+ * <code>Authorization</code> header is only stored if it is marked
+ * <code>public</code>, <code>s-maxage</code> or <code>must-revalidate</code>.
+ * A response with a malformed <code>Age</code> or <code>Cache-Control</code>
+ * number is not stored either.
+ * <p>
+ * A fresh entry (<code>max-age</code> or <code>Expires</code>) is returned
+ * without a request. A stale entry within its
+ * <code>stale-while-revalidate</code> window is returned and refreshed in the
+ * background. Other stale entries are revalidated with
+ * <code>If-None-Match</code> and <code>If-Modified-Since</code>; an entry whose
+ * <code>304 Not Modified</code> response is no longer cacheable is removed.
+ * When the total size of the entries exceeds the limit, the least recently
+ * used entries are evicted.
+ * <p>
+ * The entries are held in a {@link ConcurrentHashMap}, so a lookup does not
+ * lock: it only stamps the entry with an access sequence number. Storing and
+ * removing entries, which follow a request anyway, are serialized by a lock
+ * which also guards the size and the eviction.
+ */
+public class HttpResponseCache {
+
+    /**
+     * A cached response, immutable except for its last access.
+     */
+    private static final class Entry {
+
+        private final byte[] body;
+
+        private final CacheControl cacheControl;
+
+        private final long expiresAt;
+
+        private final HttpHeaders headers;
+
+        /**
+         * The key of the entry, see {@link HttpResponseCache#key(String, List, HttpHeaders)}.
+         */
+        private final String key;
+
+        /**
+         * The access sequence number of the last lookup, the least recently used
+         * entries are evicted first.
+         */
+        private volatile long lastAccess;
+
+        /**
+         * <code>true</code> if the <code>Age</code> or a
+         * <code>Cache-Control</code> number is malformed.
+         */
+        private final boolean malformed;
+
+        private final AtomicBoolean refreshing;
+
+        private final int size;
+
+        private final long staleWhileRevalidate;
+
+        private final int statusCode;
+
+        private final String uri;
+
+        /**
+         * The request headers named in the <code>Vary</code> header.
+         */
+        private final List<String> vary;
+
+        Entry(int statusCode, HttpHeaders headers, byte[] body, String uri, List<String> vary, String key,
+                long now, AtomicBoolean refreshing) {
+            this.statusCode = statusCode;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+            this.uri = uri;
+            this.vary = vary;
+            this.key = key;
+            this.refreshing = refreshing;
+
+            cacheControl = new CacheControl(headers.getCacheControl());
+            // a shared cache prefers s-maxage
+            long maxAge = cacheControl.sMaxAge >= 0 ? cacheControl.sMaxAge : cacheControl.maxAge;
+            if (maxAge < 0 && headers.getExpires() >= 0) {
+                long date = headers.getDate() >= 0 ? headers.getDate() : now;
+                maxAge = Math.max(0, headers.getExpires() - date) / 1000;
+            }
+            String ageValue = headers.getFirst(HttpHeaders.AGE);
+            long age = ageValue != null ? parseSeconds(ageValue.trim()) : 0;
+            this.malformed = cacheControl.malformed || age < 0;
+            if (maxAge > 0 && age > 0) {
+                maxAge = Math.max(0, maxAge - age);
+            }
+            this.expiresAt = malformed || cacheControl.noCache || maxAge <= 0 ? now : now + maxAge * 1000;
+            boolean mustRevalidate = cacheControl.mustRevalidate || cacheControl.noCache;
+            this.staleWhileRevalidate = mustRevalidate ? 0 : Math.max(0, cacheControl.staleWhileRevalidate) * 1000;
+
+            int headerSize = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    headerSize += header.getKey().length() + value.length();
+                }
+            }
+            this.size = body.length + 2 * headerSize;
+        }
+
+        boolean isFresh(long now) {
+            return now < expiresAt;
+        }
+
+        boolean isRevalidatable() {
+            return headers.getETag() != null || headers.getLastModified() >= 0;
+        }
+
+        boolean isUsableWhileRevalidating(long now) {
+            return now < expiresAt + staleWhileRevalidate;
+        }
+
+        /**
+         * Returns the entry updated with the headers of a <code>304 Not
+         * Modified</code> response.
+         */
+        Entry revalidated(HttpHeaders notModifiedHeaders, long now) {
+            HttpHeaders updated = new HttpHeaders();
+            updated.putAll(headers);
+            notModifiedHeaders.forEach((name, values) -> {
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                    updated.put(name, values);
+                }
+            });
+            return new Entry(statusCode, updated, body, uri, vary, key, now, refreshing);
+        }
+    }
+
+    /**
+     * The directives of a <code>Cache-Control</code> header relevant for the
+     * cache.
+     */
+    private static final class CacheControl {
+
+        /**
+         * <code>true</code> if a number is missing, negative or not a number.
+         */
+        private boolean malformed;
+
+        private long maxAge = -1;
+
+        private boolean mustRevalidate;
+
+        private boolean noCache;
+
+        private boolean noStore;
+
+        private boolean privateResponse;
+
+        private boolean publicResponse;
+
+        private long sMaxAge = -1;
+
+        private long staleWhileRevalidate;
+
+        CacheControl(String value) {
+            if (value == null) {
+                return;
+            }
+            for (String directive : StringUtils.tokenizeToStringArray(value, ",")) {
+                int equals = directive.indexOf('=');
+                String name = (equals >= 0 ? directive.substring(0, equals) : directive).trim().toLowerCase();
+                String argument = equals >= 0 ? StringUtils.trimTrailingCharacter(
+                        StringUtils.trimLeadingCharacter(directive.substring(equals + 1).trim(), '"'), '"') : null;
+                switch (name) {
+                case "max-age":
+                    maxAge = parseNumber(argument);
+                    break;
+                case "s-maxage":
+                    sMaxAge = parseNumber(argument);
+                    break;
+                case "private":
+                    privateResponse = true;
+                    break;
+                case "public":
+                    publicResponse = true;
+                    break;
+                case "no-cache":
+                    noCache = true;
+                    break;
+                case "no-store":
+                    noStore = true;
+                    break;
+                case "must-revalidate":
+                    mustRevalidate = true;
+                    break;
+                case "stale-while-revalidate":
+                    staleWhileRevalidate = parseNumber(argument);
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+
+        private long parseNumber(String value) {
+            long seconds = value != null ? parseSeconds(value) : -1;
+            malformed |= seconds < 0;
+            return seconds;
+        }
+    }
+
+    /**
+     * The variants of a URI.
+     */
+    private static final class Variants {
+
+        /**
+         * The number of cached variants, guarded by the write lock.
+         */
+        private int entries;
+
+        /**
+         * The request headers named in the <code>Vary</code> header of the latest
+         * response.
+         */
+        private volatile List<String> vary = Collections.emptyList();
+    }
+
+    /**
+     * Presents a cached response to a {@link ResponseExtractor}.
+     */
+    private static final class CachedClientHttpResponse implements ClientHttpResponse {
+
+        private final Entry entry;
+
+        CachedClientHttpResponse(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(entry.body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return entry.headers;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return entry.statusCode;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.valueOf(entry.statusCode);
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(entry.statusCode);
+            return status != null ? status.getReasonPhrase() : "";
+        }
+    }
+
+    private static final Log logger = LogFactory.getLog(HttpResponseCache.class);
+
+    /**
+     * The default maximum size of the cache, 10 MB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024;
+
+    /**
+     * Returns the number of seconds, <code>-1</code> if the value is not a
+     * non-negative number.
+     */
+    private static long parseSeconds(String value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            // too large
+            return Long.MAX_VALUE / 1000;
+        }
+    }
+
+    /**
+     * The access sequence, see {@link Entry#lastAccess}.
+     */
+    private final AtomicLong accesses = new AtomicLong();
+
+    private final Clock clock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final long maxSize;
+
+    private final LongAdder misses = new LongAdder();
+
+    private final Executor refreshExecutor;
+
+    private final LongAdder revalidations = new LongAdder();
+
+    /**
+     * The size of the entries, written under the {@link #writeLock}.
+     */
+    private volatile long size;
+
+    /**
+     * The variants of the URIs, added and removed under the {@link #writeLock}.
+     */
+    private final ConcurrentHashMap<String, Variants> variants = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the changes of the entries, the variants and the size.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * @param maxSize         The maximum size of the cached headers and bodies in
+     *                        bytes.
+     * @param refreshExecutor The {@link Executor} which refreshes stale entries in
+     *                        the background. A refresh which it rejects is
+     *                        skipped.
+     */
+    public HttpResponseCache(long maxSize, Executor refreshExecutor) {
+        this(maxSize, refreshExecutor, Clock.systemUTC());
+    }
+
+    HttpResponseCache(long maxSize, Executor refreshExecutor, Clock clock) {
+        super();
+        Assert.notNull(refreshExecutor, "The refresh executor must not be null");
+        this.maxSize = maxSize;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            entries.clear();
+            variants.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Executes a <code>GET</code> request through the cache.
+     *
+     * @param restTemplate     The {@link RestTemplate} which executes requests.
+     * @param uri              The URI, part of the key of the cache.
+     * @param requestEntity    The request headers.
+     * @param requestCallbacks Creates the callback which writes a request.
+     * @param extractor        Converts the cached or received response, may be
+     *                         <code>null</code>.
+     * @return The result of the extractor.
+     */
+    ResponseEntity<?> exchange(RestTemplate restTemplate, URI uri, HttpEntity<?> requestEntity,
+            Function<HttpEntity<?>, RequestCallback> requestCallbacks,
+            ResponseExtractor<? extends ResponseEntity<?>> extractor) {
+        Entry entry = get(uri.toString(), requestEntity.getHeaders());
+        long now = clock.millis();
+        if (entry != null && entry.isFresh(now)) {
+            hits.increment();
+            return extract(entry, extractor);
+        }
+        if (entry != null && entry.isUsableWhileRevalidating(now)) {
+            hits.increment();
+            refreshInBackground(restTemplate, uri, requestEntity, requestCallbacks, entry);
+            return extract(entry, extractor);
+        }
+        misses.increment();
+        return extract(fetch(restTemplate, uri, requestEntity, requestCallbacks, entry), extractor);
+    }
+
+    private ResponseEntity<?> extract(Entry entry, ResponseExtractor<? extends ResponseEntity<?>> extractor) {
+        if (extractor == null) {
+            return null;
+        }
+        try {
+            return extractor.extractData(new CachedClientHttpResponse(entry));
+        } catch (IOException ex) {
+            throw new ResourceAccessException("I/O error while reading the cached response: " + ex.getMessage(),
+                    ex);
+        }
+    }
+
+    /**
+     * Executes the request, conditional if there is a stale entry, and stores the
+     * response if it is cacheable.
+     */
+    private Entry fetch(RestTemplate restTemplate, URI uri, HttpEntity<?> requestEntity,
+            Function<HttpEntity<?>, RequestCallback> requestCallbacks, Entry stale) {
+        HttpHeaders requestHeaders = requestEntity.getHeaders();
+        HttpEntity<?> request = requestEntity;
+        if (stale != null && stale.isRevalidatable()) {
+            HttpHeaders conditionalHeaders = new HttpHeaders();
+            conditionalHeaders.putAll(requestHeaders);
+            if (stale.headers.getETag() != null) {
+                conditionalHeaders.setIfNoneMatch(stale.headers.getETag());
+            }
+            if (stale.headers.getLastModified() >= 0) {
+                conditionalHeaders.set(HttpHeaders.IF_MODIFIED_SINCE,
+                        stale.headers.getFirst(HttpHeaders.LAST_MODIFIED));
+            }
+            request = new HttpEntity<>(requestEntity.getBody(), conditionalHeaders);
+        }
+
+        ClientHttpResponse response = StreamingResponseExecutor.execute(restTemplate, uri, HttpMethod.GET,
+                requestCallbacks.apply(request));
+        try {
+            long now = clock.millis();
+            if (stale != null && response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                revalidations.increment();
+                Entry revalidated = stale.revalidated(response.getHeaders(), now);
+                // the headers of the 304 response may forbid storing it now
+                if (isCacheable(revalidated, requestHeaders)) {
+                    put(revalidated);
+                } else {
+                    remove(stale);
+                }
+                return revalidated;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            byte[] body = StreamUtils.copyToByteArray(response.getBody());
+            String uriString = uri.toString();
+            List<String> vary = headers.getVary();
+            Entry received = new Entry(response.getRawStatusCode(), headers, body, uriString, vary,
+                    key(uriString, vary, requestHeaders), now, new AtomicBoolean());
+            if (isCacheable(received, requestHeaders)) {
+                put(received);
+            } else if (stale != null) {
+                remove(stale);
+            }
+            return received;
+        } catch (IOException ex) {
+            throw new ResourceAccessException(
+                    "I/O error on GET request for \"" + uri + "\": " + ex.getMessage(), ex);
+        } finally {
+            response.close();
+        }
+    }
+
+    private Entry get(String uri, HttpHeaders requestHeaders) {
+        Variants uriVariants = variants.get(uri);
+        Entry entry = uriVariants != null ? entries.get(key(uri, uriVariants.vary, requestHeaders)) : null;
+        if (entry != null) {
+            entry.lastAccess = accesses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of stale entries which were revalidated with a
+     * <code>304 Not Modified</code> response.
+     */
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+
+    /**
+     * Returns the current size of the cached headers and bodies in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    private boolean isCacheable(Entry entry, HttpHeaders requestHeaders) {
+        if (entry.statusCode != HttpStatus.OK.value() || entry.size > maxSize || entry.malformed
+                || entry.vary.contains("*")) {
+            return false;
+        }
+        CacheControl cacheControl = entry.cacheControl;
+        if (cacheControl.noStore || cacheControl.privateResponse) {
+            return false;
+        }
+        if (requestHeaders.containsKey(HttpHeaders.AUTHORIZATION) && !cacheControl.publicResponse
+                && cacheControl.sMaxAge < 0 && !cacheControl.mustRevalidate) {
+            return false;
+        }
+        return entry.expiresAt > clock.millis() || entry.isRevalidatable();
+    }
+
+    private void put(Entry entry) {
+        entry.lastAccess = accesses.incrementAndGet();
+        synchronized (writeLock) {
+            Entry previous = entries.put(entry.key, entry);
+            Variants uriVariants = variants.computeIfAbsent(entry.uri, uri -> new Variants());
+            if (previous != null) {
+                size -= previous.size;
+            } else {
+                uriVariants.entries++;
+            }
+            // the latest response decides which request headers select a variant
+            uriVariants.vary = entry.vary;
+            size += entry.size;
+            if (size > maxSize) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the size is within the limit,
+     * must hold the {@link #writeLock}.
+     */
+    private void evict() {
+        List<Entry> eldest = new ArrayList<>(entries.values());
+        eldest.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+        for (Iterator<Entry> iterator = eldest.iterator(); size > maxSize && iterator.hasNext();) {
+            Entry evicted = iterator.next();
+            if (entries.remove(evicted.key, evicted)) {
+                removed(evicted);
+                evictions.increment();
+            }
+        }
+    }
+
+    private void refreshInBackground(RestTemplate restTemplate, URI uri, HttpEntity<?> requestEntity,
+            Function<HttpEntity<?>, RequestCallback> requestCallbacks, Entry stale) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    fetch(restTemplate, uri, requestEntity, requestCallbacks, stale);
+                } catch (RuntimeException ex) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Background refresh of " + uri + " failed", ex);
+                    }
+                } finally {
+                    stale.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // the stale entry is still usable, a later call refreshes it
+            stale.refreshing.set(false);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Background refresh of " + uri + " rejected", ex);
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        synchronized (writeLock) {
+            Entry removed = entries.remove(entry.key);
+            if (removed != null) {
+                removed(removed);
+            }
+        }
+    }
+
+    /**
+     * Updates the size and the variants after the entry was removed, must hold
+     * the {@link #writeLock}.
+     */
+    private void removed(Entry entry) {
+        size -= entry.size;
+        Variants uriVariants = variants.get(entry.uri);
+        if (uriVariants != null && --uriVariants.entries == 0) {
+            variants.remove(entry.uri);
+        }
+    }
+
+    /**
+     * Returns the key of the variant of the URI selected by the values of the
+     * request headers named in the <code>Vary</code> header.
+     */
+    private static String key(String uri, List<String> vary, HttpHeaders requestHeaders) {
+        if (vary.isEmpty()) {
+            return uri;
+        }
+        StringBuilder key = new StringBuilder(uri);
+        for (String name : vary) {
+            // header values cannot contain line breaks
+            key.append('\n').append(name.toLowerCase()).append(':').append(requestHeaders.get(name));
+        }
+        return key.toString();
+    }
+}
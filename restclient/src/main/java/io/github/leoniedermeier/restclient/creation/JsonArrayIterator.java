@@ -0,0 +1,162 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reads the elements of a JSON array from an open response one by one. Only
+ * the current element is held in memory.
+ * <p>
+ * The response is closed when the end of the array is reached, when reading
+ * fails, or when {@link #close()} is called. A caller which stops before the
+ * end must close the iterator, otherwise the connection is not released.
+ *
+ * @param <T> The type of the elements.
+ */
+final class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    /**
+     * The elements as <code>Spliterator</code>, which closes the iterator when it
+     * is closed.
+     */
+    private final class ClosingSpliterator extends Spliterators.AbstractSpliterator<T> implements Closeable {
+
+        ClosingSpliterator() {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+        }
+
+        @Override
+        public void close() {
+            JsonArrayIterator.this.close();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!hasNext()) {
+                return false;
+            }
+            action.accept(next());
+            return true;
+        }
+    }
+
+    private boolean closed;
+
+    private final JsonParser parser;
+
+    /**
+     * <code>true</code> if the parser is positioned at the start of the next
+     * element.
+     */
+    private boolean positioned;
+
+    private final ObjectReader reader;
+
+    private final ClientHttpResponse response;
+
+    /**
+     * Creates the iterator and reads the start of the array.
+     *
+     * @param response The open response.
+     * @param reader   The reader for the elements.
+     * @throws RestClientException If the body is not a JSON array.
+     */
+    JsonArrayIterator(ClientHttpResponse response, ObjectReader reader) {
+        this.response = response;
+        this.reader = reader;
+        try {
+            this.parser = reader.getFactory().createParser(response.getBody());
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                // empty body
+                close();
+            } else if (token != JsonToken.START_ARRAY) {
+                throw new RestClientException("Expected a JSON array, but was " + token);
+            }
+        } catch (IOException ex) {
+            response.close();
+            throw new ResourceAccessException("I/O error while reading the response: " + ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            response.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            parser.close();
+        } catch (IOException ex) {
+            // ignore, the response is closed anyway
+        } finally {
+            response.close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!positioned) {
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    close();
+                    return false;
+                }
+            } catch (IOException ex) {
+                throw failure(ex);
+            }
+            positioned = true;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        positioned = false;
+        try {
+            return reader.readValue(parser);
+        } catch (IOException ex) {
+            throw failure(ex);
+        }
+    }
+
+    /**
+     * Returns the remaining elements as <code>Spliterator</code>, which also
+     * implements {@link Closeable}.
+     */
+    Spliterator<T> spliterator() {
+        return new ClosingSpliterator();
+    }
+
+    private RestClientException failure(IOException ex) {
+        close();
+        if (ex instanceof JsonProcessingException) {
+            return new RestClientException("Error while extracting the response: " + ex.getMessage(), ex);
+        }
+        return new ResourceAccessException("I/O error while reading the response: " + ex.getMessage(), ex);
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with exponential buckets. Bucket
+ * <code>i</code> counts the latencies from <code>2^i</code> to
+ * <code>2^(i+1) - 1</code> nanoseconds, so the relative error of a percentile
+ * is at most a factor of two.
+ * <p>
+ * Recording a latency does not allocate once the {@link LongAdder} cells for
+ * the contending threads exist.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder count = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    private final LongAdder totalTime = new LongAdder();
+
+    LatencyHistogram() {
+        super();
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the maximum recorded latency.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the sum of the recorded latencies.
+     */
+    public double getTotalTime(TimeUnit unit) {
+        return (double) totalTime.sum() / unit.toNanos(1);
+    }
+
+    /**
+     * Returns the approximate percentile, the upper bound of the bucket which
+     * contains it.
+     *
+     * @param percentile The percentile between 0 and 1, e.g. 0.95.
+     * @param unit       The unit of the result.
+     * @return The percentile, 0 if no latency has been recorded.
+     */
+    public double getPercentile(double percentile, TimeUnit unit) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                long upperBound = i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+                return (double) Math.min(upperBound, max.get()) / unit.toNanos(1);
+            }
+        }
+        return (double) max.get() / unit.toNanos(1);
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value)].increment();
+        count.increment();
+        totalTime.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.function.Supplier;
+
+/**
+ * Creates the {@link MethodInvoker} of a method on its first invocation.
+ * <p>
+ * The invoker is created once under a lock and published with a volatile
+ * write. Later calls only read the volatile field and do not lock.
+ */
+class LazyMethodInvoker implements MethodInvoker {
+
+    private Supplier<MethodInvoker> factory;
+
+    private volatile MethodInvoker methodInvoker;
+
+    LazyMethodInvoker(Supplier<MethodInvoker> factory) {
+        super();
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the invoker, creates it if it does not exist yet.
+     *
+     * @throws IllegalStateException If the mapping of the method is invalid. The
+     *                               next call tries again.
+     */
+    MethodInvoker initialize() {
+        MethodInvoker result = methodInvoker;
+        if (result == null) {
+            synchronized (this) {
+                result = methodInvoker;
+                if (result == null) {
+                    result = factory.get();
+                    methodInvoker = result;
+                    // the factory holds the parser and all invokers, it is not needed any more
+                    factory = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        MethodInvoker result = methodInvoker;
+        if (result == null) {
+            result = initialize();
+        }
+        return result.invoke(arguments);
+    }
+}
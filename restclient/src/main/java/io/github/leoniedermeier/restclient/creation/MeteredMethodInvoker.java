@@ -0,0 +1,84 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records the {@link MethodMetrics} of the calls of a {@link MethodInvoker}.
+ * <p>
+ * A blocking call is measured without allocation. A call returning a
+ * <code>CompletableFuture</code> is measured until the future completes, a
+ * <code>Mono</code> or <code>Flux</code> from the subscription until it
+ * terminates.
+ */
+class MeteredMethodInvoker implements MethodInvoker {
+
+    /**
+     * Measures a <code>Mono</code> or <code>Flux</code>. The Reactor types are
+     * kept out of the invoker, since Reactor is optional.
+     */
+    private static final class ReactiveMeter {
+
+        static Object meter(Object publisher, MethodMetrics methodMetrics) {
+            if (publisher instanceof Mono) {
+                Mono<?> mono = (Mono<?>) publisher;
+                return Mono.defer(() -> {
+                    long start = methodMetrics.recordStart();
+                    return mono.doOnSuccess(value -> methodMetrics.recordEnd(start, null))
+                            .doOnError(error -> methodMetrics.recordEnd(start, error))
+                            .doOnCancel(() -> methodMetrics.recordEnd(start, null));
+                });
+            }
+            Flux<?> flux = (Flux<?>) publisher;
+            return Flux.defer(() -> {
+                long start = methodMetrics.recordStart();
+                return flux.doOnComplete(() -> methodMetrics.recordEnd(start, null))
+                        .doOnError(error -> methodMetrics.recordEnd(start, error))
+                        .doOnCancel(() -> methodMetrics.recordEnd(start, null));
+            });
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause()
+                : throwable;
+    }
+
+    private final MethodInvoker methodInvoker;
+
+    private final MethodMetrics methodMetrics;
+
+    private final MethodMetaData.ReturnType returnType;
+
+    MeteredMethodInvoker(MethodInvoker methodInvoker, MethodMetrics methodMetrics,
+            MethodMetaData.ReturnType returnType) {
+        super();
+        this.methodInvoker = methodInvoker;
+        this.methodMetrics = methodMetrics;
+        this.returnType = returnType;
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        if (returnType.isReactive()) {
+            return ReactiveMeter.meter(methodInvoker.invoke(arguments), methodMetrics);
+        }
+        long start = methodMetrics.recordStart();
+        Object result;
+        try {
+            result = methodInvoker.invoke(arguments);
+        } catch (RuntimeException | Error ex) {
+            methodMetrics.recordEnd(start, ex);
+            throw ex;
+        }
+        if (returnType == MethodMetaData.ReturnType.CompletableFuture) {
+            return ((CompletableFuture<?>) result)
+                    .whenComplete((value, error) -> methodMetrics.recordEnd(start, unwrap(error)));
+        }
+        methodMetrics.recordEnd(start, null);
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestClientException;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+
+/**
+ * Executes the request of one method. An instance is created once per method
+ * and is thread safe.
+ */
+interface MethodInvoker {
+
+    /**
+     * Waits for the result of a call which is executed by another thread. The
+     * exception of the call is rethrown, a checked exception is wrapped in a
+     * {@link RestClientException}.
+     */
+    static Object await(Future<?> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RestClientException("Call failed", cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for the call", ex);
+        }
+    }
+
+    /**
+     * Returns the value of the <code>RequestBody</code> argument.
+     */
+    static Object buildBody(MethodMetaData methodMetaData, Object[] arguments) {
+        ParameterDesciption[] requestBody = methodMetaData.getParameterDesciptions(Type.RequestBody);
+        return requestBody.length == 0 ? null : requestBody[0].getArgumentValue(arguments);
+    }
+
+    /**
+     * Returns new {@link HttpHeaders} with the headers of the meta data and the
+     * values of the <code>RequestHeader</code> arguments.
+     */
+    static HttpHeaders buildHttpHeaders(MethodMetaData methodMetaData, Object[] arguments) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(methodMetaData.getHeaders());
+        ParameterDesciption[] requestHeaders = methodMetaData.getParameterDesciptions(Type.RequestHeader);
+        for (int i = 0; i < requestHeaders.length; i++) {
+            Object value = requestHeaders[i].getArgumentValue(arguments);
+            String stringValue = value != null ? value.toString() : null;
+            headers.add(requestHeaders[i].getName(), stringValue);
+        }
+        return headers;
+    }
+
+    /**
+     * Invokes the method.
+     *
+     * @param arguments The arguments of the method invocation.
+     * @return The result of the method.
+     */
+    Object invoke(Object[] arguments);
+}
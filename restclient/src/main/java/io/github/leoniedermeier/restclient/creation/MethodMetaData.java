@@ -0,0 +1,522 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.github.leoniedermeier.restclient.annotation.Hedged;
+import io.github.leoniedermeier.restclient.annotation.Retry;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+
+/**
+ * The immutable meta data of a method, created by the
+ * {@link MethodMetaDataParser}.
+ */
+class MethodMetaData {
+
+    /**
+     * Collects the meta data while a method is parsed.
+     */
+    static class Builder {
+
+        private boolean cached;
+
+        private boolean coalesced;
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private Hedged hedged;
+
+        private HttpMethod httpMethod;
+
+        private final Method method;
+
+        private final List<ParameterDesciption> parameterDesciptions = new ArrayList<>();
+
+        private final List<String> pathSegments = new ArrayList<>();
+
+        private ResponseEntityExtractor responseExtractor;
+
+        private ObjectReader elementReader;
+
+        private ParameterizedTypeReference<?> responseType;
+
+        private Retry retry;
+
+        private ReturnType returnType = ReturnType.Value;
+
+        private boolean streamingRequestBody;
+
+        private MethodTimeouts timeouts = MethodTimeouts.NONE;
+
+        private String url;
+
+        Builder(Method method) {
+            super();
+            this.method = method;
+        }
+
+        public void addParameterDescription(String name, int index, boolean required, Type type) {
+            parameterDesciptions.add(new ParameterDesciption(name, index, required, type));
+        }
+
+        public MethodMetaData build() {
+            return new MethodMetaData(this);
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        public HttpMethod getHttpMethod() {
+            return httpMethod;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public ReturnType getReturnType() {
+            return returnType;
+        }
+
+        public List<ParameterDesciption> getParameterDesciptions() {
+            return parameterDesciptions;
+        }
+
+        public List<String> getPathSegments() {
+            return pathSegments;
+        }
+
+        public boolean hasStreamingRequestBody() {
+            return streamingRequestBody;
+        }
+
+        public boolean hasResponseBodySink() {
+            return parameterDesciptions.stream().anyMatch(p -> p.getType() == Type.ResponseBodySink);
+        }
+
+        public void setCached(boolean cached) {
+            this.cached = cached;
+        }
+
+        public void setCoalesced(boolean coalesced) {
+            this.coalesced = coalesced;
+        }
+
+        public void setElementReader(ObjectReader elementReader) {
+            this.elementReader = elementReader;
+        }
+
+        public void setHedged(Hedged hedged) {
+            this.hedged = hedged;
+        }
+
+        public void setHttpMethod(HttpMethod httpMethod) {
+            this.httpMethod = httpMethod;
+        }
+
+        public void setResponseExtractor(ResponseEntityExtractor responseExtractor) {
+            this.responseExtractor = responseExtractor;
+        }
+
+        public void setResponseType(ParameterizedTypeReference<?> responseType) {
+            this.responseType = responseType;
+        }
+
+        public void setRetry(Retry retry) {
+            this.retry = retry;
+        }
+
+        public void setReturnType(ReturnType returnType) {
+            this.returnType = returnType;
+        }
+
+        public void setStreamingRequestBody(boolean streamingRequestBody) {
+            this.streamingRequestBody = streamingRequestBody;
+        }
+
+        public void setTimeouts(MethodTimeouts timeouts) {
+            this.timeouts = timeouts;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+    }
+
+    static class ParameterDesciption {
+        enum Type {
+            PathVariable, RequestBody, RequestHeader, RequestParam, RequestPart, ResponseBodySink, Deadline
+        }
+
+        private final int index;
+        private final String name;
+        private final Type type;
+        private final boolean required;
+
+        /**
+         * @param name  The name of the parameter.
+         * @param index The index of the parameter
+         * @param type  The type of the parameter.
+         */
+        public ParameterDesciption(String name, int index, boolean required, Type type) {
+            super();
+
+            this.name = name;
+            this.index = index;
+            this.required = required;
+            this.type = type;
+        }
+
+        /**
+         * Returns the value of the parameter from the arguments of a method
+         * invocation.
+         *
+         * @throws IllegalArgumentException If the parameter is required and the
+         *                                  value is <code>null</code>.
+         */
+        public Object getArgumentValue(Object[] arguments) {
+            Object value = arguments[index];
+            if (value == null && required) {
+                throw new IllegalArgumentException("Required " + type + " parameter '" + name + "' is null");
+            }
+            return value;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+    }
+
+    /**
+     * How the response body is returned by the method.
+     */
+    enum ReturnType {
+        /**
+         * The response body is returned after the blocking call.
+         */
+        Value,
+        /**
+         * The call is executed asynchronously, the method returns a
+         * <code>CompletableFuture</code> of the response body.
+         */
+        CompletableFuture,
+        /**
+         * The call is executed non blocking by a <code>WebClient</code>, the method
+         * returns a <code>Mono</code> of the response body.
+         */
+        Mono,
+        /**
+         * The call is executed non blocking by a <code>WebClient</code>, the method
+         * returns a <code>Flux</code> of the elements of the response body.
+         */
+        Flux,
+        /**
+         * The method returns a <code>java.util.stream.Stream</code> of the elements
+         * of a JSON array, which are read while the stream is consumed.
+         */
+        Stream,
+        /**
+         * The method returns a <code>java.util.Iterator</code> of the elements of a
+         * JSON array, which are read while the iterator is consumed. The response
+         * is released after the last element; the iterator also implements
+         * <code>java.io.Closeable</code>, a caller which stops earlier must close
+         * it.
+         */
+        Iterator,
+        /**
+         * The method returns a <code>java.util.Spliterator</code> of the elements of
+         * a JSON array, which are read while the spliterator is consumed. The
+         * response is released after the last element; the spliterator also
+         * implements <code>java.io.Closeable</code>, a caller which stops earlier
+         * must close it.
+         */
+        Spliterator,
+        /**
+         * The method returns the raw response body as
+         * <code>java.io.InputStream</code>, which is closed by the caller.
+         */
+        InputStream,
+        /**
+         * The method returns the raw response body as
+         * <code>java.nio.channels.ReadableByteChannel</code>, which is closed by
+         * the caller.
+         */
+        ReadableByteChannel;
+
+        /**
+         * Returns <code>true</code> if the call is executed by a
+         * <code>WebClient</code>.
+         */
+        boolean isReactive() {
+            return this == Mono || this == Flux;
+        }
+
+        /**
+         * Returns <code>true</code> if the elements of the response body are read
+         * incrementally from the open response.
+         */
+        boolean isStreaming() {
+            return this == Stream || this == Iterator || this == Spliterator;
+        }
+
+        /**
+         * Returns <code>true</code> if the open response body is returned without
+         * message conversion.
+         */
+        boolean isRawBody() {
+            return this == InputStream || this == ReadableByteChannel;
+        }
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final boolean cached;
+
+    private final boolean coalesced;
+
+    private final ObjectReader elementReader;
+
+    private final HttpHeaders headers;
+
+    private final Hedged hedged;
+
+    private final HttpMethod httpMethod;
+    private final Method method;
+    private final ParameterDesciption[] parameterDesciptions;
+    private final ParameterDesciption[][] parameterDesciptionsByType;
+
+    private final List<String> pathSegments;
+
+    private final ResponseEntityExtractor responseExtractor;
+
+    private final ParameterizedTypeReference<?> responseType;
+
+    private final Retry retry;
+
+    private final ReturnType returnType;
+
+    private final boolean streamingRequestBody;
+
+    private final MethodTimeouts timeouts;
+
+    private final CompiledUriTemplate uriTemplate;
+
+    private final String url;
+
+    private MethodMetaData(Builder builder) {
+        super();
+        this.cached = builder.cached;
+        this.coalesced = builder.coalesced;
+        this.elementReader = builder.elementReader;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(builder.headers);
+        this.hedged = builder.hedged;
+        this.httpMethod = builder.httpMethod;
+        this.method = builder.method;
+        this.parameterDesciptions = builder.parameterDesciptions.toArray(new ParameterDesciption[0]);
+        this.pathSegments = Collections.unmodifiableList(new ArrayList<>(builder.pathSegments));
+        this.responseExtractor = builder.responseExtractor;
+        this.responseType = builder.responseType;
+        this.retry = builder.retry;
+        this.returnType = builder.returnType;
+        this.streamingRequestBody = builder.streamingRequestBody;
+        this.timeouts = builder.timeouts;
+        this.url = builder.url;
+
+        int[] counts = new int[TYPES.length];
+        for (ParameterDesciption parameterDesciption : parameterDesciptions) {
+            counts[parameterDesciption.getType().ordinal()]++;
+        }
+        this.parameterDesciptionsByType = new ParameterDesciption[TYPES.length][];
+        for (int i = 0; i < TYPES.length; i++) {
+            parameterDesciptionsByType[i] = new ParameterDesciption[counts[i]];
+            counts[i] = 0;
+        }
+        for (ParameterDesciption parameterDesciption : parameterDesciptions) {
+            int type = parameterDesciption.getType().ordinal();
+            parameterDesciptionsByType[type][counts[type]++] = parameterDesciption;
+        }
+
+        this.uriTemplate = CompiledUriTemplate.compile(url, pathSegments,
+                getParameterDesciptions(Type.PathVariable), getParameterDesciptions(Type.RequestParam));
+    }
+
+    /**
+     * Returns the name and the simple parameter type names of the method, e.g.
+     * <code>get(String,int)</code>. Unlike the name it identifies an overloaded
+     * method of a <code>RestClient</code> interface.
+     */
+    static String signature(Method method) {
+        StringJoiner signature = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            signature.add(parameterType.getSimpleName());
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Returns the reader for the elements of a streamed JSON array.
+     * 
+     * @return The reader, or <code>null</code> if the {@link ReturnType} is not
+     *         streaming.
+     */
+    public ObjectReader getElementReader() {
+        return elementReader;
+    }
+
+    /**
+     * Returns the read only {@link HttpHeaders}.
+     * 
+     * @return The {@link HttpHeaders}, never <code>null</code>.
+     */
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the {@link Hedged} annotation which applies to the method.
+     * 
+     * @return The annotation, <code>null</code> if the calls are not hedged.
+     */
+    public Hedged getHedged() {
+        return hedged;
+    }
+
+    public HttpMethod getHttpMethod() {
+        return httpMethod;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the {@link ParameterDesciption}s in the order of the parameters. The
+     * returned array is shared and must not be modified.
+     */
+    public ParameterDesciption[] getParameterDesciptions() {
+        return parameterDesciptions;
+    }
+
+    /**
+     * Returns the {@link ParameterDesciption}s of the given {@link Type} in the
+     * order of the parameters. The returned array is shared and must not be
+     * modified.
+     * 
+     * @return The {@link ParameterDesciption}s, never <code>null</code>.
+     */
+    public ParameterDesciption[] getParameterDesciptions(Type type) {
+        return parameterDesciptionsByType[type.ordinal()];
+    }
+
+    /**
+     * Returns an unmodifiable {@link List} of the path segments.
+     */
+    public List<String> getPathSegments() {
+        return pathSegments;
+    }
+
+    /**
+     * Returns the extractor which reads the response with the message converters
+     * selected for the response type at parse time.
+     * 
+     * @return The extractor, or <code>null</code> if the message converters were
+     *         not known at parse time or the method returns <code>void</code>.
+     */
+    public ResponseEntityExtractor getResponseExtractor() {
+        return responseExtractor;
+    }
+
+    /**
+     * Returns the type of the response body. For wrapping return types like
+     * <code>CompletableFuture</code> this is the type of the payload.
+     */
+    public ParameterizedTypeReference<?> getResponseType() {
+        return responseType;
+    }
+
+    /**
+     * Returns the {@link Retry} annotation which applies to the method.
+     * 
+     * @return The annotation, <code>null</code> if the calls are not retried.
+     */
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public ReturnType getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * Returns the timeouts of the method.
+     * 
+     * @return The timeouts, {@link MethodTimeouts#NONE} if the method has none.
+     */
+    MethodTimeouts getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Returns <code>true</code> if the response type is <code>void</code> or
+     * {@link Void}.
+     */
+    public boolean hasNoResponse() {
+        java.lang.reflect.Type type = responseType.getType();
+        return type == void.class || type == Void.class;
+    }
+
+    /**
+     * Returns <code>true</code> if the request body is a <code>Path</code> or
+     * <code>InputStream</code>, or consists of <code>RequestPart</code>
+     * arguments, and is written without message conversion.
+     */
+    public boolean isStreamingRequestBody() {
+        return streamingRequestBody;
+    }
+
+    /**
+     * Returns <code>true</code> if the responses of the method are cached in the
+     * <code>HttpResponseCache</code>.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Returns <code>true</code> if concurrent calls with the same URI and headers
+     * share one request.
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    public CompiledUriTemplate getUriTemplate() {
+        return uriTemplate;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
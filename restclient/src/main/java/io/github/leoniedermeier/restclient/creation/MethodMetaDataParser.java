@@ -0,0 +1,662 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static feign.Util.checkState;
+import static feign.Util.emptyToNull;
+import static org.springframework.core.annotation.AnnotatedElementUtils.findMergedAnnotation;
+import static org.springframework.util.StringUtils.hasText;
+import static org.springframework.util.StringUtils.split;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.leoniedermeier.restclient.annotation.CoalesceRequests;
+import io.github.leoniedermeier.restclient.annotation.Hedged;
+import io.github.leoniedermeier.restclient.annotation.HttpCacheable;
+import io.github.leoniedermeier.restclient.annotation.ResponseBodySink;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.annotation.Retry;
+import io.github.leoniedermeier.restclient.annotation.Timeout;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+
+public class MethodMetaDataParser {
+
+    /**
+     * The annotations of a <code>RestClient</code> interface, which are the same
+     * for all its methods.
+     */
+    private static final class InterfaceAnnotations {
+
+        private final boolean coalesceRequests;
+
+        private final Hedged hedged;
+
+        private final boolean httpCacheable;
+
+        private final RequestMapping requestMapping;
+
+        private final RestClient restClient;
+
+        private final Retry retry;
+
+        private final Timeout timeout;
+
+        InterfaceAnnotations(Class<?> clz) {
+            super();
+            this.requestMapping = findMergedAnnotation(clz, RequestMapping.class);
+            this.restClient = findMergedAnnotation(clz, RestClient.class);
+            this.httpCacheable = AnnotatedElementUtils.hasAnnotation(clz, HttpCacheable.class);
+            this.coalesceRequests = AnnotatedElementUtils.hasAnnotation(clz, CoalesceRequests.class);
+            this.retry = findMergedAnnotation(clz, Retry.class);
+            this.hedged = findMergedAnnotation(clz, Hedged.class);
+            this.timeout = findMergedAnnotation(clz, Timeout.class);
+        }
+
+        <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+            return annotationType.cast(annotationType == Retry.class ? retry
+                    : annotationType == Hedged.class ? hedged : annotationType == Timeout.class ? timeout : null);
+        }
+
+        boolean hasAnnotation(Class<? extends Annotation> annotationType) {
+            return annotationType == HttpCacheable.class ? httpCacheable
+                    : annotationType == CoalesceRequests.class && coalesceRequests;
+        }
+    }
+
+    /**
+     * The annotations of the interfaces, shared by all parsers. The entries are
+     * weakly referenced, so the cache does not prevent unloading the classes; an
+     * entry cleared by the garbage collector is computed again.
+     */
+    private static final Map<Class<?>, InterfaceAnnotations> INTERFACE_ANNOTATIONS = new ConcurrentReferenceHashMap<>(
+            16, ReferenceType.WEAK);
+
+    /**
+     * Methods of an interface with fewer methods are parsed in the calling
+     * thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    /**
+     * Shared by all parsers: the discoverer caches the parameter names read from
+     * the class files per class and is thread safe.
+     */
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    /**
+     * Reactor and Spring WebFlux are optional dependencies. Without them no method
+     * has a reactive return type, so the invokers never load the Reactor types.
+     * The types are compared by name for the same reason.
+     */
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono",
+            MethodMetaDataParser.class.getClassLoader());
+
+    private static void checkAtMostOne(Method method, Object[] values, String fieldName) {
+        checkState(values != null && (values.length == 0 || values.length == 1),
+                "Method %s can only contain at most 1 %s field. Found: %s", method.getName(), fieldName,
+                values == null ? null : Arrays.asList(values));
+    }
+
+    private static void checkOne(Method method, Object[] values, String fieldName) {
+        checkState(values != null && values.length == 1, "Method %s can only contain 1 %s field. Found: %s",
+                method.getName(), fieldName, values == null ? null : Arrays.asList(values));
+    }
+
+    private static String defaultIfEmpty(String a, String defaultString) {
+        return hasText(a) ? a : defaultString;
+    }
+
+    private static void processHttpMethod(MethodMetaData.Builder methodMetaData, RequestMapping requestMapping) {
+        RequestMethod[] methods = requestMapping.method();
+        if (methods.length == 0) {
+            methods = new RequestMethod[] { RequestMethod.GET };
+        }
+        checkOne(methodMetaData.getMethod(), methods, "method");
+        methodMetaData.setHttpMethod(HttpMethod.resolve(methods[0].name()));
+    }
+
+    private final Environment environment;
+
+    private final List<HttpMessageConverter<?>> messageConverters;
+
+    public MethodMetaDataParser(Environment environment) {
+        this(environment, Collections.emptyList());
+    }
+
+    /**
+     * @param environment       The {@link Environment} for resolving
+     *                          placeholders.
+     * @param messageConverters The message converters of the
+     *                          <code>RestTemplate</code> which executes the
+     *                          requests. The converters for the response type
+     *                          and the <code>Accept</code> header are selected at
+     *                          parse time. If empty, the selection is left to the
+     *                          <code>RestOperations</code> at call time.
+     */
+    public MethodMetaDataParser(Environment environment, List<HttpMessageConverter<?>> messageConverters) {
+        super();
+        this.environment = environment;
+        this.messageConverters = messageConverters;
+    }
+
+    /**
+     * Parses the methods. The methods of large interfaces are parsed in parallel
+     * in the common {@link ForkJoinPool}.
+     *
+     * @param methods The methods to parse.
+     * @return The {@link MethodMetaData} of the methods in the same order.
+     */
+    public List<MethodMetaData> parse(List<Method> methods) {
+        Stream<Method> stream = methods.size() < PARALLEL_THRESHOLD ? methods.stream() : methods.parallelStream();
+        return stream.map(this::parse).collect(Collectors.toList());
+    }
+
+    public MethodMetaData parse(Method method) {
+        MethodMetaData.Builder methodMetaData = new MethodMetaData.Builder(method);
+
+        processAnnotationOnClass(methodMetaData, methodMetaData.getMethod().getDeclaringClass());
+
+        processMethodRequestMappingAnnotation(methodMetaData);
+
+        processMethodParametersAnnotations(methodMetaData);
+
+        return complete(methodMetaData);
+    }
+
+    /**
+     * Creates the {@link MethodMetaData} from the mapping which the annotation
+     * processor determined at compile time. Only the placeholders, the response
+     * type and the annotations of the interface are processed at runtime.
+     *
+     * @param method          The method.
+     * @param generatedMethod The generated mapping of the method.
+     */
+    public MethodMetaData parse(Method method, GeneratedMethodMetaData generatedMethod) {
+        MethodMetaData.Builder methodMetaData = new MethodMetaData.Builder(method);
+
+        processAnnotationOnClass(methodMetaData, method.getDeclaringClass());
+
+        methodMetaData.setHttpMethod(HttpMethod.resolve(generatedMethod.getHttpMethod()));
+        if (generatedMethod.getPath() != null) {
+            methodMetaData.getPathSegments().add(resolve(generatedMethod.getPath()));
+        }
+        processHeaders(methodMetaData, generatedMethod.getHeaders());
+        for (GeneratedMethodMetaData.Parameter parameter : generatedMethod.getParameters()) {
+            methodMetaData.addParameterDescription(parameter.getName(), parameter.getIndex(), parameter.isRequired(),
+                    Type.valueOf(parameter.getType()));
+        }
+
+        return complete(methodMetaData);
+    }
+
+    /**
+     * Processes everything which does not depend on how the mapping was
+     * determined: the parameter types, the response type, and the caching,
+     * coalescing, retry, hedging, deadline and timeout settings.
+     */
+    private MethodMetaData complete(MethodMetaData.Builder methodMetaData) {
+        processParameterTypes(methodMetaData);
+
+        processResponseType(methodMetaData);
+
+        methodMetaData.setCached(isEnabledForGet(methodMetaData, HttpCacheable.class));
+        methodMetaData.setCoalesced(isEnabledForGet(methodMetaData, CoalesceRequests.class));
+        methodMetaData.setRetry(findRetry(methodMetaData));
+        methodMetaData.setHedged(findForIdempotent(methodMetaData, Hedged.class, true));
+        processDeadlineParameter(methodMetaData);
+        methodMetaData.setTimeouts(findTimeouts(methodMetaData));
+        return methodMetaData.build();
+    }
+
+    private void processAnnotationOnClass(MethodMetaData.Builder methodMetaData, Class<?> clz) {
+        if (clz.getInterfaces().length == 0) {
+            InterfaceAnnotations interfaceAnnotations = INTERFACE_ANNOTATIONS.computeIfAbsent(clz,
+                    InterfaceAnnotations::new);
+            RequestMapping requestMapping = interfaceAnnotations.requestMapping;
+            if (requestMapping != null && requestMapping.value().length > 0) {
+                // TODO: check At most one
+                String pathValue = emptyToNull(requestMapping.value()[0]);
+                pathValue = resolve(pathValue);
+                methodMetaData.getPathSegments().add(0, pathValue);
+            }
+            RestClient restClient = interfaceAnnotations.restClient;
+            Objects.requireNonNull(restClient, "No RestClient annotation on interface " + clz);
+            Assert.hasText(restClient.url(), "No url in the RestClient annotaion on interface " + clz);
+            String url = resolve(restClient.url());
+            methodMetaData.setUrl(url);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the annotation enables the feature for the
+     * method. The annotation on the method requires a <code>GET</code> method
+     * returning the response body, the annotation on the interface only applies
+     * to such methods.
+     */
+    private static boolean isEnabledForGet(MethodMetaData.Builder methodMetaData,
+            Class<? extends Annotation> annotationType) {
+        Method method = methodMetaData.getMethod();
+        ReturnType returnType = methodMetaData.getReturnType();
+        boolean applicable = methodMetaData.getHttpMethod() == HttpMethod.GET
+                && (returnType == ReturnType.Value || returnType == ReturnType.CompletableFuture)
+                && !methodMetaData.hasResponseBodySink();
+        if (AnnotatedElementUtils.hasAnnotation(method, annotationType)) {
+            checkState(applicable, "%s method %s must be a GET method returning the response body",
+                    annotationType.getSimpleName(), method);
+            return true;
+        }
+        return applicable && INTERFACE_ANNOTATIONS
+                .computeIfAbsent(method.getDeclaringClass(), InterfaceAnnotations::new).hasAnnotation(annotationType);
+    }
+
+    /**
+     * Returns the annotation of the method, or of the interface if the method is
+     * idempotent. The annotation requires a method which returns the response
+     * body, a <code>CompletableFuture</code> or a <code>Mono</code> and does not
+     * stream the request or response body.
+     *
+     * @param idempotentOnly If <code>true</code>, the annotation on a method also
+     *                       requires an idempotent method.
+     */
+    private static <A extends Annotation> A findForIdempotent(MethodMetaData.Builder methodMetaData,
+            Class<A> annotationType, boolean idempotentOnly) {
+        Method method = methodMetaData.getMethod();
+        ReturnType returnType = methodMetaData.getReturnType();
+        boolean supported = (returnType == ReturnType.Value || returnType == ReturnType.CompletableFuture
+                || returnType == ReturnType.Mono) && !methodMetaData.hasStreamingRequestBody()
+                && !methodMetaData.hasResponseBodySink();
+        HttpMethod httpMethod = methodMetaData.getHttpMethod();
+        boolean idempotent = httpMethod == HttpMethod.GET || httpMethod == HttpMethod.HEAD
+                || httpMethod == HttpMethod.PUT || httpMethod == HttpMethod.DELETE;
+        A annotation = findMergedAnnotation(method, annotationType);
+        if (annotation != null) {
+            checkState(supported, "%s method %s must return the response body, a CompletableFuture or a Mono "
+                    + "and must not stream the request or response body", annotationType.getSimpleName(), method);
+            checkState(idempotent || !idempotentOnly, "%s method %s must be a GET, HEAD, PUT or DELETE method",
+                    annotationType.getSimpleName(), method);
+            return annotation;
+        }
+        return supported && idempotent ? INTERFACE_ANNOTATIONS
+                .computeIfAbsent(method.getDeclaringClass(), InterfaceAnnotations::new).getAnnotation(annotationType)
+                : null;
+    }
+
+    private static Retry findRetry(MethodMetaData.Builder methodMetaData) {
+        Retry retry = findForIdempotent(methodMetaData, Retry.class, false);
+        checkState(retry == null || retry.maxAttempts() > 0, "Retry of method %s must allow at least one attempt",
+                methodMetaData.getMethod());
+        return retry;
+    }
+
+    /**
+     * Resolves the timeouts of the method from its {@link Timeout} annotation and
+     * the one of the interface, an attribute which is not set on the method is
+     * taken from the interface. The properties
+     * <code>restclient.&lt;name&gt;.methods.&lt;method&gt;.*</code> override both,
+     * see {@link #timeoutProperty(String, Method, String, int)}.
+     */
+    private MethodTimeouts findTimeouts(MethodMetaData.Builder methodMetaData) {
+        Method method = methodMetaData.getMethod();
+        InterfaceAnnotations interfaceAnnotations = INTERFACE_ANNOTATIONS.computeIfAbsent(method.getDeclaringClass(),
+                InterfaceAnnotations::new);
+        Timeout timeout = findMergedAnnotation(method, Timeout.class);
+        Timeout interfaceTimeout = interfaceAnnotations.getAnnotation(Timeout.class);
+        int connectTimeout = timeout != null ? timeout.connect() : -1;
+        int readTimeout = timeout != null ? timeout.read() : -1;
+        String deadlineHeader = timeout != null ? timeout.deadlineHeader() : "";
+        if (interfaceTimeout != null) {
+            connectTimeout = connectTimeout < 0 ? interfaceTimeout.connect() : connectTimeout;
+            readTimeout = readTimeout < 0 ? interfaceTimeout.read() : readTimeout;
+            deadlineHeader = hasText(deadlineHeader) ? deadlineHeader : interfaceTimeout.deadlineHeader();
+        }
+        RestClient restClient = interfaceAnnotations.restClient;
+        String name = restClient == null ? null : hasText(restClient.name()) ? restClient.name() : restClient.value();
+        if (hasText(name)) {
+            String prefix = "restclient." + name + ".methods.";
+            connectTimeout = timeoutProperty(prefix, method, "connect-timeout", connectTimeout);
+            readTimeout = timeoutProperty(prefix, method, "read-timeout", readTimeout);
+        }
+        if (connectTimeout < 0 && readTimeout < 0 && !hasText(deadlineHeader)) {
+            return MethodTimeouts.NONE;
+        }
+        return new MethodTimeouts(connectTimeout, readTimeout,
+                hasText(deadlineHeader) ? resolve(deadlineHeader) : null);
+    }
+
+    /**
+     * Returns a timeout property of a method. The key with the signature of the
+     * method, e.g. <code>get(String,int)</code>, takes precedence over the key
+     * with its name, which applies to all overloaded methods of the name.
+     */
+    private int timeoutProperty(String prefix, Method method, String key, int defaultValue) {
+        Integer timeout = environment.getProperty(prefix + MethodMetaData.signature(method) + "." + key,
+                Integer.class);
+        return timeout != null ? timeout
+                : environment.getProperty(prefix + method.getName() + "." + key, Integer.class, defaultValue);
+    }
+
+    /**
+     * Adds the parameter of type {@link Deadline}, which needs no annotation.
+     */
+    private static void processDeadlineParameter(MethodMetaData.Builder methodMetaData) {
+        Class<?>[] parameterTypes = methodMetaData.getMethod().getParameterTypes();
+        boolean found = false;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] == Deadline.class) {
+                checkState(!found, "Method %s has more than one Deadline parameter!", methodMetaData.getMethod());
+                found = true;
+                methodMetaData.addParameterDescription("__deadline", i, false, Type.Deadline);
+            }
+        }
+    }
+
+    private void processHeaders(MethodMetaData.Builder methodMetaData, String[] headers) {
+        for (String header : headers) {
+            if (header.contains("!=")) {
+                continue;
+            }
+            String[] strings = split(header, "=");
+            if (strings != null) {
+                methodMetaData.getHeaders().add(resolve(strings[0]), resolve(strings[1].trim()));
+            }
+        }
+    }
+
+    private void processMethodParametersAnnotations(MethodMetaData.Builder methodMetaData) {
+        boolean hasRequestBody = false;
+        int parameters = methodMetaData.getMethod().getParameterCount();
+        for (int parameterIndex = 0; parameterIndex < parameters; parameterIndex++) {
+            MethodParameter methodParameter = SynthesizingMethodParameter.forExecutable(methodMetaData.getMethod(),
+                    parameterIndex);
+
+            methodParameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+            String parameterName = methodParameter.getParameterName();
+
+            PathVariable pathVariable = methodParameter.getParameterAnnotation(PathVariable.class);
+            if (pathVariable != null) {
+                String name = defaultIfEmpty(pathVariable.value(), parameterName);
+                methodMetaData.addParameterDescription(name, parameterIndex, pathVariable.required(),
+                        Type.PathVariable);
+            }
+
+            RequestParam requestParam = methodParameter.getParameterAnnotation(RequestParam.class);
+            if (requestParam != null) {
+                String name = defaultIfEmpty(requestParam.value(), parameterName);
+                methodMetaData.addParameterDescription(name, parameterIndex, requestParam.required(),
+                        Type.RequestParam);
+            }
+
+            RequestHeader requestHeader = methodParameter.getParameterAnnotation(RequestHeader.class);
+            if (requestHeader != null) {
+                String name = defaultIfEmpty(requestHeader.value(), parameterName);
+                methodMetaData.addParameterDescription(name, parameterIndex, requestHeader.required(),
+                        Type.RequestHeader);
+            }
+
+            RequestBody requestBody = methodParameter.getParameterAnnotation(RequestBody.class);
+            if (requestBody != null) {
+                if (hasRequestBody) {
+                    throw new IllegalStateException(
+                            "Method " + methodMetaData.getMethod() + "has more than one RequestBody annotation!");
+                }
+                hasRequestBody = true;
+                methodMetaData.addParameterDescription("__requestBody", parameterIndex, requestBody.required(),
+                        Type.RequestBody);
+            }
+
+            RequestPart requestPart = methodParameter.getParameterAnnotation(RequestPart.class);
+            if (requestPart != null) {
+                String name = defaultIfEmpty(requestPart.name(), parameterName);
+                methodMetaData.addParameterDescription(name, parameterIndex, requestPart.required(),
+                        Type.RequestPart);
+            }
+
+            if (methodParameter.hasParameterAnnotation(ResponseBodySink.class)) {
+                methodMetaData.addParameterDescription("__responseBodySink", parameterIndex, true,
+                        Type.ResponseBodySink);
+            }
+        }
+    }
+
+    /**
+     * Checks the parameters against their types, and streams the request body if
+     * it is a {@link Path}, an {@link InputStream} or consists of parts.
+     */
+    private static void processParameterTypes(MethodMetaData.Builder methodMetaData) {
+        Class<?>[] parameterTypes = methodMetaData.getMethod().getParameterTypes();
+        boolean hasRequestBody = false;
+        boolean hasRequestPart = false;
+        boolean hasResponseBodySink = false;
+        for (ParameterDesciption parameter : methodMetaData.getParameterDesciptions()) {
+            Class<?> parameterType = parameterTypes[parameter.getIndex()];
+            switch (parameter.getType()) {
+            case RequestBody:
+                hasRequestBody = true;
+                if (Path.class.isAssignableFrom(parameterType) || InputStream.class.isAssignableFrom(parameterType)) {
+                    methodMetaData.setStreamingRequestBody(true);
+                }
+                break;
+            case RequestPart:
+                hasRequestPart = true;
+                methodMetaData.setStreamingRequestBody(true);
+                break;
+            case ResponseBodySink:
+                checkState(!hasResponseBodySink, "Method %s has more than one ResponseBodySink annotation!",
+                        methodMetaData.getMethod());
+                checkState(Path.class.isAssignableFrom(parameterType)
+                        || WritableByteChannel.class.isAssignableFrom(parameterType),
+                        "ResponseBodySink parameter of method %s must be a Path or WritableByteChannel, but is %s",
+                        methodMetaData.getMethod(), parameterType);
+                hasResponseBodySink = true;
+                break;
+            default:
+                break;
+            }
+        }
+        checkState(!(hasRequestBody && hasRequestPart), "Method %s has a RequestBody and RequestPart parameters!",
+                methodMetaData.getMethod());
+    }
+
+    private void processMethodRequestMappingAnnotation(MethodMetaData.Builder methodMetaData) {
+        RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(methodMetaData.getMethod(),
+                RequestMapping.class);
+
+        // produces / consumes are determined by the configures MessageConverters
+        // org.springframework.web.client.RestTemplate.AcceptHeaderRequestCallback.doWithRequest(ClientHttpRequest)
+        processHttpMethod(methodMetaData, requestMapping);
+        processPath(methodMetaData, requestMapping);
+        processHeaders(methodMetaData, requestMapping.headers());
+        // todo: params
+    }
+
+    private void processPath(MethodMetaData.Builder methodMetaData, RequestMapping requestMapping) {
+
+        checkAtMostOne(methodMetaData.getMethod(), requestMapping.value(), "value");
+        if (requestMapping.value().length < 1) {
+            return;
+        }
+        String pathValue = emptyToNull(requestMapping.value()[0]);
+        if (pathValue != null) {
+            pathValue = resolve(pathValue);
+            // Append path from @RequestMapping if value is present on method
+            methodMetaData.getPathSegments().add(pathValue);
+        }
+    }
+
+    /**
+     * Determines the {@link ReturnType} of the method.
+     * 
+     * @return The type of the response body, for wrapping return types the type
+     *         of the payload.
+     */
+    private static java.lang.reflect.Type processReturnType(MethodMetaData.Builder methodMetaData) {
+        ResolvableType returnType = ResolvableType.forMethodReturnType(methodMetaData.getMethod());
+        Class<?> returnClass = returnType.resolve();
+        String returnClassName = REACTOR_PRESENT && returnClass != null ? returnClass.getName() : null;
+        if (CompletableFuture.class == returnClass) {
+            methodMetaData.setReturnType(ReturnType.CompletableFuture);
+        } else if ("reactor.core.publisher.Mono".equals(returnClassName)) {
+            methodMetaData.setReturnType(ReturnType.Mono);
+        } else if ("reactor.core.publisher.Flux".equals(returnClassName)) {
+            methodMetaData.setReturnType(ReturnType.Flux);
+        } else if (Stream.class == returnClass) {
+            methodMetaData.setReturnType(ReturnType.Stream);
+        } else if (Iterator.class == returnClass) {
+            methodMetaData.setReturnType(ReturnType.Iterator);
+        } else if (Spliterator.class == returnClass) {
+            methodMetaData.setReturnType(ReturnType.Spliterator);
+        } else if (InputStream.class == returnClass) {
+            methodMetaData.setReturnType(ReturnType.InputStream);
+            return returnType.getType();
+        } else if (ReadableByteChannel.class == returnClass) {
+            methodMetaData.setReturnType(ReturnType.ReadableByteChannel);
+            return returnType.getType();
+        } else {
+            return returnType.getType();
+        }
+        ResolvableType payloadType = returnType.getGeneric(0);
+        return payloadType.resolve() != null ? payloadType.getType() : Object.class;
+    }
+
+    /**
+     * Resolves the response type once. If the message converters are known, the
+     * converters which can read the response type are selected and the
+     * <code>Accept</code> header is computed like
+     * <code>RestTemplate.AcceptHeaderRequestCallback</code> does it on every
+     * call.
+     */
+    private void processResponseType(MethodMetaData.Builder methodMetaData) {
+        java.lang.reflect.Type responseType = processReturnType(methodMetaData);
+        methodMetaData.setResponseType(ParameterizedTypeReference.forType(responseType));
+        if (methodMetaData.getReturnType().isStreaming()) {
+            processStreamingResponse(methodMetaData, responseType);
+            return;
+        }
+        if (methodMetaData.getReturnType().isRawBody() || methodMetaData.hasResponseBodySink()) {
+            processRawResponse(methodMetaData, responseType);
+            return;
+        }
+        if (messageConverters.isEmpty() || responseType == void.class || responseType == Void.class
+                || methodMetaData.getReturnType().isReactive()) {
+            return;
+        }
+
+        Class<?> responseClass = responseType instanceof Class ? (Class<?>) responseType : null;
+        List<HttpMessageConverter<?>> readingConverters = new ArrayList<>();
+        List<MediaType> acceptableMediaTypes = new ArrayList<>();
+        for (HttpMessageConverter<?> converter : messageConverters) {
+            boolean canRead = responseClass != null ? converter.canRead(responseClass, null)
+                    : converter instanceof GenericHttpMessageConverter
+                            && ((GenericHttpMessageConverter<?>) converter).canRead(responseType, null, null);
+            if (canRead) {
+                readingConverters.add(converter);
+                for (MediaType mediaType : converter.getSupportedMediaTypes()) {
+                    MediaType withoutCharset = mediaType.getCharset() != null
+                            ? new MediaType(mediaType.getType(), mediaType.getSubtype())
+                            : mediaType;
+                    if (!acceptableMediaTypes.contains(withoutCharset)) {
+                        acceptableMediaTypes.add(withoutCharset);
+                    }
+                }
+            }
+        }
+        if (readingConverters.isEmpty()) {
+            return;
+        }
+        MediaType.sortBySpecificity(acceptableMediaTypes);
+        if (!methodMetaData.getHeaders().containsKey(HttpHeaders.ACCEPT)) {
+            methodMetaData.getHeaders().setAccept(acceptableMediaTypes);
+        }
+        methodMetaData.setResponseExtractor(
+                new ResponseEntityExtractor(new HttpMessageConverterExtractor<>(responseType, readingConverters)));
+    }
+
+    /**
+     * A raw response body is not converted, so any content type is accepted.
+     */
+    private static void processRawResponse(MethodMetaData.Builder methodMetaData,
+            java.lang.reflect.Type responseType) {
+        if (methodMetaData.hasResponseBodySink()) {
+            ReturnType returnType = methodMetaData.getReturnType();
+            boolean voidOrLong = responseType == void.class || responseType == Void.class
+                    || responseType == long.class || responseType == Long.class;
+            checkState(!returnType.isRawBody() && !returnType.isReactive() && voidOrLong,
+                    "Method %s with a ResponseBodySink must return void or long", methodMetaData.getMethod());
+        }
+        if (!methodMetaData.getHeaders().containsKey(HttpHeaders.ACCEPT)) {
+            methodMetaData.getHeaders().setAccept(Collections.singletonList(MediaType.ALL));
+        }
+    }
+
+    /**
+     * A streamed response is read element by element with the
+     * <code>ObjectMapper</code> of the JSON message converter, or a default one if
+     * the message converters are not known.
+     */
+    private void processStreamingResponse(MethodMetaData.Builder methodMetaData,
+            java.lang.reflect.Type elementType) {
+        ObjectMapper objectMapper = messageConverters.stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper()).findFirst()
+                .orElseGet(() -> Jackson2ObjectMapperBuilder.json().build());
+        methodMetaData.setElementReader(objectMapper.readerFor(objectMapper.constructType(elementType)));
+        if (!methodMetaData.getHeaders().containsKey(HttpHeaders.ACCEPT)) {
+            methodMetaData.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private String resolve(String value) {
+        if (StringUtils.hasText(value)) {
+            return environment.resolvePlaceholders(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,219 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * The call count, in-flight count, errors, retries, hedged requests and
+ * latencies of one method of a <code>RestClient</code> interface. All counters
+ * are lock-free.
+ */
+public final class MethodMetrics {
+
+    /**
+     * The classification of a failed call.
+     */
+    public enum ErrorClass {
+        /**
+         * The response had a 4xx status.
+         */
+        ClientError,
+        /**
+         * The response had a 5xx status.
+         */
+        ServerError,
+        /**
+         * An I/O error occurred, e.g. a connect or read timeout.
+         */
+        IoError,
+        /**
+         * Any other exception.
+         */
+        Other;
+
+        static ErrorClass of(Throwable throwable) {
+            if (throwable instanceof ResourceAccessException || throwable instanceof IOException) {
+                return IoError;
+            }
+            int status = -1;
+            if (throwable instanceof RestClientResponseException) {
+                status = ((RestClientResponseException) throwable).getRawStatusCode();
+            } else if (WEB_FLUX_PRESENT) {
+                status = WebClientErrors.status(throwable);
+            }
+            if (status >= 400 && status < 500) {
+                return ClientError;
+            }
+            if (status >= 500 && status < 600) {
+                return ServerError;
+            }
+            return Other;
+        }
+    }
+
+    /**
+     * Reads the status of the errors of the methods returning a
+     * <code>Mono</code> or <code>Flux</code>. Only this class refers to Spring
+     * WebFlux, which is an optional dependency.
+     */
+    private static final class WebClientErrors {
+
+        /**
+         * @return The status of a {@link WebClientResponseException},
+         *         <code>-1</code> for other errors.
+         */
+        static int status(Throwable throwable) {
+            return throwable instanceof WebClientResponseException
+                    ? ((WebClientResponseException) throwable).getRawStatusCode()
+                    : -1;
+        }
+    }
+
+    private static final boolean WEB_FLUX_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.reactive.function.client.WebClientResponseException",
+            MethodMetrics.class.getClassLoader());
+
+    private static final ErrorClass[] ERROR_CLASSES = ErrorClass.values();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder[] errors = new LongAdder[ERROR_CLASSES.length];
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgesWon = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final Method method;
+
+    private final String name;
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder retriesRejected = new LongAdder();
+
+    MethodMetrics(Method method) {
+        super();
+        this.method = method;
+        this.name = MethodMetaData.signature(method);
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    public long getErrorCount(ErrorClass errorClass) {
+        return errors[errorClass.ordinal()].sum();
+    }
+
+    /**
+     * Returns the number of hedged requests which were sent.
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * Returns the number of calls which returned the response of the hedged
+     * request.
+     */
+    public long getHedgeWonCount() {
+        return hedgesWon.sum();
+    }
+
+    public long getInFlightCount() {
+        return inFlight.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the signature of the method, e.g. <code>get(String)</code>, which
+     * tells overloaded methods apart.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of retries, the attempts of a call are
+     * <code>1 + retries</code>.
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Returns the number of retries which were not made because the retry budget
+     * of the client was exhausted.
+     */
+    public long getRetryRejectedCount() {
+        return retriesRejected.sum();
+    }
+
+    /**
+     * Records the start of a call.
+     *
+     * @return The start time for {@link #recordEnd(long, Throwable)}.
+     */
+    long recordStart() {
+        calls.increment();
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the end of a call.
+     *
+     * @param start The result of {@link #recordStart()}.
+     * @param error The exception of the call, <code>null</code> if it succeeded.
+     */
+    void recordEnd(long start, Throwable error) {
+        latency.record(System.nanoTime() - start);
+        inFlight.decrement();
+        if (error != null) {
+            errors[ErrorClass.of(error).ordinal()].increment();
+        }
+    }
+
+    /**
+     * Records a hedged request.
+     */
+    void recordHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * Records a call which returned the response of the hedged request.
+     */
+    void recordHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    /**
+     * Records a retry of a failed attempt.
+     *
+     * @param allowed <code>false</code> if the retry budget rejected the retry.
+     */
+    void recordRetry(boolean allowed) {
+        (allowed ? retries : retriesRejected).increment();
+    }
+}
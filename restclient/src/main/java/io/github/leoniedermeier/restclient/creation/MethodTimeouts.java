@@ -0,0 +1,71 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.leoniedermeier.restclient.annotation.Timeout;
+
+/**
+ * The timeouts of a method, resolved from the {@link Timeout} annotation and
+ * the properties of the client.
+ */
+final class MethodTimeouts {
+
+    /**
+     * No timeouts of the method, the timeouts of the client apply.
+     */
+    static final MethodTimeouts NONE = new MethodTimeouts(-1, -1, null);
+
+    /**
+     * Caps a timeout with the remaining time of a deadline.
+     *
+     * @param timeout  The timeout in milliseconds, <code>-1</code> if none.
+     * @param deadline The deadline, may be <code>null</code>.
+     * @return The timeout in milliseconds, at least <code>1</code>, or
+     *         <code>-1</code> if there is neither a timeout nor a deadline.
+     */
+    static int cap(int timeout, Deadline deadline) {
+        if (deadline == null) {
+            return timeout;
+        }
+        int remaining = (int) Math.max(1, Math.min(Integer.MAX_VALUE, deadline.remaining(TimeUnit.MILLISECONDS)));
+        return timeout < 0 ? remaining : Math.min(timeout, remaining);
+    }
+
+    private final int connectTimeout;
+
+    private final String deadlineHeader;
+
+    private final int readTimeout;
+
+    /**
+     * @param connectTimeout The connect timeout in milliseconds, <code>-1</code>
+     *                       if none.
+     * @param readTimeout    The read timeout in milliseconds, <code>-1</code> if
+     *                       none.
+     * @param deadlineHeader The header for the remaining time of the deadline,
+     *                       <code>null</code> if the deadline is not forwarded.
+     */
+    MethodTimeouts(int connectTimeout, int readTimeout, String deadlineHeader) {
+        super();
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.deadlineHeader = deadlineHeader;
+    }
+
+    int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the name of the header with the remaining time of the deadline.
+     *
+     * @return The name, <code>null</code> if the deadline is not forwarded.
+     */
+    String getDeadlineHeader() {
+        return deadlineHeader;
+    }
+
+    int getReadTimeout() {
+        return readTimeout;
+    }
+}
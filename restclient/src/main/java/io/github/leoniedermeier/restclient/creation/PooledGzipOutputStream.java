@@ -0,0 +1,87 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the gzip format with a {@link Deflater} of the
+ * {@link CodecPool#GZIP_DEFLATERS}. Unlike <code>GZIPOutputStream</code>, which
+ * creates a new deflater for every stream, the deflater is returned to the pool
+ * when the stream is closed.
+ */
+final class PooledGzipOutputStream extends DeflaterOutputStream {
+
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CRC32 crc = new CRC32();
+
+    private boolean finished;
+
+    private boolean released;
+
+    /**
+     * Writes the gzip header to the stream.
+     */
+    PooledGzipOutputStream(OutputStream out) throws IOException {
+        super(out, CodecPool.GZIP_DEFLATERS.acquire(), BUFFER_SIZE);
+        try {
+            out.write(HEADER);
+        } catch (IOException ex) {
+            release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Finishes the stream, closes the underlying stream and returns the deflater
+     * to the pool.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Writes the remaining compressed data and the gzip trailer without closing
+     * the underlying stream.
+     */
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        super.finish();
+        writeInt((int) crc.getValue());
+        writeInt((int) def.getBytesRead());
+    }
+
+    private void release() {
+        if (!released) {
+            released = true;
+            CodecPool.GZIP_DEFLATERS.release(def);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        crc.update(b, off, len);
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
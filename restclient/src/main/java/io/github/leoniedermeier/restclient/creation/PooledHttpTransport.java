@@ -0,0 +1,220 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.util.StringUtils;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * A pooled Apache <code>HttpClient</code> owned by one
+ * <code>RestClientFactoryBean</code>, configured by the {@link RestClient}
+ * annotation and the properties <code>restclient.&lt;name&gt;.*</code>.
+ */
+public class PooledHttpTransport implements Closeable {
+
+    private static final String PREFIX = "restclient.";
+
+    /**
+     * The connect and read timeout of the requests of the current thread, see
+     * {@link #withTimeouts(int, int, Supplier)}.
+     */
+    private static final ThreadLocal<int[]> TIMEOUTS = new ThreadLocal<>();
+
+    /**
+     * Creates the transport for the interface.
+     *
+     * @param restClient  The annotation of the interface.
+     * @param environment The {@link Environment} with the properties which
+     *                    override the settings of the annotation.
+     * @return The transport, never <code>null</code>.
+     */
+    static PooledHttpTransport create(RestClient restClient, Environment environment) {
+        String name = StringUtils.hasText(restClient.name()) ? restClient.name() : restClient.value();
+        String prefix = StringUtils.hasText(name) ? PREFIX + name + "." : null;
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(
+                property(environment, prefix, "max-connections-total", Integer.class, restClient.maxConnectionsTotal()));
+        connectionManager.setDefaultMaxPerRoute(property(environment, prefix, "max-connections-per-route",
+                Integer.class, restClient.maxConnectionsPerRoute()));
+
+        int connectTimeout = property(environment, prefix, "connect-timeout", Integer.class,
+                restClient.connectTimeout());
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(property(environment, prefix, "read-timeout", Integer.class, restClient.readTimeout()))
+                .build();
+
+        long keepAlive = property(environment, prefix, "keep-alive", Long.class, restClient.keepAlive());
+        long idleEviction = property(environment, prefix, "idle-eviction", Long.class, restClient.idleEviction());
+        boolean acceptCompressed = property(environment, prefix, "accept-compressed", Boolean.class,
+                restClient.acceptCompressed());
+        int compressRequestsAbove = property(environment, prefix, "compress-requests-above", Integer.class,
+                restClient.compressRequestsAbove());
+        HttpClientBuilder builder = HttpClients.custom();
+        if (acceptCompressed) {
+            // the responses are decompressed with pooled inflaters instead
+            builder.disableContentCompression();
+        }
+        CloseableHttpClient httpClient = builder.setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig).setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response,
+                            context);
+                    return serverKeepAlive >= 0 ? serverKeepAlive : keepAlive;
+                }).evictExpiredConnections().evictIdleConnections(idleEviction, TimeUnit.MILLISECONDS).build();
+        return new PooledHttpTransport(httpClient, connectionManager, requestConfig, acceptCompressed,
+                compressRequestsAbove);
+    }
+
+    /**
+     * Executes a call whose requests use the given timeouts instead of the
+     * timeouts of the transport. Requests executed by other request factories
+     * are not affected.
+     *
+     * @param connectTimeout The connect timeout in milliseconds, <code>-1</code>
+     *                       for the timeout of the transport.
+     * @param readTimeout    The read timeout in milliseconds, <code>-1</code> for
+     *                       the timeout of the transport.
+     */
+    static <T> T withTimeouts(int connectTimeout, int readTimeout, Supplier<T> call) {
+        if (connectTimeout < 0 && readTimeout < 0) {
+            return call.get();
+        }
+        int[] previous = TIMEOUTS.get();
+        TIMEOUTS.set(new int[] { connectTimeout, readTimeout });
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                TIMEOUTS.remove();
+            } else {
+                TIMEOUTS.set(previous);
+            }
+        }
+    }
+
+    private static <T> T property(Environment environment, String prefix, String key, Class<T> type,
+            T defaultValue) {
+        return prefix != null ? environment.getProperty(prefix + key, type, defaultValue) : defaultValue;
+    }
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final RequestConfig requestConfig;
+
+    private final ClientHttpRequestFactory requestFactory;
+
+    private PooledHttpTransport(CloseableHttpClient httpClient, PoolingHttpClientConnectionManager connectionManager,
+            RequestConfig requestConfig, boolean acceptCompressed, int compressRequestsAbove) {
+        super();
+        this.httpClient = httpClient;
+        this.connectionManager = connectionManager;
+        this.requestConfig = requestConfig;
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                httpClient) {
+
+            @Override
+            protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+                int[] timeouts = TIMEOUTS.get();
+                return timeouts != null ? contextWithTimeouts(timeouts[0], timeouts[1]) : null;
+            }
+        };
+        // the request bodies are written to the connection, not into a byte[]
+        requestFactory.setBufferRequestBody(false);
+        this.requestFactory = acceptCompressed || compressRequestsAbove >= 0
+                ? new CompressingClientHttpRequestFactory(requestFactory, acceptCompressed, compressRequestsAbove)
+                : requestFactory;
+    }
+
+    /**
+     * Returns a context with the timeouts of a single request.
+     */
+    private HttpContext contextWithTimeouts(int connectTimeout, int readTimeout) {
+        RequestConfig.Builder builder = RequestConfig.copy(requestConfig);
+        if (connectTimeout >= 0) {
+            builder.setConnectTimeout(connectTimeout).setConnectionRequestTimeout(connectTimeout);
+        }
+        if (readTimeout >= 0) {
+            builder.setSocketTimeout(readTimeout);
+        }
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(builder.build());
+        return context;
+    }
+
+    /**
+     * Closes the <code>HttpClient</code>, its pool and its idle connection
+     * evictor.
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Returns the number of idle connections in the pool.
+     */
+    public int getAvailable() {
+        return getTotalStats().getAvailable();
+    }
+
+    /**
+     * Returns the number of connections in use.
+     */
+    public int getLeased() {
+        return getTotalStats().getLeased();
+    }
+
+    public int getMaxPerRoute() {
+        return connectionManager.getDefaultMaxPerRoute();
+    }
+
+    public int getMaxTotal() {
+        return connectionManager.getMaxTotal();
+    }
+
+    /**
+     * Returns the number of requests waiting for a connection.
+     */
+    public int getPending() {
+        return getTotalStats().getPending();
+    }
+
+    ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    /**
+     * Returns the timeouts of the requests.
+     */
+    public RequestConfig getRequestConfig() {
+        return requestConfig;
+    }
+
+    /**
+     * Returns a snapshot of the pool statistics over all routes.
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+}
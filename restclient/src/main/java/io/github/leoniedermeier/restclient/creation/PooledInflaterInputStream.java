@@ -0,0 +1,185 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a body in the gzip or the zlib (<code>deflate</code> content
+ * encoding) format with a pooled {@link Inflater}, which is returned to the
+ * pool when the stream is closed. An empty body is read as an empty stream, as
+ * servers send it for example for <code>HEAD</code> requests. Only the first
+ * member of a gzip body is read.
+ */
+final class PooledInflaterInputStream extends InflaterInputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int FEXTRA = 4;
+
+    private static final int FNAME = 8;
+
+    private static final int FCOMMENT = 16;
+
+    private static final int FHCRC = 2;
+
+    /**
+     * Returns a stream which decompresses a gzip body.
+     */
+    static InputStream gzip(InputStream in) {
+        return new PooledInflaterInputStream(in, CodecPool.GZIP_INFLATERS, new CRC32());
+    }
+
+    /**
+     * Returns a stream which decompresses a zlib body.
+     */
+    static InputStream zlib(InputStream in) {
+        return new PooledInflaterInputStream(in, CodecPool.ZLIB_INFLATERS, null);
+    }
+
+    private boolean closed;
+
+    /**
+     * The checksum of a gzip body, <code>null</code> for a zlib body.
+     */
+    private final CRC32 crc;
+
+    private boolean eof;
+
+    private final CodecPool<Inflater> pool;
+
+    private boolean started;
+
+    private PooledInflaterInputStream(InputStream in, CodecPool<Inflater> pool, CRC32 crc) {
+        super(in, pool.acquire(), BUFFER_SIZE);
+        this.pool = pool;
+        this.crc = crc;
+    }
+
+    /**
+     * Closes the underlying stream and returns the inflater to the pool.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                pool.release(inf);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (eof) {
+            return -1;
+        }
+        if (!started) {
+            started = true;
+            if (!readHeader()) {
+                eof = true;
+                return -1;
+            }
+        }
+        int n = super.read(b, off, len);
+        if (n < 0) {
+            eof = true;
+            if (crc != null) {
+                readTrailer();
+            }
+            return -1;
+        }
+        if (crc != null) {
+            crc.update(b, off, n);
+        }
+        return n;
+    }
+
+    /**
+     * Reads the gzip header.
+     *
+     * @return <code>false</code> if the body is empty.
+     */
+    private boolean readHeader() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        if (crc == null) {
+            // the zlib header is read by the inflater
+            buf[0] = (byte) first;
+            len = 1;
+            inf.setInput(buf, 0, len);
+            return true;
+        }
+        if (first != 0x1f || readUnsignedByte() != 0x8b) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readUnsignedByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readUnsignedByte();
+        skipBytes(6);
+        if ((flags & FEXTRA) != 0) {
+            skipBytes(readUnsignedByte() | (readUnsignedByte() << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            while (readUnsignedByte() != 0) {
+                // skip the file name
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readUnsignedByte() != 0) {
+                // skip the comment
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skipBytes(2);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the gzip trailer from the input left over by the inflater and the
+     * underlying stream, and checks it.
+     */
+    private void readTrailer() throws IOException {
+        int remaining = inf.getRemaining();
+        long checksum = 0;
+        long size = 0;
+        for (int i = 0; i < 8; i++) {
+            int value = remaining > 0 ? buf[len - remaining--] & 0xff : readUnsignedByte();
+            if (i < 4) {
+                checksum |= (long) value << (8 * i);
+            } else {
+                size |= (long) value << (8 * (i - 4));
+            }
+        }
+        if (checksum != crc.getValue() || size != (inf.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    private int readUnsignedByte() throws IOException {
+        int value = in.read();
+        if (value < 0) {
+            throw new EOFException("Unexpected end of GZIP input stream");
+        }
+        return value;
+    }
+
+    private void skipBytes(int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            readUnsignedByte();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Hands out the raw body of an open response without message conversion.
+ */
+final class ResponseBodyTransfer {
+
+    /**
+     * Closes the response when the stream is closed.
+     */
+    private static final class ResponseInputStream extends FilterInputStream {
+
+        private final ClientHttpResponse response;
+
+        ResponseInputStream(ClientHttpResponse response, InputStream body) {
+            super(body);
+            this.response = response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the body of the response as {@link InputStream}. Closing the stream
+     * closes the response.
+     */
+    static InputStream inputStream(ClientHttpResponse response) {
+        try {
+            return new ResponseInputStream(response, response.getBody());
+        } catch (IOException ex) {
+            response.close();
+            throw failure(ex);
+        }
+    }
+
+    /**
+     * Returns the body of the response as {@link ReadableByteChannel}. Closing the
+     * channel closes the response.
+     */
+    static ReadableByteChannel readableChannel(ClientHttpResponse response) {
+        return Channels.newChannel(inputStream(response));
+    }
+
+    /**
+     * Transfers the body of the response to the sink and closes the response. A
+     * {@link Path} is written by {@link FileChannel#transferFrom}, a channel from
+     * a pooled heap buffer which the body is read into.
+     *
+     * @param response The open response.
+     * @param sink     A {@link Path}, which is created or truncated, or a
+     *                 {@link WritableByteChannel}, which is left open.
+     * @param pool     The pool of the transfer buffers.
+     * @return The number of transferred bytes.
+     */
+    static long transferTo(ClientHttpResponse response, Object sink, ByteBufferPool pool) {
+        try (InputStream source = inputStream(response)) {
+            if (sink instanceof Path) {
+                try (FileChannel target = FileChannel.open((Path) sink, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    return transferFrom(source, target);
+                }
+            }
+            return transfer(source, (WritableByteChannel) sink, pool);
+        } catch (IOException ex) {
+            throw failure(ex);
+        }
+    }
+
+    private static ResourceAccessException failure(IOException ex) {
+        return new ResourceAccessException("I/O error while reading the response: " + ex.getMessage(), ex);
+    }
+
+    private static long transferFrom(InputStream source, FileChannel target) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(source);
+        long position = 0;
+        long transferred;
+        // transferFrom returns 0 at the end of the stream
+        while ((transferred = target.transferFrom(channel, position, Long.MAX_VALUE)) > 0) {
+            position += transferred;
+        }
+        return position;
+    }
+
+    private static long transfer(InputStream source, WritableByteChannel target, ByteBufferPool pool)
+            throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        try {
+            byte[] array = buffer.array();
+            long transferred = 0;
+            int read;
+            while ((read = source.read(array, 0, array.length)) >= 0) {
+                buffer.limit(read);
+                while (buffer.hasRemaining()) {
+                    transferred += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return transferred;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    private ResponseBodyTransfer() {
+        // only static methods
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.IOException;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.ResponseExtractor;
+
+/**
+ * Wraps the body read by a {@link HttpMessageConverterExtractor} in a
+ * {@link ResponseEntity}, like the <code>exchange</code> methods of
+ * <code>RestTemplate</code> do.
+ */
+class ResponseEntityExtractor implements ResponseExtractor<ResponseEntity<Object>> {
+
+    private final HttpMessageConverterExtractor<Object> delegate;
+
+    ResponseEntityExtractor(HttpMessageConverterExtractor<Object> delegate) {
+        super();
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ResponseEntity<Object> extractData(ClientHttpResponse response) throws IOException {
+        Object body = delegate.extractData(response);
+        return ResponseEntity.status(response.getRawStatusCode()).headers(response.getHeaders()).body(body);
+    }
+}
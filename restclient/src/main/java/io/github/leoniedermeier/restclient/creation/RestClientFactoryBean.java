@@ -0,0 +1,692 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static java.util.stream.Collectors.toList;
+import static org.springframework.core.annotation.AnnotatedElementUtils.findMergedAnnotation;
+import static org.springframework.core.annotation.AnnotatedElementUtils.hasAnnotation;
+import static org.springframework.util.ReflectionUtils.USER_DECLARED_METHODS;
+import static org.springframework.util.ReflectionUtils.getUniqueDeclaredMethods;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactoryBean;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.Batched;
+import io.github.leoniedermeier.restclient.annotation.Bulkhead;
+import io.github.leoniedermeier.restclient.annotation.CircuitBreaker;
+import io.github.leoniedermeier.restclient.annotation.ConcurrencyLimit;
+import io.github.leoniedermeier.restclient.annotation.Fallback;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+
+public class RestClientFactoryBean implements FactoryBean<Object>, EnvironmentAware, DisposableBean {
+
+    /**
+     * How the proxy for the interface is created.
+     */
+    public enum ProxyMode {
+        /**
+         * A JDK dynamic proxy created by a {@link ProxyFactoryBean}. The calls go
+         * through the Spring AOP interceptor chain.
+         */
+        AOP,
+        /**
+         * A class implementing the interface is generated with CGLIB. Every method
+         * calls its {@link MethodInvoker} directly.
+         */
+        GENERATED
+    }
+
+    private static class MethodInvocationDispatcher implements MethodInterceptor {
+
+        private final Map<Method, MethodInvoker> methodToMethodInvoker;
+
+        /**
+         * Copy on write cache keyed by the identity of the {@link Method} instances
+         * which are passed by the proxy. A proxy passes the same instance for every
+         * call of a method, so after the first call the lookup neither needs
+         * {@link Method#hashCode()} nor {@link Method#equals(Object)}.
+         */
+        private volatile Map<Method, MethodInvoker> resolvedMethodInvokers;
+
+        public MethodInvocationDispatcher(Map<Method, MethodInvoker> methodToMethodInvoker) {
+            super();
+            this.methodToMethodInvoker = methodToMethodInvoker;
+            this.resolvedMethodInvokers = new IdentityHashMap<>(methodToMethodInvoker);
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            MethodInvoker methodInvoker = resolvedMethodInvokers.get(method);
+            if (methodInvoker == null) {
+                methodInvoker = resolve(method);
+            }
+            return methodInvoker.invoke(invocation.getArguments());
+        }
+
+        private synchronized MethodInvoker resolve(Method method) {
+            MethodInvoker methodInvoker = methodToMethodInvoker.get(method);
+            if (methodInvoker == null) {
+                throw new IllegalStateException(
+                        "Missing MethodMetaData for method " + MethodMetaData.signature(method));
+            }
+            Map<Method, MethodInvoker> resolved = new IdentityHashMap<>(resolvedMethodInvokers);
+            resolved.put(method, methodInvoker);
+            resolvedMethodInvokers = resolved;
+            return methodInvoker;
+        }
+    }
+
+    /**
+     * Get all methods in the supplied {@link Class class} and its superclasses
+     * which are annotated with the supplied {@code annotationType} but which are
+     * not <em>shadowed</em> by methods overridden in subclasses.
+     * <p>
+     * Default methods on interfaces are also detected.
+     * 
+     * @param clazz          the class for which to retrieve the annotated methods
+     * @param annotationType the annotation type for which to search
+     * @return all annotated methods in the supplied class and its superclasses as
+     *         well as annotated interface default methods
+     */
+    private static List<Method> getAnnotatedMethods(Class<?> clazz, Class<? extends Annotation> annotationType) {
+        return Arrays.stream(getUniqueDeclaredMethods(clazz, USER_DECLARED_METHODS))
+                .filter(method -> hasAnnotation(method, annotationType)).collect(toList());
+    }
+
+    /**
+     * The default maximum number of hedged requests in flight per client.
+     */
+    public static final int DEFAULT_MAX_HEDGES = 10;
+
+    /**
+     * The number of threads of the background executor created by the factory.
+     * The attempts of the <code>Hedged</code> methods run in it, so it matches
+     * the default size of the connection pool.
+     */
+    private static final int BACKGROUND_THREADS = 50;
+
+    /**
+     * The number of tasks which wait for a thread of the background executor
+     * created by the factory, further tasks are rejected.
+     */
+    private static final int BACKGROUND_QUEUE_CAPACITY = 1000;
+
+    private static final Log logger = LogFactory.getLog(RestClientFactoryBean.class);
+
+    /**
+     * The executor of the background work if no {@link #executor} is set,
+     * created on first use and shut down by {@link #destroy()}.
+     */
+    private ThreadPoolExecutor backgroundExecutor;
+
+    /**
+     * The permits of the <code>Bulkhead</code> on the interface, shared by all its
+     * methods.
+     */
+    private Semaphore bulkhead;
+
+    /**
+     * The circuit breakers of the methods. The methods share the circuit breaker
+     * of the <code>CircuitBreaker</code> annotation on the interface.
+     */
+    private final Map<Method, RingBufferCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * The circuit breaker of the <code>CircuitBreaker</code> annotation on the
+     * interface.
+     */
+    private RingBufferCircuitBreaker clientCircuitBreaker;
+
+    /**
+     * The limiter of the <code>ConcurrencyLimit</code> annotation on the
+     * interface.
+     */
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private Environment environment;
+
+    private Executor executor;
+
+    /**
+     * The methods of the generated meta data, <code>null</code> if the annotation
+     * processor did not generate classes for the interface.
+     */
+    private List<Method> generatedMethods;
+
+    /**
+     * The permits for the hedged requests in flight.
+     */
+    private Semaphore hedges;
+
+    private boolean lazy;
+
+    private int maxHedges = DEFAULT_MAX_HEDGES;
+
+    private Map<Method, MethodInvoker> methodInvokers;
+
+    private RestClientMetrics metrics;
+
+    private boolean metricsEnabled = true;
+
+    private PooledHttpTransport pooledHttpTransport;
+
+    /**
+     * The last created proxy, on which the fallback methods are called.
+     */
+    private volatile Object proxy;
+
+    private ProxyMode proxyMode = ProxyMode.AOP;
+
+    private volatile HttpResponseCache responseCache;
+
+    private RestOperations restOperations;
+
+    private RetryBudget retryBudget;
+
+    private TaskDecorator taskDecorator;
+
+    private Class<?> type;
+
+    /**
+     * The <code>WebClient</code>, typed as {@link Object} since Spring WebFlux is
+     * optional.
+     */
+    private Object webClient;
+
+    private Map<Method, MethodInvoker> createMethodInvokers() {
+        if (restOperations == null && pooledHttpTransport == null) {
+            RestClient restClient = findMergedAnnotation(type, RestClient.class);
+            Assert.state(restClient != null, () -> "No RestClient annotation on interface " + type);
+            pooledHttpTransport = PooledHttpTransport.create(restClient, environment);
+            restOperations = new RestTemplate(pooledHttpTransport.getRequestFactory());
+        }
+
+        MethodMetaDataParser parser = restOperations instanceof RestTemplate
+                ? new MethodMetaDataParser(environment, ((RestTemplate) restOperations).getMessageConverters())
+                : new MethodMetaDataParser(environment);
+
+        List<Method> methods;
+        Function<Method, MethodMetaData> parse;
+        GeneratedRestClientMetaData generatedMetaData = GeneratedClients.findMetaData(type);
+        if (generatedMetaData != null) {
+            generatedMethods = GeneratedClients.resolveMethods(type, generatedMetaData);
+            methods = generatedMethods;
+            Map<Method, GeneratedMethodMetaData> generatedMethodMetaDatas = new HashMap<>();
+            for (int i = 0; i < methods.size(); i++) {
+                generatedMethodMetaDatas.put(methods.get(i), generatedMetaData.getMethods()[i]);
+            }
+            parse = method -> parser.parse(method, generatedMethodMetaDatas.get(method));
+        } else {
+            methods = getAnnotatedMethods(type, RequestMapping.class);
+            parse = parser::parse;
+        }
+        hedges = new Semaphore(maxHedges);
+        ConcurrencyLimit concurrencyLimit = findMergedAnnotation(type, ConcurrencyLimit.class);
+        if (concurrencyLimit != null) {
+            concurrencyLimiter = new AdaptiveConcurrencyLimiter(concurrencyLimit);
+        }
+        if (metricsEnabled) {
+            metrics = new RestClientMetrics(type, concurrencyLimiter);
+            methods.forEach(metrics::register);
+        }
+
+        Map<Method, MethodInvoker> methodInvokers = new HashMap<>();
+        if (lazy) {
+            for (Method method : methods) {
+                methodInvokers.put(method,
+                        new LazyMethodInvoker(() -> createMethodInvoker(parse.apply(method), methodInvokers)));
+            }
+            return methodInvokers;
+        }
+
+        List<MethodMetaData> methodMetaDatas = generatedMetaData != null
+                ? methods.stream().map(parse).collect(toList())
+                : parser.parse(methods);
+        // the batch methods are created first, the batching methods delegate to them
+        for (MethodMetaData methodMetaData : methodMetaDatas) {
+            if (!hasAnnotation(methodMetaData.getMethod(), Batched.class)) {
+                methodInvokers.put(methodMetaData.getMethod(), createMethodInvoker(methodMetaData, methodInvokers));
+            }
+        }
+        for (MethodMetaData methodMetaData : methodMetaDatas) {
+            if (hasAnnotation(methodMetaData.getMethod(), Batched.class)) {
+                methodInvokers.put(methodMetaData.getMethod(), createMethodInvoker(methodMetaData, methodInvokers));
+            }
+        }
+        return methodInvokers;
+    }
+
+    private MethodInvoker createBatchingMethodInvoker(MethodMetaData methodMetaData, Batched batched,
+            Map<Method, MethodInvoker> methodInvokers) {
+        List<Method> batchMethods = methodInvokers.keySet().stream()
+                .filter(method -> method.getName().equals(batched.method())).collect(toList());
+        Assert.state(batchMethods.size() == 1, () -> "Expected exactly one batch method '" + batched.method()
+                + "' for method " + methodMetaData.getMethod() + ", found " + batchMethods);
+        Method batchMethod = batchMethods.get(0);
+        return new BatchingMethodInvoker(methodMetaData, batchMethod, methodInvokers.get(batchMethod), batched,
+                getOrCreateBackgroundExecutor());
+    }
+
+    /**
+     * Wraps the invoker with the circuit breaker, bulkhead and fallback of the
+     * method, if it has any.
+     */
+    private MethodInvoker createGuardedMethodInvoker(MethodInvoker methodInvoker, MethodMetaData methodMetaData) {
+        Method method = methodMetaData.getMethod();
+        RingBufferCircuitBreaker circuitBreaker = null;
+        CircuitBreaker circuitBreakerAnnotation = findMergedAnnotation(method, CircuitBreaker.class);
+        if (circuitBreakerAnnotation != null) {
+            circuitBreaker = new RingBufferCircuitBreaker(circuitBreakerAnnotation);
+        } else if (hasAnnotation(type, CircuitBreaker.class)) {
+            circuitBreaker = getOrCreateClientCircuitBreaker();
+        }
+        if (circuitBreaker != null) {
+            circuitBreakers.put(method, circuitBreaker);
+        }
+
+        Semaphore methodBulkhead = null;
+        long maxWait = 0;
+        Bulkhead bulkheadAnnotation = findMergedAnnotation(method, Bulkhead.class);
+        if (bulkheadAnnotation != null) {
+            methodBulkhead = new Semaphore(bulkheadAnnotation.maxConcurrentCalls());
+            maxWait = bulkheadAnnotation.maxWait();
+        } else if ((bulkheadAnnotation = findMergedAnnotation(type, Bulkhead.class)) != null) {
+            methodBulkhead = getOrCreateBulkhead(bulkheadAnnotation);
+            maxWait = bulkheadAnnotation.maxWait();
+        }
+
+        Fallback fallback = findMergedAnnotation(method, Fallback.class);
+        FallbackMethod fallbackMethod = fallback != null
+                ? FallbackMethod.resolve(method, fallback.value(), () -> proxy)
+                : null;
+
+        if (circuitBreaker == null && methodBulkhead == null && fallbackMethod == null) {
+            return methodInvoker;
+        }
+        return new GuardedMethodInvoker(methodInvoker, methodMetaData, circuitBreaker, methodBulkhead, maxWait,
+                fallbackMethod);
+    }
+
+    /**
+     * Creates the {@link MethodInvoker} of a method.
+     *
+     * @param methodInvokers The invokers of the other methods, a batching method
+     *                       delegates to the invoker of its batch method.
+     */
+    private MethodInvoker createMethodInvoker(MethodMetaData methodMetaData,
+            Map<Method, MethodInvoker> methodInvokers) {
+        MethodInvoker methodInvoker;
+        Batched batched = findMergedAnnotation(methodMetaData.getMethod(), Batched.class);
+        if (batched != null) {
+            methodInvoker = createBatchingMethodInvoker(methodMetaData, batched, methodInvokers);
+        } else if (methodMetaData.getReturnType().isReactive()) {
+            Assert.state(webClient != null, () -> "Method " + methodMetaData.getMethod() + " returns a "
+                    + methodMetaData.getReturnType() + ", but no WebClient is configured");
+            if (methodMetaData.getTimeouts() != MethodTimeouts.NONE) {
+                logger.warn("Timeout of method " + methodMetaData.getMethod()
+                        + " is ignored, it is not supported for methods returning a Mono or Flux");
+            }
+            methodInvoker = new WebClientMethodInvoker(webClient, methodMetaData);
+        } else {
+            MethodTimeouts timeouts = methodMetaData.getTimeouts();
+            if (pooledHttpTransport == null && (timeouts.getConnectTimeout() >= 0 || timeouts.getReadTimeout() >= 0)) {
+                logger.warn("Connect and read timeout of method " + methodMetaData.getMethod()
+                        + " are ignored, they are only applied by the HttpClient which the factory creates"
+                        + " if no RestOperations is set");
+            } else if (pooledHttpTransport == null && (timeouts.getDeadlineHeader() != null
+                    || methodMetaData.getParameterDesciptions(Type.Deadline).length > 0)) {
+                logger.warn("Deadline of method " + methodMetaData.getMethod()
+                        + " does not limit the connect and read timeout, it is only applied by the HttpClient"
+                        + " which the factory creates if no RestOperations is set. Only an expired deadline is"
+                        + " detected before the request is sent");
+            }
+            methodInvoker = new RestOperationsMethodInvoker(restOperations, methodMetaData, executor,
+                    methodMetaData.isCached() ? getOrCreateResponseCache() : responseCache);
+            if (concurrencyLimiter != null) {
+                methodInvoker = new ConcurrencyLimitingMethodInvoker(methodInvoker, methodMetaData,
+                        concurrencyLimiter);
+            }
+        }
+        MethodMetrics methodMetrics = metrics != null ? metrics.register(methodMetaData.getMethod()) : null;
+        if (methodMetaData.getHedged() != null) {
+            methodInvoker = new HedgingMethodInvoker(methodInvoker, methodMetaData.getHedged(),
+                    methodMetaData.getReturnType(), getOrCreateBackgroundExecutor(), hedges,
+                    methodMetrics, taskDecorator);
+        }
+        if (methodMetaData.getRetry() != null) {
+            ParameterDesciption[] deadlines = methodMetaData.getParameterDesciptions(Type.Deadline);
+            methodInvoker = new RetryingMethodInvoker(methodInvoker, methodMetaData.getRetry(),
+                    methodMetaData.getReturnType(), getOrCreateRetryBudget(), methodMetrics,
+                    deadlines.length > 0 ? deadlines[0] : null);
+        }
+        methodInvoker = createGuardedMethodInvoker(methodInvoker, methodMetaData);
+        if (methodMetrics != null) {
+            methodInvoker = new MeteredMethodInvoker(methodInvoker, methodMetrics, methodMetaData.getReturnType());
+        }
+        return methodInvoker;
+    }
+
+    /**
+     * Shuts down the background executor and closes the
+     * {@link PooledHttpTransport} if the factory created them.
+     */
+    @Override
+    public void destroy() throws Exception {
+        synchronized (this) {
+            if (backgroundExecutor != null) {
+                backgroundExecutor.shutdown();
+            }
+        }
+        if (pooledHttpTransport != null) {
+            pooledHttpTransport.close();
+        }
+    }
+
+    @Override
+    public Object getObject() throws Exception {
+        Map<Method, MethodInvoker> methodToMethodInvoker = getMethodInvokers();
+        if (generatedMethods != null) {
+            proxy = GeneratedClients.createImplementation(type, generatedMethods, methodToMethodInvoker);
+        } else if (proxyMode == ProxyMode.GENERATED) {
+            proxy = GeneratedProxyFactory.createProxy(type, methodToMethodInvoker);
+        } else {
+            ProxyFactoryBean pfb = new ProxyFactoryBean();
+            pfb.addInterface(type);
+
+            pfb.addAdvice(new MethodInvocationDispatcher(methodToMethodInvoker));
+            proxy = pfb.getObject();
+        }
+        return proxy;
+    }
+
+    /**
+     * Returns the circuit breaker of a method, for example to read its state.
+     *
+     * @return The circuit breaker, <code>null</code> if the method has none or its
+     *         invoker has not been created yet.
+     */
+    public RingBufferCircuitBreaker getCircuitBreaker(Method method) {
+        return circuitBreakers.get(method);
+    }
+
+    /**
+     * Returns the {@link AdaptiveConcurrencyLimiter} of the client, for example to
+     * read the current limit and the number of waiting calls.
+     *
+     * @return The limiter, <code>null</code> if the interface has no
+     *         <code>ConcurrencyLimit</code> annotation or the proxy has not been
+     *         created yet.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private synchronized Map<Method, MethodInvoker> getMethodInvokers() {
+        if (methodInvokers == null) {
+            methodInvokers = createMethodInvokers();
+        }
+        return methodInvokers;
+    }
+
+    /**
+     * Returns the {@link RestClientMetrics} of the methods of the interface. They
+     * can be published to Micrometer with a {@link RestClientMetricsBinder}.
+     *
+     * @return The metrics, <code>null</code> if the metrics are disabled or the
+     *         proxy has not been created yet.
+     */
+    public RestClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return type;
+    }
+
+    /**
+     * Returns the {@link PooledHttpTransport} which the factory created because no
+     * {@link RestOperations} was set, for example to read the pool statistics.
+     *
+     * @return The transport, <code>null</code> if a {@link RestOperations} was set
+     *         or the proxy has not been created yet.
+     */
+    public PooledHttpTransport getPooledHttpTransport() {
+        return pooledHttpTransport;
+    }
+
+    /**
+     * Returns the {@link HttpResponseCache} of the cached methods. It is created
+     * with the default size when the first cached method is created, unless one
+     * was set.
+     */
+    private synchronized HttpResponseCache getOrCreateResponseCache() {
+        if (responseCache == null) {
+            responseCache = new HttpResponseCache(HttpResponseCache.DEFAULT_MAX_SIZE,
+                    getOrCreateBackgroundExecutor());
+        }
+        return responseCache;
+    }
+
+    /**
+     * Returns the {@link Executor} of the background work, which runs blocking
+     * HTTP calls. It is the set executor or a bounded pool of daemon threads
+     * owned by the factory.
+     */
+    private synchronized Executor getOrCreateBackgroundExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        if (backgroundExecutor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+                    "restclient-" + type.getSimpleName() + "-");
+            threadFactory.setDaemon(true);
+            backgroundExecutor = new ThreadPoolExecutor(BACKGROUND_THREADS, BACKGROUND_THREADS, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(BACKGROUND_QUEUE_CAPACITY), threadFactory);
+            backgroundExecutor.allowCoreThreadTimeOut(true);
+        }
+        return backgroundExecutor;
+    }
+
+    private synchronized Semaphore getOrCreateBulkhead(Bulkhead bulkheadAnnotation) {
+        if (bulkhead == null) {
+            bulkhead = new Semaphore(bulkheadAnnotation.maxConcurrentCalls());
+        }
+        return bulkhead;
+    }
+
+    private synchronized RingBufferCircuitBreaker getOrCreateClientCircuitBreaker() {
+        if (clientCircuitBreaker == null) {
+            clientCircuitBreaker = new RingBufferCircuitBreaker(findMergedAnnotation(type, CircuitBreaker.class));
+        }
+        return clientCircuitBreaker;
+    }
+
+    /**
+     * Returns the {@link RetryBudget} shared by the <code>Retry</code> methods. It
+     * is created with the defaults when the first such method is created, unless
+     * one was set.
+     */
+    private synchronized RetryBudget getOrCreateRetryBudget() {
+        if (retryBudget == null) {
+            retryBudget = new RetryBudget();
+        }
+        return retryBudget;
+    }
+
+    /**
+     * Returns the {@link HttpResponseCache} of the <code>HttpCacheable</code>
+     * methods, for example to read its counters.
+     *
+     * @return The cache, <code>null</code> if no cache is set and no cached
+     *         method has been created yet.
+     */
+    public HttpResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Returns the {@link RetryBudget} of the <code>Retry</code> methods, for
+     * example to read the tokens left.
+     *
+     * @return The budget, <code>null</code> if no budget is set and no retried
+     *         method has been created yet.
+     */
+    public synchronized RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Sets the {@link Executor} which executes the calls of methods returning a
+     * {@link CompletableFuture}. Required if the interface has such methods. It
+     * also runs the background work: batch flushes, hedged requests and cache
+     * refreshes. If not set, the factory creates a bounded pool of daemon threads
+     * for the background work, which is shut down with the factory.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Enables the lazy mode: the proxy is created without parsing the methods.
+     * The {@link MethodMetaData} and the invoker of a method are created on its
+     * first invocation, so a mapping error is only detected when the method is
+     * called. Use {@link #validate()} in a test to detect them early. The default
+     * is <code>false</code>.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Sets the maximum number of hedged requests of the <code>Hedged</code>
+     * methods in flight, so hedging does not double the load while the server is
+     * slow. The default is {@link #DEFAULT_MAX_HEDGES}.
+     */
+    public void setMaxHedges(int maxHedges) {
+        this.maxHedges = maxHedges;
+    }
+
+    /**
+     * Enables or disables the recording of the {@link RestClientMetrics}, the
+     * default is <code>true</code>.
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * Sets the {@link ProxyMode}, the default is {@link ProxyMode#AOP}. It is
+     * ignored if the annotation processor generated an implementation of the
+     * interface: the generated class is used instead of a proxy.
+     */
+    public void setProxyMode(ProxyMode proxyMode) {
+        this.proxyMode = proxyMode;
+    }
+
+    /**
+     * Sets the {@link HttpResponseCache} for the <code>HttpCacheable</code>
+     * methods. If not set, a cache with the default size is created for the
+     * interface if it has such methods.
+     */
+    public void setResponseCache(HttpResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Sets the {@link RestOperations} which executes the requests. If not set, the
+     * factory creates a {@link RestTemplate} with its own
+     * {@link PooledHttpTransport}, configured by the {@link RestClient}
+     * annotation.
+     */
+    public void setRestOperations(RestOperations restOperations) {
+        this.restOperations = restOperations;
+    }
+
+    /**
+     * Sets the {@link RetryBudget} of the <code>Retry</code> methods. If not set,
+     * a budget with the defaults is created for the interface if it has such
+     * methods.
+     */
+    public void setRetryBudget(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Sets the {@link TaskDecorator} of the blocking attempts of
+     * <code>Hedged</code> methods, which run in the executor. The attempts are
+     * decorated in the calling thread, so the decorator can pass on thread-bound
+     * context, for example the MDC or the security context. The
+     * <code>Deadline</code> is passed on without a decorator.
+     */
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    public void setType(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * Sets the <code>WebClient</code> which executes the calls of methods
+     * returning a <code>Mono</code> or a <code>Flux</code>. Required if the
+     * interface has such methods.
+     * <p>
+     * The parameter is an {@link Object}, because Spring WebFlux is an optional
+     * dependency: the bean introspection of the factory resolves the parameter
+     * types of its setters, which would fail without WebFlux on the class path.
+     * The type is checked when the invokers are created.
+     */
+    public void setWebClient(Object webClient) {
+        this.webClient = webClient;
+    }
+
+    /**
+     * Parses all methods of the interface and creates their invokers, like the
+     * default eager mode does. Intended for tests of clients in lazy mode.
+     *
+     * @throws IllegalStateException If the mapping of a method is invalid.
+     */
+    public void validate() {
+        for (MethodInvoker methodInvoker : getMethodInvokers().values()) {
+            if (methodInvoker instanceof LazyMethodInvoker) {
+                ((LazyMethodInvoker) methodInvoker).initialize();
+            }
+        }
+    }
+}
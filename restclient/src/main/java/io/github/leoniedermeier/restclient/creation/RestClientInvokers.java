@@ -0,0 +1,29 @@
+package io.github.leoniedermeier.restclient.creation;
+
+/**
+ * Executes the calls of the <code>&lt;Interface&gt;_RestClientImpl</code>
+ * classes which the annotation processor generates. Every method of the
+ * generated class passes its index and its arguments, so a call is an array
+ * access and a call of the {@link MethodInvoker}.
+ */
+public final class RestClientInvokers {
+
+    private final MethodInvoker[] methodInvokers;
+
+    RestClientInvokers(MethodInvoker[] methodInvokers) {
+        super();
+        this.methodInvokers = methodInvokers;
+    }
+
+    /**
+     * Invokes the method.
+     *
+     * @param index     The index of the method in
+     *                  {@link GeneratedRestClientMetaData#getMethods()}.
+     * @param arguments The arguments of the method invocation.
+     * @return The result of the method.
+     */
+    public Object invoke(int index, Object[] arguments) {
+        return methodInvokers[index].invoke(arguments);
+    }
+}
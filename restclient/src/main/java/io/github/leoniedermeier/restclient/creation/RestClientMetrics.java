@@ -0,0 +1,63 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@link MethodMetrics} of the methods of one <code>RestClient</code>
+ * interface.
+ */
+public final class RestClientMetrics {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final Map<Method, MethodMetrics> methodMetrics = new LinkedHashMap<>();
+
+    private final Class<?> type;
+
+    RestClientMetrics(Class<?> type, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        super();
+        this.type = type;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Returns the {@link MethodMetrics} of all methods.
+     */
+    public Collection<MethodMetrics> getAll() {
+        return Collections.unmodifiableCollection(methodMetrics.values());
+    }
+
+    /**
+     * Returns the concurrency limiter of the client.
+     *
+     * @return The limiter, <code>null</code> if the client has none.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Returns the {@link MethodMetrics} of the method.
+     *
+     * @return The metrics, <code>null</code> if the method is not a method of the
+     *         interface.
+     */
+    public MethodMetrics getMethodMetrics(Method method) {
+        return methodMetrics.get(method);
+    }
+
+    /**
+     * Returns the <code>RestClient</code> interface.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    synchronized MethodMetrics register(Method method) {
+        return methodMetrics.computeIfAbsent(method, MethodMetrics::new);
+    }
+}
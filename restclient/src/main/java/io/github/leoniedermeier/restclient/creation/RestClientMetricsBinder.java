@@ -0,0 +1,75 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetrics.ErrorClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the {@link RestClientMetrics} of a <code>RestClient</code> to a
+ * Micrometer {@link MeterRegistry}. The meters read the counters of the
+ * {@link MethodMetrics}, so the calls are not slowed down by the registry.
+ * <p>
+ * Micrometer is an optional dependency, this is the only class which uses it.
+ */
+public class RestClientMetricsBinder implements MeterBinder {
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private final RestClientMetrics metrics;
+
+    public RestClientMetricsBinder(RestClientMetrics metrics) {
+        super();
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        AdaptiveConcurrencyLimiter limiter = metrics.getConcurrencyLimiter();
+        if (limiter != null) {
+            Tags tags = Tags.of("client", metrics.getType().getName());
+            Gauge.builder("restclient.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).tags(tags)
+                    .register(registry);
+            Gauge.builder("restclient.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tags(tags).register(registry);
+            Gauge.builder("restclient.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::getQueueDepth)
+                    .tags(tags).register(registry);
+        }
+        for (MethodMetrics methodMetrics : metrics.getAll()) {
+            Tags tags = Tags.of("client", metrics.getType().getName(), "method", methodMetrics.getName());
+            FunctionCounter.builder("restclient.calls", methodMetrics, MethodMetrics::getCallCount).tags(tags)
+                    .register(registry);
+            Gauge.builder("restclient.calls.active", methodMetrics, MethodMetrics::getInFlightCount).tags(tags)
+                    .register(registry);
+            for (ErrorClass errorClass : ErrorClass.values()) {
+                FunctionCounter
+                        .builder("restclient.errors", methodMetrics, m -> m.getErrorCount(errorClass))
+                        .tags(tags).tag("error", errorClass.name()).register(registry);
+            }
+            FunctionCounter.builder("restclient.retries", methodMetrics, MethodMetrics::getRetryCount).tags(tags)
+                    .register(registry);
+            FunctionCounter
+                    .builder("restclient.retries.rejected", methodMetrics, MethodMetrics::getRetryRejectedCount)
+                    .tags(tags).register(registry);
+            FunctionCounter.builder("restclient.hedges", methodMetrics, MethodMetrics::getHedgeCount).tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("restclient.hedges.won", methodMetrics, MethodMetrics::getHedgeWonCount)
+                    .tags(tags).register(registry);
+            LatencyHistogram latency = methodMetrics.getLatency();
+            FunctionTimer.builder("restclient.latency", latency, LatencyHistogram::getCount,
+                    l -> l.getTotalTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS).tags(tags).register(registry);
+            Gauge.builder("restclient.latency.max", latency, l -> l.getMax(TimeUnit.NANOSECONDS) / 1e9).tags(tags)
+                    .baseUnit("seconds").register(registry);
+            for (double percentile : PERCENTILES) {
+                Gauge.builder("restclient.latency.percentile", latency,
+                        l -> l.getPercentile(percentile, TimeUnit.SECONDS)).tags(tags)
+                        .tag("percentile", String.valueOf(percentile)).baseUnit("seconds").register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+
+/**
+ * Executes the request of one method with {@link RestOperations}.
+ */
+class RestOperationsMethodInvoker implements MethodInvoker {
+
+    private final RestOperations restOperations;
+    private final MethodMetaData methodMetaData;
+
+    /**
+     * Executes the asynchronous calls, <code>null</code> if the method returns
+     * the response body directly.
+     */
+    private final Executor executor;
+
+    /**
+     * <code>true</code> if the response extraction was prepared at parse time or
+     * there is no response and the requests are executed with a
+     * {@link RestTemplate}.
+     */
+    private final boolean prepared;
+
+    /**
+     * The {@link RestTemplate} if the {@link RestOperations} is one, otherwise
+     * <code>null</code>.
+     */
+    private final RestTemplate restTemplate;
+
+    /**
+     * The {@link Deadline} parameter, or <code>null</code>.
+     */
+    private final ParameterDesciption deadlineParameter;
+
+    /**
+     * The parameter which receives the response body, or <code>null</code>.
+     */
+    private final ParameterDesciption responseBodySink;
+
+    /**
+     * <code>true</code> if the method returns the number of bytes transferred to
+     * the {@link #responseBodySink}.
+     */
+    private final boolean returnsTransferredBytes;
+
+    /**
+     * The cache for the responses, <code>null</code> if the method is not cached.
+     */
+    private final HttpResponseCache responseCache;
+
+    /**
+     * Coalesces concurrent identical calls, <code>null</code> if the method is
+     * not coalesced.
+     */
+    private final SingleFlight singleFlight;
+
+    /**
+     * @param restOperations The {@link RestOperations} which executes the
+     *                       requests.
+     * @param methodMetaData The meta data of the method.
+     * @param executor       The {@link Executor} for methods returning a
+     *                       {@link CompletableFuture}, may be <code>null</code>
+     *                       for other methods.
+     * @throws IllegalStateException If the method returns a
+     *                               {@link CompletableFuture} and there is no
+     *                               {@link Executor}, or if the method streams
+     *                               or transfers the response and the
+     *                               {@link RestOperations} is not a
+     *                               {@link RestTemplate}.
+     */
+    public RestOperationsMethodInvoker(RestOperations restOperations, MethodMetaData methodMetaData,
+            Executor executor) {
+        this(restOperations, methodMetaData, executor, null);
+    }
+
+    /**
+     * @param restOperations The {@link RestOperations} which executes the
+     *                       requests.
+     * @param methodMetaData The meta data of the method.
+     * @param executor       The {@link Executor} for methods returning a
+     *                       {@link CompletableFuture}, may be <code>null</code>
+     *                       for other methods.
+     * @param responseCache  The {@link HttpResponseCache} for cached methods, may
+     *                       be <code>null</code> for other methods.
+     * @throws IllegalStateException If the method returns a
+     *                               {@link CompletableFuture} and there is no
+     *                               {@link Executor}, if the method is cached and
+     *                               there is no {@link HttpResponseCache}, or if
+     *                               the method streams, transfers or caches the
+     *                               response and the {@link RestOperations} is
+     *                               not a {@link RestTemplate}.
+     */
+    public RestOperationsMethodInvoker(RestOperations restOperations, MethodMetaData methodMetaData,
+            Executor executor, HttpResponseCache responseCache) {
+        super();
+        this.restOperations = restOperations;
+        this.methodMetaData = methodMetaData;
+        if (methodMetaData.getReturnType() == ReturnType.CompletableFuture) {
+            Assert.state(executor != null, () -> "Method " + methodMetaData.getMethod()
+                    + " returns a CompletableFuture, but no executor is configured");
+            this.executor = executor;
+        } else {
+            this.executor = null;
+        }
+        this.restTemplate = restOperations instanceof RestTemplate ? (RestTemplate) restOperations : null;
+        this.prepared = restTemplate != null
+                && (methodMetaData.getResponseExtractor() != null || methodMetaData.hasNoResponse());
+        ParameterDesciption[] sinks = methodMetaData.getParameterDesciptions(Type.ResponseBodySink);
+        this.responseBodySink = sinks.length > 0 ? sinks[0] : null;
+        ParameterDesciption[] deadlines = methodMetaData.getParameterDesciptions(Type.Deadline);
+        this.deadlineParameter = deadlines.length > 0 ? deadlines[0] : null;
+        java.lang.reflect.Type responseType = methodMetaData.getResponseType().getType();
+        this.returnsTransferredBytes = responseType == long.class || responseType == Long.class;
+        if (methodMetaData.isCached()) {
+            Assert.state(responseCache != null,
+                    () -> "Method " + methodMetaData.getMethod() + " is cached, but no HttpResponseCache is configured");
+            this.responseCache = responseCache;
+        } else {
+            this.responseCache = null;
+        }
+        this.singleFlight = methodMetaData.isCoalesced() ? new SingleFlight() : null;
+        if (methodMetaData.getReturnType().isStreaming() || methodMetaData.getReturnType().isRawBody()
+                || responseBodySink != null || methodMetaData.isStreamingRequestBody() || this.responseCache != null) {
+            Assert.state(restTemplate != null, () -> "Method " + methodMetaData.getMethod()
+                    + " streams the request or response, but the RestOperations is not a RestTemplate");
+        }
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(Deadline.wrap(() -> execute(arguments)), executor);
+        }
+        return execute(arguments);
+    }
+
+    /**
+     * Returns the earlier of the deadline parameter and the deadline of the
+     * thread.
+     */
+    private Deadline deadline(Object[] arguments) {
+        Deadline deadline = Deadline.current();
+        return deadlineParameter != null
+                ? Deadline.earliest((Deadline) deadlineParameter.getArgumentValue(arguments), deadline)
+                : deadline;
+    }
+
+    /**
+     * Executes the request with the timeouts of the method, capped by the
+     * deadline of the call.
+     */
+    private Object execute(Object[] arguments) {
+        MethodTimeouts timeouts = methodMetaData.getTimeouts();
+        Deadline deadline = deadline(arguments);
+        if (deadline == null && timeouts == MethodTimeouts.NONE) {
+            return execute(arguments, null, null);
+        }
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException(
+                    "Deadline of method " + methodMetaData.getMethod().getName() + " expired before the request");
+        }
+        // a coalesced request is shared by callers with different deadlines
+        String deadlineHeader = deadline != null && singleFlight == null ? timeouts.getDeadlineHeader() : null;
+        return PooledHttpTransport.withTimeouts(MethodTimeouts.cap(timeouts.getConnectTimeout(), deadline),
+                MethodTimeouts.cap(timeouts.getReadTimeout(), deadline),
+                () -> execute(arguments, deadlineHeader, deadline));
+    }
+
+    /**
+     * @param deadlineHeader The header which forwards the deadline, may be
+     *                       <code>null</code>.
+     */
+    private Object execute(Object[] arguments, String deadlineHeader, Deadline deadline) {
+        HttpHeaders httpHeaders = MethodInvoker.buildHttpHeaders(methodMetaData, arguments);
+        if (deadlineHeader != null) {
+            httpHeaders.set(deadlineHeader, String.valueOf(Math.max(0, deadline.remaining(TimeUnit.MILLISECONDS))));
+        }
+        Object body = MethodInvoker.buildBody(methodMetaData, arguments);
+
+        HttpEntity<?> requestEntity = new HttpEntity<>(body, httpHeaders);
+
+        URI uri = methodMetaData.getUriTemplate().expand(arguments);
+
+        if (methodMetaData.getReturnType().isStreaming()) {
+            return stream(uri, requestCallback(requestEntity, arguments));
+        }
+        if (methodMetaData.getReturnType().isRawBody()) {
+            ClientHttpResponse response = StreamingResponseExecutor.execute(restTemplate, uri,
+                    methodMetaData.getHttpMethod(), requestCallback(requestEntity, arguments));
+            return methodMetaData.getReturnType() == ReturnType.InputStream
+                    ? ResponseBodyTransfer.inputStream(response)
+                    : ResponseBodyTransfer.readableChannel(response);
+        }
+        if (responseBodySink != null) {
+            return transfer(uri, requestCallback(requestEntity, arguments),
+                    responseBodySink.getArgumentValue(arguments));
+        }
+        if (singleFlight != null) {
+            return singleFlight.execute(new SingleFlight.RequestKey(uri, httpHeaders),
+                    () -> getBody(exchange(uri, requestEntity, arguments)));
+        }
+        return getBody(exchange(uri, requestEntity, arguments));
+    }
+
+    private static Object getBody(ResponseEntity<?> result) {
+        return result != null ? result.getBody() : null;
+    }
+
+    private ResponseEntity<?> exchange(URI uri, HttpEntity<?> requestEntity, Object[] arguments) {
+        if (responseCache != null) {
+            if (prepared) {
+                return responseCache.exchange(restTemplate, uri, requestEntity, restTemplate::httpEntityCallback,
+                        methodMetaData.getResponseExtractor());
+            }
+            java.lang.reflect.Type responseType = methodMetaData.getResponseType().getType();
+            return responseCache.exchange(restTemplate, uri, requestEntity,
+                    entity -> restTemplate.httpEntityCallback(entity, responseType),
+                    restTemplate.responseEntityExtractor(responseType));
+        }
+        if (prepared) {
+            // Accept header and response converters are already determined, no
+            // negotiation at call time
+            return restTemplate.execute(uri, methodMetaData.getHttpMethod(), requestCallback(requestEntity, arguments),
+                    methodMetaData.getResponseExtractor());
+        }
+        if (methodMetaData.isStreamingRequestBody()) {
+            return restTemplate.execute(uri, methodMetaData.getHttpMethod(), requestCallback(requestEntity, arguments),
+                    restTemplate.responseEntityExtractor(methodMetaData.getResponseType().getType()));
+        }
+        return restOperations.exchange(uri, methodMetaData.getHttpMethod(), requestEntity,
+                methodMetaData.getResponseType());
+    }
+
+    /**
+     * Returns the callback which writes the request. A streaming request body is
+     * written without message conversion.
+     */
+    private RequestCallback requestCallback(HttpEntity<?> requestEntity, Object[] arguments) {
+        if (!methodMetaData.isStreamingRequestBody()) {
+            return restTemplate.httpEntityCallback(requestEntity);
+        }
+        ParameterDesciption[] parts = methodMetaData.getParameterDesciptions(Type.RequestPart);
+        if (parts.length > 0) {
+            return StreamingRequestCallback.forParts(requestEntity.getHeaders(), parts, arguments,
+                    restTemplate.getMessageConverters());
+        }
+        return StreamingRequestCallback.forBody(requestEntity.getHeaders(), requestEntity.getBody());
+    }
+
+    private Object transfer(URI uri, RequestCallback requestCallback, Object sink) {
+        ClientHttpResponse response = StreamingResponseExecutor.execute(restTemplate, uri,
+                methodMetaData.getHttpMethod(), requestCallback);
+        long transferred = ResponseBodyTransfer.transferTo(response, sink, ByteBufferPool.DEFAULT);
+        return returnsTransferredBytes ? transferred : null;
+    }
+
+    private Object stream(URI uri, RequestCallback requestCallback) {
+        ClientHttpResponse response = StreamingResponseExecutor.execute(restTemplate, uri,
+                methodMetaData.getHttpMethod(), requestCallback);
+        JsonArrayIterator<Object> iterator = new JsonArrayIterator<>(response, methodMetaData.getElementReader());
+        switch (methodMetaData.getReturnType()) {
+        case Iterator:
+            return iterator;
+        case Spliterator:
+            return iterator.spliterator();
+        default:
+            return StreamSupport.stream(iterator.spliterator(), false).onClose(iterator::close);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * The retry budget of a <code>RestClient</code>, shared by the
+ * <code>Retry</code> methods of the interface, so retries do not amplify an
+ * outage of the server.
+ * <p>
+ * The budget holds up to <code>maxTokens</code> tokens. Every failed attempt
+ * which could be retried takes one token, every successful call returns
+ * <code>tokenRatio</code> tokens. Retries are only allowed while more than half
+ * of the tokens are left. With the defaults, retries stop after five failures
+ * in a row, and in the long run are only allowed while fewer than one in eleven
+ * attempts fail. The tokens are counted lock-free.
+ */
+public final class RetryBudget {
+
+    public static final int DEFAULT_MAX_TOKENS = 10;
+
+    public static final double DEFAULT_TOKEN_RATIO = 0.1;
+
+    /**
+     * The tokens are counted in thousandths.
+     */
+    private static final long SCALE = 1000;
+
+    private final long maxTokens;
+
+    private final long threshold;
+
+    private final long tokenRatio;
+
+    private final AtomicLong tokens;
+
+    public RetryBudget() {
+        this(DEFAULT_MAX_TOKENS, DEFAULT_TOKEN_RATIO);
+    }
+
+    /**
+     * @param maxTokens  The maximum number of tokens.
+     * @param tokenRatio The tokens returned by a successful call.
+     */
+    public RetryBudget(int maxTokens, double tokenRatio) {
+        super();
+        Assert.isTrue(maxTokens > 0, "maxTokens must be positive");
+        Assert.isTrue(tokenRatio > 0, "tokenRatio must be positive");
+        this.maxTokens = maxTokens * SCALE;
+        this.threshold = this.maxTokens / 2;
+        this.tokenRatio = Math.max(1, Math.round(tokenRatio * SCALE));
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    /**
+     * Returns the number of tokens left.
+     */
+    public double getTokens() {
+        return (double) tokens.get() / SCALE;
+    }
+
+    /**
+     * Returns <code>true</code> if retries are currently allowed.
+     */
+    public boolean isRetryAllowed() {
+        return tokens.get() > threshold;
+    }
+
+    /**
+     * Records a failed attempt which could be retried.
+     *
+     * @return <code>true</code> if a retry is allowed.
+     */
+    boolean recordFailure() {
+        return tokens.updateAndGet(value -> Math.max(0, value - SCALE)) > threshold;
+    }
+
+    /**
+     * Records a successful call. Does not write if the budget is full, which is
+     * the common case.
+     */
+    void recordSuccess() {
+        if (tokens.get() < maxTokens) {
+            tokens.updateAndGet(value -> Math.min(maxTokens, value + tokenRatio));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.leoniedermeier.restclient.annotation.Retry;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+import reactor.core.publisher.Mono;
+
+/**
+ * Retries the failed calls of a {@link MethodInvoker} according to the
+ * {@link Retry} annotation of the method.
+ * <p>
+ * A blocking call sleeps in the calling thread between the attempts. A
+ * <code>CompletableFuture</code> is completed with the result of the last
+ * attempt, the following attempt is scheduled after the delay. A
+ * <code>Mono</code> is subscribed again after the delay.
+ * <p>
+ * A blocking call or a <code>CompletableFuture</code> is not retried if its
+ * {@link Deadline} expires before the delay has elapsed, it fails with the
+ * error of the last attempt instead.
+ */
+class RetryingMethodInvoker implements MethodInvoker {
+
+    /**
+     * Retries a <code>Mono</code> by subscribing it again. Reactor is optional,
+     * this class is only loaded for a method returning a <code>Mono</code>.
+     */
+    private final class ReactiveRetry {
+
+        private Mono<Object> attempt(Mono<Object> mono, int attempt) {
+            return mono.doOnSuccess(value -> budget.recordSuccess())
+                    .onErrorResume(error -> {
+                        long delay = delay(attempt);
+                        return shouldRetry(error, attempt, delay, null) ? Mono.delay(Duration.ofMillis(delay))
+                                .then(Mono.defer(() -> attempt(mono, attempt + 1))) : Mono.error(error);
+                    });
+        }
+
+        int getRawStatusCode(Throwable error) {
+            return error instanceof WebClientResponseException
+                    ? ((WebClientResponseException) error).getRawStatusCode()
+                    : -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object invoke(Object[] arguments) {
+            return attempt((Mono<Object>) methodInvoker.invoke(arguments), 1);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause()
+                : throwable;
+    }
+
+    private final RetryBudget budget;
+
+    /**
+     * The {@link Deadline} parameter of the method, may be <code>null</code>.
+     */
+    private final ParameterDesciption deadlineParameter;
+
+    private final MethodInvoker methodInvoker;
+
+    private final MethodMetrics methodMetrics;
+
+    /**
+     * Retries the <code>Mono</code> results, <code>null</code> for other methods.
+     */
+    private final ReactiveRetry reactiveRetry;
+
+    private final Retry retry;
+
+    private final ReturnType returnType;
+
+    private final int[] statuses;
+
+    /**
+     * @param methodMetrics     The metrics which count the retries, may be
+     *                          <code>null</code>.
+     * @param deadlineParameter The {@link Deadline} parameter of the method, may
+     *                          be <code>null</code>.
+     */
+    RetryingMethodInvoker(MethodInvoker methodInvoker, Retry retry, ReturnType returnType, RetryBudget budget,
+            MethodMetrics methodMetrics, ParameterDesciption deadlineParameter) {
+        super();
+        this.deadlineParameter = deadlineParameter;
+        this.methodInvoker = methodInvoker;
+        this.retry = retry;
+        this.returnType = returnType;
+        this.budget = budget;
+        this.methodMetrics = methodMetrics;
+        this.statuses = retry.statuses().clone();
+        Arrays.sort(statuses);
+        this.reactiveRetry = returnType == ReturnType.Mono ? new ReactiveRetry() : null;
+    }
+
+    private void attempt(Object[] arguments, int attempt, CompletableFuture<Object> result) {
+        // the future may complete in another thread, the deadline is taken from this one
+        Runnable retry = Deadline.wrap(() -> attempt(arguments, attempt + 1, result));
+        Deadline deadline = deadline(arguments);
+        CompletableFuture<?> future;
+        try {
+            future = (CompletableFuture<?>) methodInvoker.invoke(arguments);
+        } catch (RuntimeException | Error ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                budget.recordSuccess();
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            long delay = delay(attempt);
+            if (shouldRetry(cause, attempt, delay, deadline)) {
+                DelayScheduler.schedule(retry, delay, TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Returns the earlier of the deadline parameter and the deadline of the
+     * current thread, <code>null</code> if there is none.
+     */
+    private Deadline deadline(Object[] arguments) {
+        Deadline deadline = Deadline.current();
+        return deadlineParameter != null
+                ? Deadline.earliest((Deadline) deadlineParameter.getArgumentValue(arguments), deadline)
+                : deadline;
+    }
+
+    /**
+     * Returns the delay in milliseconds before the retry which follows the given
+     * attempt.
+     */
+    long delay(int attempt) {
+        double delay = Math.min(retry.maxBackoff(), retry.backoff() * Math.pow(retry.multiplier(), attempt - 1));
+        return (long) (delay * (1 - retry.jitter() * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        if (returnType == ReturnType.CompletableFuture) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            attempt(arguments, 1, result);
+            return result;
+        }
+        if (reactiveRetry != null) {
+            return reactiveRetry.invoke(arguments);
+        }
+        Deadline deadline = deadline(arguments);
+        for (int attempt = 1;; attempt++) {
+            Object result;
+            try {
+                result = methodInvoker.invoke(arguments);
+            } catch (RuntimeException ex) {
+                long delay = delay(attempt);
+                if (!shouldRetry(ex, attempt, delay, deadline)) {
+                    throw ex;
+                }
+                sleep(delay, ex);
+                continue;
+            }
+            budget.recordSuccess();
+            return result;
+        }
+    }
+
+    private boolean isRetryable(Throwable error) {
+        int status = error instanceof RestClientResponseException
+                ? ((RestClientResponseException) error).getRawStatusCode()
+                : reactiveRetry != null ? reactiveRetry.getRawStatusCode(error) : -1;
+        if (status >= 0 && Arrays.binarySearch(statuses, status) >= 0) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            for (Class<? extends Throwable> exception : retry.exceptions()) {
+                if (exception.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decides whether the failed attempt is retried and records it in the budget
+     * and the metrics.
+     *
+     * @param delay    The delay in milliseconds before the retry.
+     * @param deadline The deadline of the call, may be <code>null</code>.
+     */
+    private boolean shouldRetry(Throwable error, int attempt, long delay, Deadline deadline) {
+        if (!isRetryable(error)) {
+            return false;
+        }
+        boolean allowed = budget.recordFailure();
+        if (attempt >= retry.maxAttempts() || deadline != null && deadline.remaining(TimeUnit.MILLISECONDS) <= delay) {
+            return false;
+        }
+        if (methodMetrics != null) {
+            methodMetrics.recordRetry(allowed);
+        }
+        return allowed;
+    }
+
+    private static void sleep(long millis, RuntimeException error) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.util.Assert;
+
+import io.github.leoniedermeier.restclient.annotation.CircuitBreaker;
+
+/**
+ * The circuit breaker of a <code>RestClient</code> or of one of its methods,
+ * configured by a {@link CircuitBreaker} annotation.
+ * <p>
+ * The outcomes of the recent calls are stored in a ring buffer. Recording an
+ * outcome replaces the oldest one and adjusts the counters of the window, all
+ * without locks. When the circuit breaker closes after the half open state, it
+ * starts with a new window, outcomes recorded concurrently in the old window
+ * are dropped.
+ * <p>
+ * If the outcome of a trial call is not recorded within the open duration, but
+ * at least {@link #MIN_TRIAL_TIMEOUT}, for example because a streamed result
+ * was abandoned without being closed, the circuit breaker opens again instead
+ * of staying half open.
+ */
+public final class RingBufferCircuitBreaker {
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * All calls are permitted.
+         */
+        Closed,
+        /**
+         * All calls are rejected.
+         */
+        Open,
+        /**
+         * A limited number of trial calls is permitted.
+         */
+        HalfOpen
+    }
+
+    private static final class Window {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private final AtomicIntegerArray outcomes;
+
+        private final AtomicLong position = new AtomicLong();
+
+        Window(int size) {
+            super();
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+    }
+
+    private static final int EMPTY = 0;
+
+    private static final int FAILURE = 2;
+
+    private static final int SUCCESS = 1;
+
+    /**
+     * The minimum time in nanoseconds after which the trial calls of the half
+     * open state are given up.
+     */
+    static final long MIN_TRIAL_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    private final int failureRateThreshold;
+
+    private final int halfOpenCalls;
+
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    private final int minimumCalls;
+
+    private final long openDuration;
+
+    private volatile long openedAt;
+
+    private final int slidingWindowSize;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.Closed);
+
+    private final long trialTimeout;
+
+    private volatile Window window;
+
+    public RingBufferCircuitBreaker(CircuitBreaker circuitBreaker) {
+        super();
+        Assert.isTrue(circuitBreaker.slidingWindowSize() > 0, "slidingWindowSize must be positive");
+        Assert.isTrue(circuitBreaker.halfOpenCalls() > 0, "halfOpenCalls must be positive");
+        this.failureRateThreshold = circuitBreaker.failureRateThreshold();
+        this.halfOpenCalls = circuitBreaker.halfOpenCalls();
+        this.minimumCalls = Math.max(1, Math.min(circuitBreaker.minimumCalls(), circuitBreaker.slidingWindowSize()));
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(circuitBreaker.openDuration());
+        this.slidingWindowSize = circuitBreaker.slidingWindowSize();
+        this.trialTimeout = Math.max(openDuration, MIN_TRIAL_TIMEOUT);
+        this.window = new Window(slidingWindowSize);
+    }
+
+    /**
+     * Returns the percentage of the failed calls in the window.
+     *
+     * @return The failure rate, <code>-1</code> if fewer than the minimum number
+     *         of calls were recorded.
+     */
+    public float getFailureRate() {
+        Window current = window;
+        int calls = current.calls.get();
+        return calls < minimumCalls ? -1 : current.failures.get() * 100f / calls;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void open(State expected) {
+        // the fields are written before the state, which publishes them
+        halfOpenPermits.set(halfOpenCalls);
+        halfOpenSuccesses.set(0);
+        openedAt = System.nanoTime();
+        state.compareAndSet(expected, State.Open);
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     *
+     * @param failure <code>true</code> if the call failed.
+     */
+    void record(boolean failure) {
+        State current = state.get();
+        if (current == State.HalfOpen) {
+            if (failure) {
+                open(State.HalfOpen);
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls
+                    && state.compareAndSet(State.HalfOpen, State.Closed)) {
+                window = new Window(slidingWindowSize);
+            }
+            return;
+        }
+        if (current == State.Open) {
+            // a call permitted before the circuit breaker opened
+            return;
+        }
+        Window currentWindow = window;
+        int index = (int) (currentWindow.position.getAndIncrement() % slidingWindowSize);
+        int previous = currentWindow.outcomes.getAndSet(index, failure ? FAILURE : SUCCESS);
+        int calls = previous == EMPTY ? currentWindow.calls.incrementAndGet() : currentWindow.calls.get();
+        int delta = (failure ? 1 : 0) - (previous == FAILURE ? 1 : 0);
+        int failures = delta == 0 ? currentWindow.failures.get() : currentWindow.failures.addAndGet(delta);
+        if (failure && calls >= minimumCalls && failures * 100L >= (long) failureRateThreshold * calls) {
+            open(State.Closed);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a call is permitted. In the half open state,
+     * every permitted call takes one of the trial permits.
+     */
+    boolean tryAcquirePermission() {
+        return tryAcquirePermission(System.nanoTime());
+    }
+
+    boolean tryAcquirePermission(long now) {
+        State current = state.get();
+        if (current == State.Closed) {
+            return true;
+        }
+        if (current == State.Open) {
+            if (now - openedAt < openDuration) {
+                return false;
+            }
+            state.compareAndSet(State.Open, State.HalfOpen);
+        }
+        if (state.get() != State.HalfOpen) {
+            return false;
+        }
+        if (halfOpenPermits.getAndUpdate(permits -> permits > 0 ? permits - 1 : 0) > 0) {
+            return true;
+        }
+        if (now - openedAt - openDuration >= trialTimeout) {
+            // the outcome of a trial call was never recorded
+            open(State.HalfOpen);
+        }
+        return false;
+    }
+}
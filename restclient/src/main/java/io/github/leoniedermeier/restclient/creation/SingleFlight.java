@@ -0,0 +1,89 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Shares the result of a call in flight with the concurrent calls for the same
+ * request. The calls in flight are held in a {@link ConcurrentHashMap}, so an
+ * uncontended call only adds and removes its entry without locking.
+ */
+final class SingleFlight {
+
+    /**
+     * The URI and the headers of a request.
+     */
+    static final class RequestKey {
+
+        private final int hash;
+
+        private final HttpHeaders headers;
+
+        private final URI uri;
+
+        RequestKey(URI uri, HttpHeaders headers) {
+            this.uri = uri;
+            this.headers = headers;
+            this.hash = 31 * uri.hashCode() + headers.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) obj;
+            return hash == other.hash && uri.equals(other.uri) && headers.equals(other.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ConcurrentHashMap<RequestKey, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Executes the call, or waits for the call in flight with the same key.
+     *
+     * @param key  The key of the request.
+     * @param call Executes the request and returns its result.
+     * @return The result of the own call or of the call in flight.
+     */
+    Object execute(RequestKey key, Supplier<Object> call) {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = calls.putIfAbsent(key, own);
+        if (inFlight != null) {
+            coalesced.increment();
+            return MethodInvoker.await(inFlight);
+        }
+        try {
+            Object result = call.get();
+            calls.remove(key, own);
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            calls.remove(key, own);
+            own.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the number of calls which received the result of a call in flight.
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestClientException;
+
+import io.github.leoniedermeier.restclient.creation.CompressingClientHttpRequestFactory.SingleUseBody;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+
+/**
+ * Writes a <code>Path</code> or <code>InputStream</code> request body, or the
+ * <code>RequestPart</code> arguments as <code>multipart/form-data</code>, to
+ * the request without converting it to an intermediate <code>byte[]</code>.
+ * The content is copied through a small buffer, the length of a
+ * <code>Path</code> body is sent as <code>Content-Length</code>. If the request
+ * is a {@link StreamingHttpOutputMessage}, the body is written when the request
+ * is sent. A body which copies an <code>InputStream</code> is a
+ * {@link SingleUseBody}, it cannot be written twice.
+ * <p>
+ * The body is only streamed if the request factory streams: a
+ * <code>RestTemplate</code> with interceptors, and the
+ * <code>HttpComponentsClientHttpRequestFactory</code>,
+ * <code>SimpleClientHttpRequestFactory</code> and
+ * <code>OkHttp3ClientHttpRequestFactory</code> with their default settings,
+ * collect the whole body in memory. Set <code>bufferRequestBody</code> to
+ * <code>false</code> for large bodies; a warning is logged for each type of
+ * buffering request.
+ */
+final class StreamingRequestCallback implements RequestCallback {
+
+    /**
+     * Writes the headers of a part before its body.
+     */
+    private static final class PartOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private boolean headersWritten;
+
+        private final OutputStream outputStream;
+
+        PartOutputMessage(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (!headersWritten) {
+                headersWritten = true;
+                for (String name : headers.keySet()) {
+                    for (String value : headers.get(name)) {
+                        writeAscii(outputStream, name + ": " + value + "\r\n");
+                    }
+                }
+                writeAscii(outputStream, "\r\n");
+            }
+            return StreamUtils.nonClosing(outputStream);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headersWritten ? HttpHeaders.readOnlyHttpHeaders(headers) : headers;
+        }
+    }
+
+    /**
+     * The package private base class of the Spring requests which collect the
+     * body in a <code>byte[]</code> before it is sent.
+     */
+    private static final Class<?> BUFFERING_REQUEST = ClassUtils.resolveClassName(
+            "org.springframework.http.client.AbstractBufferingClientHttpRequest",
+            StreamingRequestCallback.class.getClassLoader());
+
+    /**
+     * The types of the buffering requests which a warning was logged for.
+     */
+    private static final Set<Class<?>> BUFFERING_REQUESTS_WARNED = ConcurrentHashMap.newKeySet();
+
+    private static final Log logger = LogFactory.getLog(StreamingRequestCallback.class);
+
+    /**
+     * Creates the callback for a <code>Path</code> or <code>InputStream</code>
+     * request body.
+     */
+    static StreamingRequestCallback forBody(HttpHeaders headers, Object body) {
+        return new StreamingRequestCallback(headers, body, null, null, null);
+    }
+
+    /**
+     * Creates the callback for the <code>RequestPart</code> arguments.
+     *
+     * @param converters The converters for the parts which are neither a
+     *                   <code>Path</code>, an <code>InputStream</code>, a
+     *                   <code>byte[]</code> nor a <code>String</code>.
+     */
+    static StreamingRequestCallback forParts(HttpHeaders headers, ParameterDesciption[] parts, Object[] arguments,
+            List<HttpMessageConverter<?>> converters) {
+        return new StreamingRequestCallback(headers, null, parts, arguments, converters);
+    }
+
+    /**
+     * Returns <code>true</code> if the request collects the body in memory.
+     */
+    static boolean isBuffering(ClientHttpRequest request) {
+        return BUFFERING_REQUEST.isInstance(request);
+    }
+
+    private static void writeAscii(OutputStream outputStream, String value) throws IOException {
+        outputStream.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeBody(Object body, OutputStream outputStream) throws IOException {
+        if (body instanceof Path) {
+            Files.copy((Path) body, outputStream);
+        } else {
+            try (InputStream inputStream = (InputStream) body) {
+                StreamUtils.copy(inputStream, outputStream);
+            }
+        }
+        outputStream.flush();
+    }
+
+    private final Object[] arguments;
+
+    private final Object body;
+
+    private final List<HttpMessageConverter<?>> converters;
+
+    private final HttpHeaders headers;
+
+    private final ParameterDesciption[] parts;
+
+    private StreamingRequestCallback(HttpHeaders headers, Object body, ParameterDesciption[] parts,
+            Object[] arguments, List<HttpMessageConverter<?>> converters) {
+        this.headers = headers;
+        this.body = body;
+        this.parts = parts;
+        this.arguments = arguments;
+        this.converters = converters;
+    }
+
+    @Override
+    public void doWithRequest(ClientHttpRequest request) throws IOException {
+        HttpHeaders requestHeaders = request.getHeaders();
+        requestHeaders.putAll(headers);
+        StreamingHttpOutputMessage.Body writer;
+        if (parts != null) {
+            String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+            requestHeaders.setContentType(new MediaType(MediaType.MULTIPART_FORM_DATA,
+                    Collections.singletonMap("boundary", boundary)));
+            writer = Arrays.stream(parts).anyMatch(part -> part.getArgumentValue(arguments) instanceof InputStream)
+                    ? (SingleUseBody) outputStream -> writeParts(boundary, outputStream)
+                    : outputStream -> writeParts(boundary, outputStream);
+        } else if (body != null) {
+            if (requestHeaders.getContentType() == null) {
+                requestHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            }
+            if (body instanceof Path) {
+                requestHeaders.setContentLength(Files.size((Path) body));
+            }
+            writer = body instanceof InputStream ? (SingleUseBody) outputStream -> writeBody(body, outputStream)
+                    : outputStream -> writeBody(body, outputStream);
+        } else {
+            return;
+        }
+        if (isBuffering(request) && BUFFERING_REQUESTS_WARNED.add(request.getClass())) {
+            logger.warn("The request body is buffered in memory by " + request.getClass().getName()
+                    + ", use a request factory which streams the body, e.g. with bufferRequestBody set to false");
+        }
+        if (request instanceof StreamingHttpOutputMessage) {
+            ((StreamingHttpOutputMessage) request).setBody(writer);
+        } else {
+            writer.writeTo(request.getBody());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeConverted(Object value, PartOutputMessage part) throws IOException {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(value.getClass(), null)) {
+                ((HttpMessageConverter<Object>) converter).write(value, null, part);
+                return;
+            }
+        }
+        throw new RestClientException("No HttpMessageConverter for part of type " + value.getClass().getName());
+    }
+
+    private void writeParts(String boundary, OutputStream outputStream) throws IOException {
+        for (ParameterDesciption part : parts) {
+            Object value = part.getArgumentValue(arguments);
+            if (value == null) {
+                continue;
+            }
+            writeAscii(outputStream, "--" + boundary + "\r\n");
+            PartOutputMessage message = new PartOutputMessage(outputStream);
+            ContentDisposition.Builder disposition = ContentDisposition.builder("form-data").name(part.getName());
+            if (value instanceof Path) {
+                disposition.filename(((Path) value).getFileName().toString());
+            }
+            message.getHeaders().setContentDisposition(disposition.build());
+            if (value instanceof Path || value instanceof InputStream || value instanceof byte[]) {
+                message.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                if (value instanceof byte[]) {
+                    message.getBody().write((byte[]) value);
+                } else {
+                    writeBody(value, message.getBody());
+                }
+            } else if (value instanceof String) {
+                message.getHeaders().setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+                message.getBody().write(((String) value).getBytes(StandardCharsets.UTF_8));
+            } else {
+                writeConverted(value, message);
+            }
+            writeAscii(outputStream, "\r\n");
+        }
+        writeAscii(outputStream, "--" + boundary + "--\r\n");
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Executes a request with the request factory, interceptors and error handler
+ * of a {@link RestTemplate}, but does not close the response. The caller reads
+ * the body incrementally and is responsible to close the response.
+ */
+final class StreamingResponseExecutor {
+
+    /**
+     * Executes the request.
+     *
+     * @param restTemplate    The {@link RestTemplate} which provides the
+     *                        request factory, the initializers and the error
+     *                        handler.
+     * @param uri             The URI.
+     * @param httpMethod      The HTTP method.
+     * @param requestCallback The callback which writes the request.
+     * @return The open response, never <code>null</code>.
+     * @throws ResourceAccessException If an I/O error occurs.
+     */
+    static ClientHttpResponse execute(RestTemplate restTemplate, URI uri, HttpMethod httpMethod,
+            RequestCallback requestCallback) {
+        ClientHttpResponse response = null;
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, httpMethod);
+            restTemplate.getClientHttpRequestInitializers().forEach(initializer -> initializer.initialize(request));
+            requestCallback.doWithRequest(request);
+            response = request.execute();
+            ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+            if (errorHandler.hasError(response)) {
+                errorHandler.handleError(uri, httpMethod, response);
+            }
+            return response;
+        } catch (IOException ex) {
+            close(response);
+            throw new ResourceAccessException(
+                    "I/O error on " + httpMethod.name() + " request for \"" + uri + "\": " + ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            close(response);
+            throw ex;
+        }
+    }
+
+    private static void close(ClientHttpResponse response) {
+        if (response != null) {
+            response.close();
+        }
+    }
+
+    private StreamingResponseExecutor() {
+        // only static methods
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.net.URI;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClient.RequestBodySpec;
+import org.springframework.web.reactive.function.client.WebClient.RequestHeadersSpec;
+import org.springframework.web.reactive.function.client.WebClient.ResponseSpec;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+
+/**
+ * Executes the request of a method returning a <code>Mono</code> or a
+ * <code>Flux</code> non blocking with a {@link WebClient}. The request is sent
+ * when the returned publisher is subscribed.
+ */
+class WebClientMethodInvoker implements MethodInvoker {
+
+    private final MethodMetaData methodMetaData;
+
+    private final WebClient webClient;
+
+    /**
+     * @param webClient The {@link WebClient}, typed as {@link Object} like the
+     *                  property of the {@link RestClientFactoryBean}.
+     * @throws IllegalArgumentException If the object is not a {@link WebClient}.
+     */
+    WebClientMethodInvoker(Object webClient, MethodMetaData methodMetaData) {
+        super();
+        Assert.isInstanceOf(WebClient.class, webClient, "The webClient of the RestClientFactoryBean");
+        this.webClient = (WebClient) webClient;
+        this.methodMetaData = methodMetaData;
+    }
+
+    @Override
+    public Object invoke(Object[] arguments) {
+        HttpHeaders httpHeaders = MethodInvoker.buildHttpHeaders(methodMetaData, arguments);
+        Object body = MethodInvoker.buildBody(methodMetaData, arguments);
+        URI uri = methodMetaData.getUriTemplate().expand(arguments);
+
+        RequestBodySpec request = webClient.method(methodMetaData.getHttpMethod()).uri(uri)
+                .headers(headers -> headers.addAll(httpHeaders));
+        RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+        ResponseSpec response = requestWithBody.retrieve();
+
+        @SuppressWarnings("unchecked")
+        ParameterizedTypeReference<Object> responseType = (ParameterizedTypeReference<Object>) methodMetaData
+                .getResponseType();
+        if (methodMetaData.getReturnType() == ReturnType.Flux) {
+            return response.bodyToFlux(responseType);
+        }
+        if (methodMetaData.hasNoResponse()) {
+            return response.bodyToMono(Void.class);
+        }
+        return response.bodyToMono(responseType);
+    }
+}
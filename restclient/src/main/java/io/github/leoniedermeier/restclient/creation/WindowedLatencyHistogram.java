@@ -0,0 +1,179 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram over the recent past: two windows of the same length
+ * alternate, the older one is cleared when a new window starts. A percentile is
+ * computed over both windows, so it covers between one and two window lengths
+ * and old latencies are forgotten.
+ * <p>
+ * The buckets are exponential like the ones of the {@link LatencyHistogram}, a
+ * percentile is interpolated linearly within its bucket and limited by the
+ * maximum latency. Latencies recorded while the windows rotate may be lost, the
+ * histogram is an estimate.
+ */
+final class WindowedLatencyHistogram {
+
+    /**
+     * The counts of one window.
+     */
+    private static final class Window {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private final AtomicLong max = new AtomicLong();
+
+        Window() {
+            super();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            buckets[value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value)].increment();
+            long currentMax = max.get();
+            while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+                currentMax = max.get();
+            }
+        }
+
+        void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            max.set(0);
+        }
+    }
+
+    private static final int BUCKETS = 64;
+
+    /**
+     * The default length of a window, 30 seconds.
+     */
+    static final long DEFAULT_WINDOW = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * The index of the window which records.
+     */
+    private volatile int current;
+
+    private final long windowLength;
+
+    private final Window[] windows = { new Window(), new Window() };
+
+    /**
+     * The {@link System#nanoTime()} at which the current window ends.
+     */
+    private final AtomicLong windowEnd;
+
+    WindowedLatencyHistogram() {
+        this(DEFAULT_WINDOW, System.nanoTime());
+    }
+
+    /**
+     * @param windowLength The length of a window in nanoseconds.
+     * @param now          The current {@link System#nanoTime()}.
+     */
+    WindowedLatencyHistogram(long windowLength, long now) {
+        super();
+        this.windowLength = windowLength;
+        this.windowEnd = new AtomicLong(now + windowLength);
+    }
+
+    long getCount() {
+        return getCount(System.nanoTime());
+    }
+
+    /**
+     * Returns the number of latencies in both windows.
+     */
+    long getCount(long now) {
+        rotate(now);
+        long count = 0;
+        for (Window window : windows) {
+            for (LongAdder bucket : window.buckets) {
+                count += bucket.sum();
+            }
+        }
+        return count;
+    }
+
+    double getPercentile(double percentile, TimeUnit unit) {
+        return getPercentile(percentile, unit, System.nanoTime());
+    }
+
+    /**
+     * Returns the approximate percentile of the latencies in both windows.
+     *
+     * @param percentile The percentile between 0 and 1, e.g. 0.95.
+     * @param unit       The unit of the result.
+     * @param now        The current {@link System#nanoTime()}.
+     * @return The percentile, 0 if no latency has been recorded.
+     */
+    double getPercentile(double percentile, TimeUnit unit, long now) {
+        rotate(now);
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long max = 0;
+        for (Window window : windows) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = window.buckets[i].sum();
+                counts[i] += count;
+                total += count;
+            }
+            max = Math.max(max, window.max.get());
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (seen + counts[i] >= rank) {
+                double lowerBound = i == 0 ? 0 : (double) (1L << i);
+                double upperBound = i >= 62 ? Long.MAX_VALUE : (double) (2L << i);
+                double value = lowerBound + (upperBound - lowerBound) * (rank - seen) / counts[i];
+                return Math.min(value, max) / unit.toNanos(1);
+            }
+            seen += counts[i];
+        }
+        return (double) max / unit.toNanos(1);
+    }
+
+    void record(long nanos) {
+        record(nanos, System.nanoTime());
+    }
+
+    /**
+     * Records a latency in the current window.
+     *
+     * @param nanos The latency in nanoseconds.
+     * @param now   The current {@link System#nanoTime()}.
+     */
+    void record(long nanos, long now) {
+        rotate(now);
+        windows[current].record(Math.max(0, nanos));
+    }
+
+    /**
+     * Starts a new window if the current one has ended. The thread which wins
+     * the update of the end clears the older window, and both windows if the
+     * current one has ended more than a window length ago.
+     */
+    private void rotate(long now) {
+        long end = windowEnd.get();
+        if (now - end < 0 || !windowEnd.compareAndSet(end, now + windowLength)) {
+            return;
+        }
+        int next = 1 - current;
+        windows[next].reset();
+        if (now - end >= windowLength) {
+            windows[current].reset();
+        }
+        current = next;
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.ConcurrencyLimit;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @RestClient(url = "http://my-uri")
+    @ConcurrencyLimit(initialLimit = 1, maxLimit = 1)
+    interface LimitedClient {
+
+        @RequestMapping(path = "/")
+        CompletableFuture<String> getAsync();
+
+        @RequestMapping(path = "/")
+        String get();
+    }
+
+    @ConcurrencyLimit(initialLimit = 20)
+    interface Growing {
+    }
+
+    @ConcurrencyLimit(initialLimit = 2, maxLimit = 2, maxWait = 5000, maxQueue = 1)
+    interface Queueing {
+    }
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AdaptiveConcurrencyLimiter limiter(Class<?> settings) {
+        return new AdaptiveConcurrencyLimiter(
+                AnnotatedElementUtils.findMergedAnnotation(settings, ConcurrencyLimit.class));
+    }
+
+    @Test
+    void limitGrowsAtBaselineLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(Growing.class);
+        for (int i = 0; i < 10; i++) {
+            limiter.record(10 * MILLIS, limiter.getLimit(), false);
+        }
+
+        assertTrue(limiter.getLimit() > 25, () -> "limit " + limiter.getLimit());
+        assertEquals(10, limiter.getMinRtt(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(Growing.class);
+        limiter.record(10 * MILLIS, 20, false);
+        int limit = limiter.getLimit();
+        for (int i = 0; i < 10; i++) {
+            limiter.record(40 * MILLIS, limiter.getLimit(), false);
+        }
+
+        assertTrue(limiter.getLimit() < limit * 3 / 4, () -> "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void limitDoesNotGrowIfFewPermitsAreUsed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(Growing.class);
+        for (int i = 0; i < 10; i++) {
+            limiter.record(10 * MILLIS, 1, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void droppedRequestDecreasesLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(Growing.class);
+        limiter.record(10 * MILLIS, 1, true);
+
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void waitingCallGetsReleasedPermit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(Queueing.class);
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(limiter::acquire);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (limiter.getQueueDepth() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, limiter.getQueueDepth());
+        // the queue is full
+        assertFalse(limiter.acquire());
+
+        limiter.release(MILLIS, false);
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void excessCallIsRejected() throws Exception {
+        List<Runnable> pending = new ArrayList<>();
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse("text".getBytes(), HttpStatus.OK));
+            return request;
+        });
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(LimitedClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        factoryBean.setExecutor(pending::add);
+        LimitedClient client = (LimitedClient) factoryBean.getObject();
+
+        CompletableFuture<String> first = client.getAsync();
+        assertThrows(CallRejectedException.class, client::get);
+        AdaptiveConcurrencyLimiter limiter = factoryBean.getConcurrencyLimiter();
+        assertEquals(1, limiter.getInFlight());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new RestClientMetricsBinder(factoryBean.getMetrics()).bindTo(registry);
+        assertNotNull(registry.find("restclient.concurrency.limit").gauge());
+        assertEquals(1, registry.find("restclient.concurrency.inflight").gauge().value());
+
+        pending.remove(0).run();
+        assertEquals("text", first.get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals("text", client.get());
+    }
+}
@@ -0,0 +1,201 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.Batched;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+class BatchingMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    interface BatchingClient {
+
+        @Batched(method = "getItems", maxSize = 3, window = 50, keyProperty = "id")
+        @RequestMapping(path = "/items/{id}")
+        CompletableFuture<Item> getItem(@PathVariable String id);
+
+        @RequestMapping(path = "/items:batch", method = RequestMethod.POST)
+        List<Item> getItems(@RequestBody List<String> ids);
+
+        @Batched(method = "getNames", maxSize = 1)
+        @RequestMapping(path = "/names/{id}")
+        String getName(@PathVariable Long id);
+
+        @RequestMapping(path = "/names:batch", method = RequestMethod.POST)
+        Map<Long, String> getNames(@RequestBody Set<Long> ids);
+    }
+
+    public static class Item {
+
+        private String id;
+
+        private String name;
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    private BatchingClient client;
+
+    private RestClientFactoryBean factoryBean;
+
+    private MockRestServiceServer server;
+
+    private BatchingClient createClient(Executor executor) throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(BatchingClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        factoryBean.setExecutor(executor);
+        return (BatchingClient) factoryBean.getObject();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = createClient(Runnable::run);
+    }
+
+    @Test
+    void fullBatchIsSentImmediately() {
+        server.expect(requestTo("http://my-uri/items:batch")).andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("[\"1\",\"2\"]"))
+                .andRespond(withSuccess("[{\"id\":\"2\",\"name\":\"b\"},{\"id\":\"1\",\"name\":\"a\"}]",
+                        MediaType.APPLICATION_JSON));
+
+        CompletableFuture<Item> first = client.getItem("1");
+        CompletableFuture<Item> second = client.getItem("2");
+        CompletableFuture<Item> third = client.getItem("1");
+
+        assertEquals("a", first.join().getName());
+        assertEquals("b", second.join().getName());
+        assertEquals("a", third.join().getName());
+        server.verify();
+    }
+
+    @Test
+    void batchIsSentAfterWindow() throws Exception {
+        server.expect(requestTo("http://my-uri/items:batch")).andExpect(content().json("[\"1\",\"3\"]"))
+                .andRespond(withSuccess("[{\"id\":\"1\",\"name\":\"a\"}]", MediaType.APPLICATION_JSON));
+
+        CompletableFuture<Item> first = client.getItem("1");
+        CompletableFuture<Item> missing = client.getItem("3");
+        assertFalse(first.isDone());
+
+        assertEquals("a", first.get(5, TimeUnit.SECONDS).getName());
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof RestClientException);
+        assertTrue(ex.getCause().getMessage().startsWith("No item for key 3 "), ex.getCause().getMessage());
+        server.verify();
+    }
+
+    @Test
+    void errorIsPassedToAllCalls() {
+        server.expect(requestTo("http://my-uri/items:batch")).andRespond(withServerError());
+
+        CompletableFuture<Item> first = client.getItem("1");
+        CompletableFuture<Item> second = client.getItem("2");
+        CompletableFuture<Item> third = client.getItem("3");
+
+        for (CompletableFuture<Item> future : Arrays.asList(first, second, third)) {
+            CompletionException ex = assertThrows(CompletionException.class, future::join);
+            assertTrue(ex.getCause() instanceof HttpServerErrorException);
+        }
+    }
+
+    @Test
+    void synchronousCallWithMapResult() {
+        server.expect(requestTo("http://my-uri/names:batch")).andExpect(content().json("[42]"))
+                .andRespond(withSuccess("{\"42\":\"name\"}", MediaType.APPLICATION_JSON));
+
+        assertEquals("name", client.getName(42L));
+        server.verify();
+    }
+
+    @Test
+    void synchronousCallWithoutItemFails() {
+        server.expect(requestTo("http://my-uri/names:batch")).andExpect(content().json("[42]"))
+                .andRespond(withSuccess("{\"43\":\"name\"}", MediaType.APPLICATION_JSON));
+
+        assertThrows(RestClientException.class, () -> client.getName(42L));
+        server.verify();
+    }
+
+    @Test
+    void rejectedBatchFailsItsCalls() throws Exception {
+        client = createClient(command -> {
+            throw new RejectedExecutionException();
+        });
+
+        CompletableFuture<Item> first = client.getItem("1");
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof CallRejectedException);
+    }
+
+    @Test
+    void batchesRunOnDaemonThreadsOfTheFactory() throws Exception {
+        client = createClient(null);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        server.expect(requestTo("http://my-uri/items:batch")).andRespond(request -> {
+            thread.set(Thread.currentThread());
+            return withSuccess("[{\"id\":\"1\",\"name\":\"a\"}]", MediaType.APPLICATION_JSON)
+                    .createResponse(request);
+        });
+
+        assertEquals("a", client.getItem("1").get(5, TimeUnit.SECONDS).getName());
+
+        assertTrue(thread.get().isDaemon());
+        assertTrue(thread.get().getName().startsWith("restclient-BatchingClient-"), thread.get().getName());
+        factoryBean.destroy();
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.springframework.asm.Opcodes.ACC_ABSTRACT;
+import static org.springframework.asm.Opcodes.ACC_INTERFACE;
+import static org.springframework.asm.Opcodes.ACC_PUBLIC;
+import static org.springframework.asm.Opcodes.V1_8;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * Generates <code>RestClient</code> interfaces with many methods for the tests
+ * and benchmarks of the start up. Every method
+ * <code>String m&lt;i&gt;(String id, String query, String header)</code> has a
+ * path variable, a request parameter and a request header.
+ */
+public class ClientInterfaceGenerator {
+
+    private static class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static final String STRING = Type.getDescriptor(String.class);
+
+    private static void annotateParameter(MethodVisitor methodVisitor, int parameter, Class<?> annotationType,
+            String name) {
+        AnnotationVisitor annotationVisitor = methodVisitor.visitParameterAnnotation(parameter,
+                Type.getDescriptor(annotationType), true);
+        annotationVisitor.visit("value", name);
+        annotationVisitor.visitEnd();
+    }
+
+    private static byte[] generateBytes(String className, int methods) {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(V1_8, ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT, className.replace('.', '/'), null,
+                "java/lang/Object", null);
+        AnnotationVisitor restClient = classWriter.visitAnnotation(Type.getDescriptor(RestClient.class), true);
+        restClient.visit("url", "http://stub");
+        restClient.visitEnd();
+
+        for (int i = 0; i < methods; i++) {
+            MethodVisitor methodVisitor = classWriter.visitMethod(ACC_PUBLIC | ACC_ABSTRACT, "m" + i,
+                    "(" + STRING + STRING + STRING + ")" + STRING, null, null);
+            AnnotationVisitor requestMapping = methodVisitor.visitAnnotation(Type.getDescriptor(RequestMapping.class),
+                    true);
+            AnnotationVisitor path = requestMapping.visitArray("path");
+            path.visit(null, "/m" + i + "/{id}");
+            path.visitEnd();
+            requestMapping.visitEnd();
+            methodVisitor.visitAnnotableParameterCount(3, true);
+            annotateParameter(methodVisitor, 0, PathVariable.class, "id");
+            annotateParameter(methodVisitor, 1, RequestParam.class, "query");
+            annotateParameter(methodVisitor, 2, RequestHeader.class, "X-Header");
+            methodVisitor.visitEnd();
+        }
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    private final GeneratedClassLoader classLoader;
+
+    public ClientInterfaceGenerator() {
+        this.classLoader = new GeneratedClassLoader(ClientInterfaceGenerator.class.getClassLoader());
+    }
+
+    /**
+     * Returns the class loader of the generated interfaces. The JDK proxies must
+     * be created with this class loader.
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Generates an interface.
+     *
+     * @param className The fully qualified name of the interface.
+     * @param methods   The number of methods.
+     */
+    public Class<?> generate(String className, int methods) {
+        return classLoader.define(className, generateBytes(className, methods));
+    }
+
+    /**
+     * Generates interfaces named <code>&lt;prefix&gt;&lt;i&gt;</code>.
+     */
+    public List<Class<?>> generate(String prefix, int interfaces, int methodsPerInterface) {
+        List<Class<?>> result = new ArrayList<>(interfaces);
+        for (int i = 0; i < interfaces; i++) {
+            result.add(generate(prefix + i, methodsPerInterface));
+        }
+        return result;
+    }
+}
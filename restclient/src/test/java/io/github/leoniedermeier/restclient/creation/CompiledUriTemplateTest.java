@@ -0,0 +1,128 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+
+class CompiledUriTemplateTest {
+
+    private static final ParameterDesciption[] NONE = new ParameterDesciption[0];
+
+    private static ParameterDesciption pathVariable(String name, int index) {
+        return new ParameterDesciption(name, index, true, Type.PathVariable);
+    }
+
+    private static ParameterDesciption requestParam(String name, int index, boolean required) {
+        return new ParameterDesciption(name, index, required, Type.RequestParam);
+    }
+
+    private static ParameterDesciption[] of(ParameterDesciption... parameterDesciptions) {
+        return parameterDesciptions;
+    }
+
+    private static URI expand(String url, List<String> pathSegments, ParameterDesciption[] pathVariables,
+            ParameterDesciption[] requestParams, Object... arguments) {
+        return CompiledUriTemplate.compile(url, pathSegments, pathVariables, requestParams).expand(arguments);
+    }
+
+    @Test
+    void noPath() {
+        assertEquals(URI.create("http://my-uri"), expand("http://my-uri", emptyList(), NONE, NONE));
+    }
+
+    @Test
+    void pathSegmentsAreJoined() {
+        URI uri = expand("https://host/", asList("/class/", "/method"), NONE, NONE);
+
+        assertEquals(URI.create("https://host/class/method"), uri);
+    }
+
+    @Test
+    void pathVariables() {
+        URI uri = expand("http://host", asList("/with/{id}/and/{other}/{id}"),
+                of(pathVariable("id", 0), pathVariable("other", 2)), NONE, "myId", "xyz", 42);
+
+        assertEquals(URI.create("http://host/with/myId/and/42/myId"), uri);
+    }
+
+    @Test
+    void pathVariableWithRegex() {
+        URI uri = expand("http://host", asList("/{id:\\d{1,3}}"), of(pathVariable("id", 0)), NONE, "123");
+
+        assertEquals(URI.create("http://host/123"), uri);
+    }
+
+    @Test
+    void pathVariableValuesAreEncoded() {
+        URI uri = expand("http://host", asList("/{id}"), of(pathVariable("id", 0)), NONE,
+                "a b/c?ä😀");
+
+        assertEquals("http://host/a%20b%2Fc%3F%C3%A4%F0%9F%98%80", uri.toString());
+    }
+
+    /**
+     * Pins the strict encoding of the values: reserved characters are encoded, so
+     * a value neither adds path segments nor query parameters.
+     */
+    @Test
+    void reservedCharactersInValuesAreEncoded() {
+        URI uri = expand("http://host", asList("/files/{path}"), of(pathVariable("path", 0)),
+                of(requestParam("q", 1, true)), "dir/file;v=1", "a+b c&d=e/f?");
+
+        assertEquals("http://host/files/dir%2Ffile%3Bv%3D1?q=a%2Bb%20c%26d%3De%2Ff%3F", uri.toString());
+        assertEquals("/files/dir/file;v=1", uri.getPath());
+        assertEquals("q=a+b c&d=e/f?", uri.getQuery());
+    }
+
+    @Test
+    void literalsAreEncoded() {
+        URI uri = expand("http://host", asList("/a path"), NONE, NONE);
+
+        assertEquals("http://host/a%20path", uri.toString());
+    }
+
+    @Test
+    void requestParams() {
+        URI uri = expand("http://host", asList("/posts"), NONE,
+                of(requestParam("userId", 0, true), requestParam("q", 1, true)), 1, "a&b=c");
+
+        assertEquals("http://host/posts?userId=1&q=a%26b%3Dc", uri.toString());
+    }
+
+    @Test
+    void requestParamsAreAppendedToExistingQuery() {
+        URI uri = expand("http://host/posts?key=value", emptyList(), NONE, of(requestParam("userId", 0, true)), 1);
+
+        assertEquals("http://host/posts?key=value&userId=1", uri.toString());
+    }
+
+    @Test
+    void optionalRequestParamWithoutValue() {
+        URI uri = expand("http://host", emptyList(), NONE, of(requestParam("userId", 0, false)), (Object) null);
+
+        assertEquals("http://host?userId", uri.toString());
+    }
+
+    @Test
+    void requiredRequestParamWithoutValue() {
+        CompiledUriTemplate template = CompiledUriTemplate.compile("http://host", emptyList(), NONE,
+                of(requestParam("userId", 0, true)));
+
+        assertThrows(IllegalArgumentException.class, () -> template.expand(new Object[] { null }));
+    }
+
+    @Test
+    void missingPathVariable() {
+        assertThrows(IllegalStateException.class,
+                () -> CompiledUriTemplate.compile("http://host", asList("/{id}"), NONE, NONE));
+    }
+}
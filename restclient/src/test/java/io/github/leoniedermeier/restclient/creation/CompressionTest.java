@@ -0,0 +1,288 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+class CompressionTest {
+
+    @RestClient(name = "compressed", url = "http://localhost:${server.port}", acceptCompressed = true,
+            compressRequestsAbove = 100)
+    interface CompressedClient {
+
+        @RequestMapping(path = "/text")
+        String getText();
+
+        @RequestMapping(path = "/text")
+        InputStream getStream();
+
+        @RequestMapping(path = "/echo", method = RequestMethod.POST)
+        String echo(@RequestBody String body);
+
+        @RequestMapping(path = "/echo", method = RequestMethod.POST)
+        String echo(@RequestBody InputStream body);
+
+        @RequestMapping(path = "/echo", method = RequestMethod.POST)
+        String echo(@RequestBody Payload body);
+    }
+
+    static class Payload {
+
+        private String a;
+
+        Payload(String a) {
+            this.a = a;
+        }
+
+        public String getA() {
+            return a;
+        }
+    }
+
+    private static final String TEXT = repeat("compressible text ", 100);
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private RestClientFactoryBean factoryBean;
+
+    /**
+     * The content encoding of the requests received by the server.
+     */
+    private final List<String> requestEncodings = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/text", exchange -> {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = TEXT.getBytes(StandardCharsets.UTF_8);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                body = gzip(body);
+            }
+            respond(exchange, body);
+        });
+        server.createContext("/echo", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            requestEncodings.add(String.valueOf(encoding));
+            InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(exchange.getRequestBody())
+                    : exchange.getRequestBody();
+            respond(exchange, StreamUtils.copyToByteArray(in));
+        });
+        server.start();
+        environment.setProperty("server.port", String.valueOf(server.getAddress().getPort()));
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop(0);
+        if (factoryBean != null) {
+            factoryBean.destroy();
+        }
+    }
+
+    private CompressedClient createClient() throws Exception {
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(CompressedClient.class);
+        factoryBean.setEnvironment(environment);
+        return (CompressedClient) factoryBean.getObject();
+    }
+
+    @Test
+    void responseIsDecompressed() throws Exception {
+        CompressedClient client = createClient();
+
+        assertEquals(TEXT, client.getText());
+        try (InputStream stream = client.getStream()) {
+            assertEquals(TEXT, StreamUtils.copyToString(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void largeRequestIsCompressed() throws Exception {
+        CompressedClient client = createClient();
+
+        assertEquals(TEXT, client.echo(TEXT));
+        assertEquals("small", client.echo("small"));
+
+        assertEquals("gzip", requestEncodings.get(0));
+        assertEquals("null", requestEncodings.get(1));
+    }
+
+    @Test
+    void jsonBodyIsOnlyCompressedAboveTheThreshold() throws Exception {
+        CompressedClient client = createClient();
+
+        // the JSON body has no Content-Length
+        assertEquals("{\"a\":\"b\"}", client.echo(new Payload("b")));
+        assertEquals("{\"a\":\"" + TEXT + "\"}", client.echo(new Payload(TEXT)));
+
+        assertEquals("null", requestEncodings.get(0));
+        assertEquals("gzip", requestEncodings.get(1));
+    }
+
+    @Test
+    void streamOfUnknownSizeIsCompressed() throws Exception {
+        CompressedClient client = createClient();
+
+        assertEquals("small", client.echo(new ByteArrayInputStream("small".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("gzip", requestEncodings.get(0));
+    }
+
+    @Test
+    void propertiesDisableCompression() throws Exception {
+        environment.setProperty("restclient.compressed.compress-requests-above", "-1");
+        CompressedClient client = createClient();
+
+        assertEquals(TEXT, client.echo(TEXT));
+        assertEquals("null", requestEncodings.get(0));
+    }
+
+    @Test
+    void gzipRoundTrip() throws Exception {
+        byte[] data = TEXT.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new PooledGzipOutputStream(bytes)) {
+            out.write(data, 0, 10);
+            out.write(data[10]);
+            out.write(data, 11, data.length - 11);
+        }
+        byte[] compressed = bytes.toByteArray();
+        assertTrue(compressed.length < data.length / 5);
+
+        // readable by the JDK and by the pooled stream
+        assertArrayEquals(data,
+                StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        try (InputStream in = PooledInflaterInputStream.gzip(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(data, StreamUtils.copyToByteArray(in));
+        }
+        assertTrue(CodecPool.GZIP_DEFLATERS.size() > 0);
+        assertTrue(CodecPool.GZIP_INFLATERS.size() > 0);
+    }
+
+    @Test
+    void gzipHeaderWithFileName() throws Exception {
+        byte[] data = TEXT.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = gzip(data);
+        // the header of the JDK has no optional fields, add a file name
+        ByteArrayOutputStream withName = new ByteArrayOutputStream();
+        withName.write(compressed, 0, 3);
+        withName.write(compressed[3] | 8);
+        withName.write(compressed, 4, 6);
+        withName.write("name.txt\0".getBytes(StandardCharsets.US_ASCII));
+        withName.write(compressed, 10, compressed.length - 10);
+
+        try (InputStream in = PooledInflaterInputStream.gzip(new ByteArrayInputStream(withName.toByteArray()))) {
+            assertArrayEquals(data, StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    @Test
+    void zlibBody() throws Exception {
+        byte[] data = TEXT.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(data);
+        }
+
+        try (InputStream in = PooledInflaterInputStream.zlib(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertArrayEquals(data, StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    @Test
+    void emptyBody() throws Exception {
+        try (InputStream in = PooledInflaterInputStream.gzip(new ByteArrayInputStream(new byte[0]))) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void corruptTrailer() throws Exception {
+        byte[] compressed = gzip(TEXT.getBytes(StandardCharsets.UTF_8));
+        compressed[compressed.length - 8] ^= 1;
+
+        try (InputStream in = PooledInflaterInputStream.gzip(new ByteArrayInputStream(compressed))) {
+            assertThrows(ZipException.class, () -> StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    @Test
+    void onlyEncodedResponsesAreWrapped() throws Exception {
+        MockClientHttpResponse plain = new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        assertSame(plain, CompressingClientHttpRequestFactory.decompressing(plain));
+
+        byte[] compressed = gzip(TEXT.getBytes(StandardCharsets.UTF_8));
+        MockClientHttpResponse encoded = new MockClientHttpResponse(compressed, HttpStatus.OK);
+        encoded.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        encoded.getHeaders().setContentLength(compressed.length);
+        ClientHttpResponse response = CompressingClientHttpRequestFactory.decompressing(encoded);
+
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(-1, response.getHeaders().getContentLength());
+        assertEquals(TEXT, StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+        response.close();
+    }
+}
@@ -0,0 +1,393 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.github.leoniedermeier.restclient.annotation.Bulkhead;
+import io.github.leoniedermeier.restclient.annotation.CircuitBreaker;
+import io.github.leoniedermeier.restclient.annotation.Fallback;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.RingBufferCircuitBreaker.State;
+import reactor.core.publisher.Mono;
+
+class GuardedMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    @CircuitBreaker(slidingWindowSize = 10, minimumCalls = 4, openDuration = 60_000)
+    interface BreakerClient {
+
+        @RequestMapping(path = "/{status}")
+        String get(@PathVariable String status);
+
+        @RequestMapping(path = "/{status}")
+        @Fallback("fallback")
+        String withFallback(@PathVariable String status);
+
+        default String fallback(String status, Throwable error) {
+            return "fallback " + error.getClass().getSimpleName();
+        }
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface BulkheadClient {
+
+        @RequestMapping(path = "/{status}")
+        @Bulkhead(maxConcurrentCalls = 1)
+        CompletableFuture<String> getAsync(@PathVariable String status);
+
+        @RequestMapping(path = "/{status}")
+        @Fallback("cached")
+        Mono<String> getMono(@PathVariable String status);
+
+        default Mono<String> cached(String status) {
+            return Mono.just("cached");
+        }
+
+        @RequestMapping(path = "/{status}")
+        @Bulkhead(maxConcurrentCalls = 1, maxWait = 5000)
+        Mono<String> getWaiting(@PathVariable String status);
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidFallbackClient {
+
+        @RequestMapping(path = "/")
+        @Fallback("missing")
+        String get();
+    }
+
+    @RestClient(url = "http://my-uri")
+    @CircuitBreaker(slidingWindowSize = 2, minimumCalls = 2, openDuration = 60_000)
+    interface StreamingClient {
+
+        @RequestMapping(path = "/{status}")
+        @Bulkhead(maxConcurrentCalls = 1)
+        InputStream body(@PathVariable String status);
+
+        @RequestMapping(path = "/items")
+        @Bulkhead(maxConcurrentCalls = 1)
+        Iterator<String> iterator();
+
+        @RequestMapping(path = "/items")
+        @Bulkhead(maxConcurrentCalls = 1)
+        Spliterator<String> spliterator();
+
+        @RequestMapping(path = "/items")
+        @Bulkhead(maxConcurrentCalls = 1)
+        Stream<String> stream();
+    }
+
+    interface Settings {
+
+        @CircuitBreaker(slidingWindowSize = 4, minimumCalls = 2, openDuration = 0, halfOpenCalls = 2)
+        void halfOpen();
+
+        @CircuitBreaker(slidingWindowSize = 4, minimumCalls = 4)
+        void window();
+    }
+
+    private final List<String> requests = new ArrayList<>();
+
+    private RestClientFactoryBean createFactoryBean(Class<?> type) {
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            requests.add(uri.getPath());
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            if (uri.getPath().equals("/items")) {
+                MockClientHttpResponse response = new MockClientHttpResponse("[\"a\",\"b\"]".getBytes(),
+                        HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.setResponse(response);
+            } else if (uri.getPath().equals("/broken")) {
+                request.setResponse(new MockClientHttpResponse(new InputStream() {
+
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                }, HttpStatus.OK));
+            } else {
+                request.setResponse(new MockClientHttpResponse("text".getBytes(),
+                        HttpStatus.valueOf(Integer.parseInt(uri.getPath().substring(1)))));
+            }
+            return request;
+        });
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(type);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        factoryBean.setExecutor(Runnable::run);
+        factoryBean.setWebClient(WebClient.builder().exchangeFunction(request -> {
+            String status = request.url().getPath().substring(1);
+            return Mono.just(ClientResponse.create(HttpStatus.valueOf(Integer.parseInt(status)))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE).body("text").build());
+        }).build());
+        return factoryBean;
+    }
+
+    private static RingBufferCircuitBreaker circuitBreaker(String methodName) {
+        return new RingBufferCircuitBreaker(AnnotatedElementUtils
+                .findMergedAnnotation(ReflectionUtils.findMethod(Settings.class, methodName), CircuitBreaker.class));
+    }
+
+    @Test
+    void openCircuitBreakerFailsFast() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(BreakerClient.class);
+        BreakerClient client = (BreakerClient) factoryBean.getObject();
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpServerErrorException.class, () -> client.get("503"));
+        }
+        assertThrows(CallRejectedException.class, () -> client.get("200"));
+
+        assertEquals(4, requests.size());
+        RingBufferCircuitBreaker circuitBreaker = factoryBean
+                .getCircuitBreaker(ReflectionUtils.findMethod(BreakerClient.class, "get", String.class));
+        assertEquals(State.Open, circuitBreaker.getState());
+        // the methods share the circuit breaker of the interface
+        assertEquals(circuitBreaker,
+                factoryBean.getCircuitBreaker(ReflectionUtils.findMethod(BreakerClient.class, "withFallback", String.class)));
+        assertEquals("fallback CallRejectedException", client.withFallback("200"));
+    }
+
+    @Test
+    void clientErrorsAreNotFailures() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(BreakerClient.class);
+        BreakerClient client = (BreakerClient) factoryBean.getObject();
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(HttpClientErrorException.class, () -> client.get("404"));
+        }
+
+        RingBufferCircuitBreaker circuitBreaker = factoryBean
+                .getCircuitBreaker(ReflectionUtils.findMethod(BreakerClient.class, "get", String.class));
+        assertEquals(State.Closed, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    void fallbackReceivesTheException() throws Exception {
+        BreakerClient client = (BreakerClient) createFactoryBean(BreakerClient.class).getObject();
+
+        assertEquals("fallback ServiceUnavailable", client.withFallback("503"));
+        assertEquals("text", client.withFallback("200"));
+    }
+
+    @Test
+    void fallbackOfMono() throws Exception {
+        BulkheadClient client = (BulkheadClient) createFactoryBean(BulkheadClient.class).getObject();
+
+        assertEquals("cached", client.getMono("500").block(Duration.ofSeconds(5)));
+        assertEquals("text", client.getMono("200").block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void streamedBodyHoldsThePermitUntilItIsClosed() throws Exception {
+        StreamingClient client = (StreamingClient) createFactoryBean(StreamingClient.class).getObject();
+
+        InputStream first = client.body("200");
+        assertThrows(CallRejectedException.class, () -> client.body("200"));
+        first.close();
+
+        try (InputStream second = client.body("200")) {
+            assertEquals("text", StreamUtils.copyToString(second, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void streamedElementsHoldThePermitUntilTheyAreConsumedOrClosed() throws Exception {
+        StreamingClient client = (StreamingClient) createFactoryBean(StreamingClient.class).getObject();
+
+        Iterator<String> iterator = client.iterator();
+        assertThrows(CallRejectedException.class, client::iterator);
+        assertEquals("a", iterator.next());
+        assertEquals("b", iterator.next());
+        assertFalse(iterator.hasNext());
+        iterator = client.iterator();
+        assertTrue(iterator.hasNext());
+        ((Closeable) iterator).close();
+        assertEquals("a", client.iterator().next());
+
+        Spliterator<String> spliterator = client.spliterator();
+        assertThrows(CallRejectedException.class, client::spliterator);
+        assertTrue(spliterator.tryAdvance(value -> assertEquals("a", value)));
+        ((Closeable) spliterator).close();
+        ((Closeable) client.spliterator()).close();
+
+        try (Stream<String> stream = client.stream()) {
+            assertThrows(CallRejectedException.class, client::stream);
+        }
+        try (Stream<String> stream = client.stream()) {
+            assertEquals("ab", stream.collect(Collectors.joining()));
+        }
+    }
+
+    @Test
+    void failureWhileReadingTheBodyIsRecorded() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(StreamingClient.class);
+        StreamingClient client = (StreamingClient) factoryBean.getObject();
+
+        for (int i = 0; i < 2; i++) {
+            try (InputStream body = client.body("broken")) {
+                assertThrows(IOException.class, body::read);
+            }
+        }
+
+        RingBufferCircuitBreaker circuitBreaker = factoryBean
+                .getCircuitBreaker(ReflectionUtils.findMethod(StreamingClient.class, "body", String.class));
+        assertEquals(State.Open, circuitBreaker.getState());
+    }
+
+    @Test
+    void missingFallbackMethod() {
+        RestClientFactoryBean factoryBean = createFactoryBean(InvalidFallbackClient.class);
+
+        assertThrows(IllegalStateException.class, factoryBean::getObject);
+    }
+
+    @Test
+    void bulkheadRejectsExcessCalls() throws Exception {
+        List<Runnable> pending = new ArrayList<>();
+        RestClientFactoryBean factoryBean = createFactoryBean(BulkheadClient.class);
+        factoryBean.setExecutor(pending::add);
+        BulkheadClient client = (BulkheadClient) factoryBean.getObject();
+
+        CompletableFuture<String> first = client.getAsync("200");
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.getAsync("200").get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof CallRejectedException);
+
+        pending.remove(0).run();
+        assertEquals("text", first.get(5, TimeUnit.SECONDS));
+        CompletableFuture<String> third = client.getAsync("200");
+        pending.remove(0).run();
+        assertEquals("text", third.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void reactiveCallWaitsForTheBulkheadWithoutBlocking() throws Exception {
+        Semaphore bulkhead = new Semaphore(1);
+        AtomicInteger calls = new AtomicInteger();
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment())
+                .parse(ReflectionUtils.findMethod(BulkheadClient.class, "getWaiting", String.class));
+        GuardedMethodInvoker invoker = new GuardedMethodInvoker(
+                arguments -> calls.incrementAndGet() == 1 ? Mono.delay(Duration.ofMillis(300)).thenReturn("first")
+                        : Mono.fromCallable(() -> Thread.currentThread().getName()),
+                methodMetaData, null, bulkhead, 5000, null);
+        Mono<?> first = (Mono<?>) invoker.invoke(new Object[] { "200" });
+        Mono<?> second = (Mono<?>) invoker.invoke(new Object[] { "200" });
+
+        CompletableFuture<?> firstResult = first.toFuture();
+        long start = System.nanoTime();
+        CompletableFuture<?> secondResult = second.toFuture();
+
+        // the subscribing thread did not wait for the permit
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals("first", firstResult.get(5, TimeUnit.SECONDS));
+        assertTrue(((String) secondResult.get(5, TimeUnit.SECONDS)).startsWith("boundedElastic"));
+        assertEquals(1, bulkhead.availablePermits());
+    }
+
+    @Test
+    void unrecordedTrialCallsExpire() {
+        RingBufferCircuitBreaker circuitBreaker = circuitBreaker("halfOpen");
+        circuitBreaker.record(true);
+        circuitBreaker.record(true);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        for (int i = 0; i < 10; i++) {
+            assertFalse(circuitBreaker.tryAcquirePermission());
+        }
+        assertEquals(State.HalfOpen, circuitBreaker.getState());
+
+        // the outcomes of the trial calls were never recorded
+        assertFalse(circuitBreaker
+                .tryAcquirePermission(System.nanoTime() + RingBufferCircuitBreaker.MIN_TRIAL_TIMEOUT));
+        assertEquals(State.Open, circuitBreaker.getState());
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpenCircuitBreakerClosesAfterSuccessfulTrials() {
+        RingBufferCircuitBreaker circuitBreaker = circuitBreaker("halfOpen");
+        circuitBreaker.record(true);
+        circuitBreaker.record(true);
+        assertEquals(State.Open, circuitBreaker.getState());
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(State.HalfOpen, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.record(false);
+        circuitBreaker.record(false);
+        assertEquals(State.Closed, circuitBreaker.getState());
+        assertEquals(-1, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    void halfOpenCircuitBreakerOpensOnFailure() {
+        RingBufferCircuitBreaker circuitBreaker = circuitBreaker("halfOpen");
+        circuitBreaker.record(true);
+        circuitBreaker.record(true);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.record(true);
+
+        assertEquals(State.Open, circuitBreaker.getState());
+    }
+
+    @Test
+    void slidingWindowDropsOldOutcomes() {
+        RingBufferCircuitBreaker circuitBreaker = circuitBreaker("window");
+        circuitBreaker.record(true);
+        circuitBreaker.record(false);
+        circuitBreaker.record(false);
+        circuitBreaker.record(false);
+        assertEquals(25, circuitBreaker.getFailureRate());
+
+        circuitBreaker.record(false);
+
+        assertEquals(0, circuitBreaker.getFailureRate());
+        assertEquals(State.Closed, circuitBreaker.getState());
+    }
+}
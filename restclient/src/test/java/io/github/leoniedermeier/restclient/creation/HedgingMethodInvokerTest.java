@@ -0,0 +1,388 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.Hedged;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+import reactor.core.publisher.Mono;
+
+class HedgingMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    @Hedged(delay = 20)
+    interface HedgedClient {
+
+        @RequestMapping(path = "/{path}")
+        String get(@PathVariable String path);
+
+        @RequestMapping(path = "/{path}", method = RequestMethod.POST)
+        String post(@PathVariable String path);
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidHedgedClient {
+
+        @RequestMapping(path = "/", method = RequestMethod.POST)
+        @Hedged
+        String post();
+    }
+
+    interface Delays {
+
+        @Hedged(minDelay = 10)
+        void adaptive();
+    }
+
+    /**
+     * A thread-bound context which is passed on by a task decorator.
+     */
+    private static final ThreadLocal<String> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * The context seen by the requests.
+     */
+    private final List<String> contexts = new ArrayList<>();
+
+    /**
+     * Releases the slow requests.
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final List<String> requests = new ArrayList<>();
+
+    @AfterEach
+    void releaseSlowRequests() {
+        release.countDown();
+    }
+
+    /**
+     * Creates a factory for a server whose first response to a path starting with
+     * <code>slow</code> takes <code>slowMillis</code>.
+     */
+    private RestClientFactoryBean createFactoryBean(long slowMillis) {
+        AtomicInteger slowRequests = new AtomicInteger();
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            synchronized (requests) {
+                requests.add(uri.getPath());
+                contexts.add(CONTEXT.get());
+            }
+            if (uri.getPath().startsWith("/slow") && slowRequests.getAndIncrement() == 0) {
+                try {
+                    release.await(slowMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse(uri.getPath().getBytes(), HttpStatus.OK));
+            return request;
+        });
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(HedgedClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        return factoryBean;
+    }
+
+    private static Hedged hedged(Class<?> type) {
+        return AnnotatedElementUtils.findMergedAnnotation(type, Hedged.class);
+    }
+
+    @Test
+    void slowRequestIsHedged() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(10_000);
+        HedgedClient client = (HedgedClient) factoryBean.getObject();
+
+        long start = System.nanoTime();
+        assertEquals("/slow", client.get("slow"));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(2, requests.size());
+        MethodMetrics methodMetrics = factoryBean.getMetrics()
+                .getMethodMetrics(ReflectionUtils.findMethod(HedgedClient.class, "get", String.class));
+        assertEquals(1, methodMetrics.getHedgeCount());
+        assertEquals(1, methodMetrics.getHedgeWonCount());
+    }
+
+    @Test
+    void taskDecoratorPassesTheContextOfTheCaller() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(10_000);
+        factoryBean.setTaskDecorator(task -> {
+            String context = CONTEXT.get();
+            return () -> {
+                CONTEXT.set(context);
+                try {
+                    task.run();
+                } finally {
+                    CONTEXT.remove();
+                }
+            };
+        });
+        HedgedClient client = (HedgedClient) factoryBean.getObject();
+
+        CONTEXT.set("caller");
+        try {
+            assertEquals("/slow", client.get("slow"));
+        } finally {
+            CONTEXT.remove();
+        }
+
+        assertEquals(Arrays.asList("caller", "caller"), contexts);
+    }
+
+    @Test
+    void fastRequestIsNotHedged() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(0);
+        HedgedClient client = (HedgedClient) factoryBean.getObject();
+
+        assertEquals("/fast", client.get("fast"));
+        Thread.sleep(50);
+
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void hedgesAreLimitedPerClient() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(200);
+        factoryBean.setMaxHedges(0);
+        HedgedClient client = (HedgedClient) factoryBean.getObject();
+
+        assertEquals("/slow", client.get("slow"));
+
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void nonIdempotentMethodsAreNotHedged() throws Exception {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment());
+
+        assertNull(parser.parse(ReflectionUtils.findMethod(HedgedClient.class, "post", String.class)).getHedged());
+        assertThrows(IllegalStateException.class,
+                () -> parser.parse(ReflectionUtils.findMethod(InvalidHedgedClient.class, "post")));
+    }
+
+    @Test
+    void asyncLoserKeepsItsPermitUntilItCompletes() throws Exception {
+        List<CompletableFuture<Object>> attempts = new ArrayList<>();
+        Semaphore hedges = new Semaphore(1);
+        HedgingMethodInvoker invoker = new HedgingMethodInvoker(arguments -> {
+            CompletableFuture<Object> attempt = new CompletableFuture<>();
+            synchronized (attempts) {
+                attempts.add(attempt);
+            }
+            return attempt;
+        }, hedged(HedgedClient.class), ReturnType.CompletableFuture, Runnable::run, hedges, null, null);
+
+        CompletableFuture<?> result = (CompletableFuture<?>) invoker.invoke(new Object[0]);
+        while (hedges.availablePermits() > 0) {
+            Thread.sleep(5);
+        }
+        attempts.get(0).complete("primary");
+
+        assertEquals("primary", result.get(5, TimeUnit.SECONDS));
+        // cancelling the future would not stop the request
+        assertFalse(attempts.get(1).isCancelled());
+        assertEquals(0, hedges.availablePermits());
+        attempts.get(1).complete("hedge");
+        assertEquals(1, hedges.availablePermits());
+    }
+
+    @Test
+    void blockingLoserKeepsItsPermitUntilItsCallEnds() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        Semaphore hedges = new Semaphore(1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            HedgingMethodInvoker invoker = new HedgingMethodInvoker(arguments -> {
+                if (attempts.incrementAndGet() == 2) {
+                    // the hedged request of the first call ignores the interrupt
+                    awaitUninterruptibly(blocked);
+                    return "hedge";
+                }
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "primary";
+            }, hedged(HedgedClient.class), ReturnType.Value, executor, hedges, null, null);
+
+            assertEquals("primary", invoker.invoke(new Object[0]));
+            assertEquals(2, attempts.get());
+            assertEquals(0, hedges.availablePermits());
+
+            assertEquals("primary", invoker.invoke(new Object[0]));
+            assertEquals(3, attempts.get());
+
+            blocked.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (hedges.availablePermits() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, hedges.availablePermits());
+        } finally {
+            blocked.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void failsIfAllAttemptsFail() throws Exception {
+        List<CompletableFuture<Object>> attempts = new ArrayList<>();
+        HedgingMethodInvoker invoker = new HedgingMethodInvoker(arguments -> {
+            CompletableFuture<Object> attempt = new CompletableFuture<>();
+            synchronized (attempts) {
+                attempts.add(attempt);
+            }
+            return attempt;
+        }, hedged(HedgedClient.class), ReturnType.CompletableFuture, Runnable::run, new Semaphore(1), null, null);
+
+        CompletableFuture<?> result = (CompletableFuture<?>) invoker.invoke(new Object[0]);
+        while (attempts.size() < 2) {
+            Thread.sleep(5);
+        }
+        attempts.get(0).completeExceptionally(new IllegalStateException("primary"));
+        assertFalse(result.isDone());
+        attempts.get(1).completeExceptionally(new IllegalStateException("hedge"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals("hedge", exception.getCause().getMessage());
+    }
+
+    @Test
+    void monoIsHedged() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Semaphore hedges = new Semaphore(1);
+        HedgingMethodInvoker invoker = new HedgingMethodInvoker(
+                arguments -> Mono.defer(() -> subscriptions.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofSeconds(10)).thenReturn("primary")
+                        : Mono.just("hedge")),
+                hedged(HedgedClient.class), ReturnType.Mono, Runnable::run, hedges, null, null);
+
+        assertEquals("hedge", ((Mono<?>) invoker.invoke(new Object[0])).block(Duration.ofSeconds(5)));
+        assertEquals(2, subscriptions.get());
+        assertEquals(1, hedges.availablePermits());
+    }
+
+    @Test
+    void monoFailingHedgeDoesNotWin() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Semaphore hedges = new Semaphore(1);
+        HedgingMethodInvoker invoker = new HedgingMethodInvoker(
+                arguments -> Mono.defer(() -> subscriptions.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofMillis(300)).thenReturn("primary")
+                        : Mono.error(new IllegalStateException("hedge"))),
+                hedged(HedgedClient.class), ReturnType.Mono, Runnable::run, hedges, null, null);
+
+        assertEquals("primary", ((Mono<?>) invoker.invoke(new Object[0])).block(Duration.ofSeconds(5)));
+        assertEquals(2, subscriptions.get());
+        assertEquals(1, hedges.availablePermits());
+        // the failed attempt is a sample of the latency too
+        assertEquals(2, invoker.getLatency().getCount());
+    }
+
+    @Test
+    void monoFailsIfAllAttemptsFail() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        HedgingMethodInvoker invoker = new HedgingMethodInvoker(
+                arguments -> Mono.defer(() -> subscriptions.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofMillis(300)).then(Mono.error(new IllegalStateException("primary")))
+                        : Mono.error(new IllegalStateException("hedge"))),
+                hedged(HedgedClient.class), ReturnType.Mono, Runnable::run, new Semaphore(1), null, null);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> ((Mono<?>) invoker.invoke(new Object[0])).block(Duration.ofSeconds(5)));
+        assertEquals("primary", exception.getMessage());
+        assertEquals(2, subscriptions.get());
+    }
+
+    @Test
+    void adaptiveDelayIsThePercentileOfTheLatencies() {
+        Hedged hedged = AnnotatedElementUtils
+                .findMergedAnnotation(ReflectionUtils.findMethod(Delays.class, "adaptive"), Hedged.class);
+        HedgingMethodInvoker invoker = new HedgingMethodInvoker(arguments -> null, hedged, ReturnType.Value,
+                Runnable::run, new Semaphore(1), null, null);
+        assertEquals(10, new HedgingMethodInvoker(arguments -> null, hedged, ReturnType.Value, Runnable::run,
+                new Semaphore(1), null, null).delay());
+
+        for (int i = 0; i < 100; i++) {
+            invoker.getLatency().record(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+
+        assertEquals(50, invoker.delay());
+    }
+
+    @Test
+    void percentileIsInterpolatedWithinItsBucket() {
+        WindowedLatencyHistogram latency = new WindowedLatencyHistogram(1000, 0);
+        // all in the bucket from 1024 to 2047 nanoseconds
+        for (int i = 0; i < 100; i++) {
+            latency.record(1024 + 10 * i, 0);
+        }
+
+        assertEquals(1024 + 512, latency.getPercentile(0.5, TimeUnit.NANOSECONDS, 0), 1);
+        // limited by the maximum instead of the upper bound of the bucket
+        assertEquals(2014, latency.getPercentile(1, TimeUnit.NANOSECONDS, 0), 1);
+    }
+
+    @Test
+    void oldLatenciesAreForgotten() {
+        WindowedLatencyHistogram latency = new WindowedLatencyHistogram(1000, 0);
+        latency.record(TimeUnit.MILLISECONDS.toNanos(500), 0);
+        latency.record(1, 1500);
+
+        // the previous window still counts
+        assertEquals(2, latency.getCount(1500));
+        assertEquals(500, latency.getPercentile(1, TimeUnit.MILLISECONDS, 1500), 1);
+
+        assertEquals(1, latency.getCount(2600));
+        assertEquals(0, latency.getCount(5000));
+    }
+}
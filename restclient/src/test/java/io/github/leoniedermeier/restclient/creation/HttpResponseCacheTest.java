@@ -0,0 +1,334 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.twice;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.HttpCacheable;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+class HttpResponseCacheTest {
+
+    @RestClient(url = "http://my-uri")
+    @HttpCacheable
+    interface CachedClient {
+
+        @RequestMapping(path = "/list/{id}")
+        List<Integer> getList(@PathVariable String id);
+
+        @RequestMapping(path = "/text")
+        String getText(@RequestHeader("Accept-Language") String language);
+
+        @RequestMapping(path = "/text", method = RequestMethod.POST)
+        String post();
+
+        @RequestMapping(path = "/secret")
+        String getSecret(@RequestHeader("Authorization") String authorization);
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidClient {
+
+        @HttpCacheable
+        @RequestMapping(path = "/text", method = RequestMethod.POST)
+        String post();
+    }
+
+    static class MutableClock extends Clock {
+
+        private long millis = 1_000_000;
+
+        void advanceSeconds(long seconds) {
+            millis += seconds * 1000;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private static HttpHeaders headers(String... nameValues) {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            headers.add(nameValues[i], nameValues[i + 1]);
+        }
+        return headers;
+    }
+
+    private HttpResponseCache cache;
+
+    private CachedClient client;
+
+    private final MutableClock clock = new MutableClock();
+
+    private MockRestServiceServer server;
+
+    private CachedClient createClient(long maxSize) throws Exception {
+        return createClient(maxSize, Runnable::run);
+    }
+
+    private CachedClient createClient(long maxSize, Executor refreshExecutor) throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        cache = new HttpResponseCache(maxSize, refreshExecutor, clock);
+
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(CachedClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        factoryBean.setResponseCache(cache);
+        return (CachedClient) factoryBean.getObject();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = createClient(HttpResponseCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    void freshResponseIsServedFromCache() {
+        server.expect(once(), requestTo("http://my-uri/list/1")).andRespond(
+                withSuccess("[1,2]", MediaType.APPLICATION_JSON).headers(headers("Cache-Control", "max-age=60")));
+
+        List<Integer> first = client.getList("1");
+        clock.advanceSeconds(59);
+        List<Integer> second = client.getList("1");
+
+        assertEquals(Arrays.asList(1, 2), second);
+        assertNotSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        server.verify();
+    }
+
+    @Test
+    void staleResponseIsRevalidated() {
+        server.expect(requestTo("http://my-uri/list/1")).andExpect(headerDoesNotExist("If-None-Match"))
+                .andRespond(withSuccess("[1,2]", MediaType.APPLICATION_JSON)
+                        .headers(headers("Cache-Control", "max-age=10", "ETag", "\"v1\"")));
+        server.expect(requestTo("http://my-uri/list/1")).andExpect(header("If-None-Match", "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(headers("Cache-Control", "max-age=10")));
+
+        client.getList("1");
+        clock.advanceSeconds(11);
+        assertEquals(Arrays.asList(1, 2), client.getList("1"));
+        clock.advanceSeconds(5);
+        assertEquals(Arrays.asList(1, 2), client.getList("1"));
+
+        assertEquals(1, cache.getRevalidationCount());
+        assertEquals(1, cache.getHitCount());
+        server.verify();
+    }
+
+    @Test
+    void revalidatedResponseWhichIsNoLongerCacheableIsRemoved() {
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1,2]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=10", "ETag", "\"v1\"")));
+        server.expect(requestTo("http://my-uri/list/1")).andExpect(header("If-None-Match", "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(headers("Cache-Control", "no-store")));
+        server.expect(requestTo("http://my-uri/list/1")).andExpect(headerDoesNotExist("If-None-Match"))
+                .andRespond(withSuccess("[3]", MediaType.APPLICATION_JSON));
+
+        client.getList("1");
+        clock.advanceSeconds(11);
+        assertEquals(Arrays.asList(1, 2), client.getList("1"));
+        assertEquals(0, cache.getSize());
+        assertEquals(Arrays.asList(3), client.getList("1"));
+
+        server.verify();
+    }
+
+    @Test
+    void staleWhileRevalidate() {
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=10, stale-while-revalidate=30")));
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[2]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=10, stale-while-revalidate=30")));
+
+        client.getList("1");
+        clock.advanceSeconds(20);
+        // the stale response, refreshed in the background
+        assertEquals(Arrays.asList(1), client.getList("1"));
+        assertEquals(Arrays.asList(2), client.getList("1"));
+
+        server.verify();
+    }
+
+    @Test
+    void varyHeaders() {
+        server.expect(twice(), requestTo("http://my-uri/text")).andRespond(withSuccess("text", MediaType.TEXT_PLAIN)
+                .headers(headers("Cache-Control", "max-age=60", "Vary", "Accept-Language")));
+
+        client.getText("de");
+        client.getText("en");
+        client.getText("en");
+        client.getText("de");
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        server.verify();
+    }
+
+    @Test
+    void privateResponseIsNotStored() {
+        server.expect(twice(), requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]",
+                MediaType.APPLICATION_JSON).headers(headers("Cache-Control", "private, max-age=60")));
+
+        client.getList("1");
+        client.getList("1");
+
+        assertEquals(0, cache.getSize());
+        server.verify();
+    }
+
+    @Test
+    void authorizedResponseIsOnlyStoredIfPublic() {
+        server.expect(twice(), requestTo("http://my-uri/secret")).andRespond(withSuccess("secret",
+                MediaType.TEXT_PLAIN).headers(headers("Cache-Control", "max-age=60")));
+
+        client.getSecret("Bearer a");
+        client.getSecret("Bearer a");
+        server.verify();
+
+        server.reset();
+        server.expect(once(), requestTo("http://my-uri/secret")).andRespond(withSuccess("public",
+                MediaType.TEXT_PLAIN).headers(headers("Cache-Control", "public, max-age=60")));
+
+        assertEquals("public", client.getSecret("Bearer a"));
+        assertEquals("public", client.getSecret("Bearer a"));
+        server.verify();
+    }
+
+    @Test
+    void sharedMaxAgeOverridesMaxAge() {
+        server.expect(twice(), requestTo("http://my-uri/secret")).andRespond(withSuccess("secret",
+                MediaType.TEXT_PLAIN).headers(headers("Cache-Control", "max-age=60, s-maxage=10")));
+
+        client.getSecret("Bearer a");
+        clock.advanceSeconds(9);
+        client.getSecret("Bearer a");
+        clock.advanceSeconds(2);
+        client.getSecret("Bearer a");
+
+        assertEquals(1, cache.getHitCount());
+        server.verify();
+    }
+
+    @Test
+    void malformedNumbersAreNotStored() {
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=ten")));
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=-1")));
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=60", "Age", "1.5")));
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON)
+                .headers(headers("Cache-Control", "max-age=60", "Age", "5")));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Arrays.asList(1), client.getList("1"));
+        }
+
+        assertEquals(1, cache.getHitCount());
+        server.verify();
+    }
+
+    @Test
+    void rejectedRefreshServesStaleResponse() throws Exception {
+        client = createClient(HttpResponseCache.DEFAULT_MAX_SIZE, command -> {
+            throw new RejectedExecutionException();
+        });
+        server.expect(once(), requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]",
+                MediaType.APPLICATION_JSON).headers(headers("Cache-Control", "max-age=10, stale-while-revalidate=30")));
+
+        client.getList("1");
+        clock.advanceSeconds(20);
+
+        assertEquals(Arrays.asList(1), client.getList("1"));
+        server.verify();
+    }
+
+    @Test
+    void noStore() {
+        server.expect(twice(), requestTo("http://my-uri/list/1")).andRespond(withSuccess("[1]",
+                MediaType.APPLICATION_JSON).headers(headers("Cache-Control", "no-store, max-age=60")));
+
+        client.getList("1");
+        client.getList("1");
+
+        assertEquals(0, cache.getSize());
+        server.verify();
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        client = createClient(150);
+        for (String id : Arrays.asList("1", "2", "1")) {
+            server.expect(requestTo("http://my-uri/list/" + id)).andRespond(withSuccess("[1,2,3,4,5,6,7,8]",
+                    MediaType.APPLICATION_JSON).headers(headers("Cache-Control", "max-age=60")));
+        }
+
+        client.getList("1");
+        client.getList("2");
+        client.getList("1");
+
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(0, cache.getHitCount());
+        server.verify();
+    }
+
+    @Test
+    void nonGetMethodsOfCachedInterfaceAreNotCached() throws Exception {
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment())
+                .parse(CachedClient.class.getMethod("post"));
+
+        assertEquals(false, methodMetaData.isCached());
+    }
+
+    @Test
+    void cachedMethodMustBeGet() throws Exception {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment());
+
+        assertThrows(IllegalStateException.class, () -> parser.parse(InvalidClient.class.getMethod("post")));
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestOperations;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.RestClientFactoryBean.ProxyMode;
+
+class LazyMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    interface LazyClient {
+
+        @RequestMapping(path = "/{id}")
+        String get(@PathVariable String id);
+
+        @RequestMapping(path = { "/a", "/b" })
+        String invalid();
+    }
+
+    private static final int THREADS = 8;
+
+    private RestClientFactoryBean createFactoryBean(boolean lazy, ProxyMode proxyMode) {
+        RestOperations restOperations = Mockito.mock(RestOperations.class);
+        Mockito.when(restOperations.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ParameterizedTypeReference.forType(String.class))))
+                .then(invocation -> new ResponseEntity<Object>(invocation.getArgument(0).toString(), HttpStatus.OK));
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(LazyClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restOperations);
+        factoryBean.setProxyMode(proxyMode);
+        factoryBean.setLazy(lazy);
+        return factoryBean;
+    }
+
+    @Test
+    void eagerModeFailsOnCreation() {
+        RestClientFactoryBean factoryBean = createFactoryBean(false, ProxyMode.AOP);
+
+        assertThrows(IllegalStateException.class, factoryBean::getObject);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProxyMode.class)
+    void lazyModeFailsOnFirstCall(ProxyMode proxyMode) throws Exception {
+        LazyClient client = (LazyClient) createFactoryBean(true, proxyMode).getObject();
+
+        assertEquals("http://my-uri/1", client.get("1"));
+        assertThrows(IllegalStateException.class, client::invalid);
+        assertThrows(IllegalStateException.class, client::invalid);
+    }
+
+    @Test
+    void validate() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean(true, ProxyMode.AOP);
+        factoryBean.getObject();
+
+        assertThrows(IllegalStateException.class, factoryBean::validate);
+    }
+
+    @Test
+    void invokerIsCreatedOnce() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        LazyMethodInvoker lazyMethodInvoker = new LazyMethodInvoker(() -> {
+            created.incrementAndGet();
+            return arguments -> arguments[0];
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String argument = "argument " + i;
+                results.add(executorService.submit(() -> {
+                    start.await();
+                    return lazyMethodInvoker.invoke(new Object[] { argument });
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < THREADS; i++) {
+                assertEquals("argument " + i, results.get(i).get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(1, created.get());
+    }
+}
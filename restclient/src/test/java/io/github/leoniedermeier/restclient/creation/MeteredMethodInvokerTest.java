@@ -0,0 +1,231 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+import io.github.leoniedermeier.restclient.creation.MethodMetrics.ErrorClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class MeteredMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    interface MeteredClient {
+
+        @RequestMapping(path = "/{id}")
+        String get(@PathVariable String id);
+
+        @RequestMapping(path = "/{id}/{version}")
+        String get(@PathVariable String id, @PathVariable int version);
+    }
+
+    private static final int ITERATIONS = 100_000;
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final MethodMetrics methodMetrics = new MethodMetrics(
+            ReflectionUtils.findMethod(MeteredClient.class, "get", String.class));
+
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    private long allocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private RestClientFactoryBean createFactoryBean() {
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            if (uri.getPath().equals("/down")) {
+                throw new IOException("Connection refused");
+            }
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse("text".getBytes(),
+                    uri.getPath().equals("/fail") ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK));
+            return request;
+        });
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(MeteredClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        return factoryBean;
+    }
+
+    @Test
+    void callsAndErrorsAreCounted() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean();
+        MeteredClient client = (MeteredClient) factoryBean.getObject();
+
+        client.get("1");
+        client.get("2");
+        assertThrows(ResourceAccessException.class, () -> client.get("down"));
+        assertThrows(HttpServerErrorException.class, () -> client.get("fail"));
+
+        MethodMetrics metrics = factoryBean.getMetrics()
+                .getMethodMetrics(ReflectionUtils.findMethod(MeteredClient.class, "get", String.class));
+        assertEquals(4, metrics.getCallCount());
+        assertEquals(0, metrics.getInFlightCount());
+        assertEquals(1, metrics.getErrorCount(ErrorClass.IoError));
+        assertEquals(1, metrics.getErrorCount(ErrorClass.ServerError));
+        assertEquals(0, metrics.getErrorCount(ErrorClass.ClientError));
+        assertEquals(4, metrics.getLatency().getCount());
+    }
+
+    @Test
+    void errorsByStatusClass() {
+        MeteredMethodInvoker clientError = new MeteredMethodInvoker(arguments -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }, methodMetrics, ReturnType.Value);
+        MeteredMethodInvoker serverError = new MeteredMethodInvoker(arguments -> {
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        }, methodMetrics, ReturnType.Value);
+
+        assertThrows(HttpClientErrorException.class, () -> clientError.invoke(NO_ARGUMENTS));
+        assertThrows(HttpServerErrorException.class, () -> serverError.invoke(NO_ARGUMENTS));
+        assertThrows(HttpServerErrorException.class, () -> serverError.invoke(NO_ARGUMENTS));
+
+        assertEquals(1, methodMetrics.getErrorCount(ErrorClass.ClientError));
+        assertEquals(2, methodMetrics.getErrorCount(ErrorClass.ServerError));
+        assertEquals(3, methodMetrics.getCallCount());
+    }
+
+    @Test
+    void completableFutureIsMeasuredUntilCompletion() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        MeteredMethodInvoker invoker = new MeteredMethodInvoker(arguments -> future, methodMetrics,
+                ReturnType.CompletableFuture);
+
+        CompletableFuture<?> result = (CompletableFuture<?>) invoker.invoke(NO_ARGUMENTS);
+        assertEquals(1, methodMetrics.getInFlightCount());
+
+        future.completeExceptionally(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, methodMetrics.getInFlightCount());
+        assertEquals(1, methodMetrics.getErrorCount(ErrorClass.ServerError));
+    }
+
+    @Test
+    void monoIsMeasuredFromSubscription() {
+        MeteredMethodInvoker invoker = new MeteredMethodInvoker(arguments -> Mono.just("value"), methodMetrics,
+                ReturnType.Mono);
+
+        Mono<?> mono = (Mono<?>) invoker.invoke(NO_ARGUMENTS);
+        assertEquals(0, methodMetrics.getCallCount());
+
+        assertEquals("value", mono.block());
+        assertEquals(1, methodMetrics.getCallCount());
+        assertEquals(0, methodMetrics.getInFlightCount());
+    }
+
+    @Test
+    void reactiveErrorsByStatusClass() {
+        MeteredMethodInvoker clientError = new MeteredMethodInvoker(
+                arguments -> Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null)),
+                methodMetrics, ReturnType.Mono);
+        MeteredMethodInvoker serverError = new MeteredMethodInvoker(
+                arguments -> Flux.error(WebClientResponseException.create(502, "Bad Gateway", null, null, null)),
+                methodMetrics, ReturnType.Flux);
+
+        assertThrows(WebClientResponseException.class, () -> ((Mono<?>) clientError.invoke(NO_ARGUMENTS)).block());
+        assertThrows(WebClientResponseException.class,
+                () -> ((Flux<?>) serverError.invoke(NO_ARGUMENTS)).blockLast());
+
+        assertEquals(1, methodMetrics.getErrorCount(ErrorClass.ClientError));
+        assertEquals(1, methodMetrics.getErrorCount(ErrorClass.ServerError));
+        assertEquals(0, methodMetrics.getErrorCount(ErrorClass.Other));
+    }
+
+    @Test
+    void metricsCanBeDisabled() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean();
+        factoryBean.setMetricsEnabled(false);
+        MeteredClient client = (MeteredClient) factoryBean.getObject();
+
+        assertEquals("text", client.get("1"));
+        assertNull(factoryBean.getMetrics());
+    }
+
+    @Test
+    void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        double p50 = histogram.getPercentile(0.5, TimeUnit.MILLISECONDS);
+        assertTrue(p50 >= 50 && p50 <= 100, () -> "p50 " + p50);
+        assertEquals(100, histogram.getPercentile(1, TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(100, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(5.05, histogram.getTotalTime(TimeUnit.SECONDS), 0.001);
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        Object result = "result";
+        MeteredMethodInvoker invoker = new MeteredMethodInvoker(arguments -> result, methodMetrics, ReturnType.Value);
+
+        // warm up and determine the overhead of the measurement itself
+        for (int i = 0; i < ITERATIONS; i++) {
+            invoker.invoke(NO_ARGUMENTS);
+        }
+        long before = allocatedBytes();
+        long overhead = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            invoker.invoke(NO_ARGUMENTS);
+        }
+        long allocated = allocatedBytes() - before - overhead;
+        // a few bytes may be allocated once by the JVM during the loop, but not per call
+        assertTrue(allocated < ITERATIONS, () -> allocated + " bytes allocated by " + ITERATIONS + " calls");
+    }
+
+    @Test
+    void micrometerBinder() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean();
+        MeteredClient client = (MeteredClient) factoryBean.getObject();
+        client.get("1");
+        client.get("1", 2);
+        client.get("1", 3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new RestClientMetricsBinder(factoryBean.getMetrics()).bindTo(registry);
+
+        // overloaded methods have meters of their own
+        assertEquals(1, registry.get("restclient.calls").tag("method", "get(String)").functionCounter().count());
+        assertEquals(2, registry.get("restclient.calls").tag("method", "get(String,int)").functionCounter().count());
+        FunctionCounter ioErrors = registry.get("restclient.errors").tag("method", "get(String)")
+                .tag("error", "IoError").functionCounter();
+        assertEquals(0, ioErrors.count());
+        FunctionTimer latency = registry.get("restclient.latency").tag("method", "get(String)").functionTimer();
+        assertEquals(1, latency.count());
+    }
+}
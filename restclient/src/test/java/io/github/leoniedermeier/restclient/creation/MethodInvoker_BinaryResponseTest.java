@@ -0,0 +1,185 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.ResponseBodySink;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * Methods returning the raw response body or transferring it to a
+ * {@link ResponseBodySink}.
+ */
+class MethodInvoker_BinaryResponseTest {
+
+    @RestClient(url = "http://my-uri")
+    interface BinaryTestClient {
+
+        @RequestMapping(path = "/files/{id}")
+        InputStream inputStream(@PathVariable String id);
+
+        @RequestMapping(path = "/files/{id}")
+        ReadableByteChannel channel(@PathVariable String id);
+
+        @RequestMapping(path = "/files/{id}")
+        long download(@PathVariable String id, @ResponseBodySink Path target);
+
+        @RequestMapping(path = "/files/{id}")
+        void download(@PathVariable String id, @ResponseBodySink WritableByteChannel target);
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidSinkClient {
+
+        @RequestMapping(path = "/files")
+        String download(@ResponseBodySink Path target);
+    }
+
+    static class TrackingInputStream extends ByteArrayInputStream {
+
+        boolean closed;
+
+        TrackingInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private TrackingInputStream body;
+
+    private BinaryTestClient client;
+
+    private final byte[] content = new byte[200_000];
+
+    private MockClientHttpRequest request;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        new Random(42).nextBytes(content);
+        body = new TrackingInputStream(content);
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            request = new MockClientHttpRequest(httpMethod, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(body, HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            request.setResponse(response);
+            return request;
+        });
+
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(BinaryTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        client = (BinaryTestClient) factoryBean.getObject();
+    }
+
+    @Test
+    void inputStream() throws Exception {
+        try (InputStream inputStream = client.inputStream("1")) {
+            assertFalse(body.closed);
+            assertArrayEquals(content, StreamUtils.copyToByteArray(inputStream));
+        }
+        assertTrue(body.closed);
+        assertEquals("*/*", request.getHeaders().getFirst("Accept"));
+    }
+
+    @Test
+    void readableByteChannel() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        try (ReadableByteChannel channel = client.channel("1")) {
+            while (channel.read(buffer) >= 0) {
+                target.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        assertArrayEquals(content, target.toByteArray());
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void pathSink(@TempDir Path directory) throws Exception {
+        Path target = directory.resolve("download.bin");
+        Files.write(target, new byte[300_000]);
+
+        assertEquals(content.length, client.download("1", target));
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void channelSink() {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(target);
+
+        client.download("1", channel);
+
+        assertArrayEquals(content, target.toByteArray());
+        assertTrue(channel.isOpen());
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void requiredSink() {
+        assertThrows(IllegalArgumentException.class, () -> client.download("1", (Path) null));
+        assertNull(request);
+    }
+
+    @Test
+    void sinkMethodMustReturnVoidOrLong() throws Exception {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment());
+
+        assertThrows(IllegalStateException.class,
+                () -> parser.parse(InvalidSinkClient.class.getMethod("download", Path.class)));
+    }
+
+    @Test
+    void bufferPool() {
+        ByteBufferPool pool = new ByteBufferPool(16, 1);
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        first.put((byte) 1);
+
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(1, pool.size());
+        ByteBuffer reused = pool.acquire();
+        assertSame(first, reused);
+        assertEquals(0, reused.position());
+        assertTrue(reused.hasArray());
+    }
+}
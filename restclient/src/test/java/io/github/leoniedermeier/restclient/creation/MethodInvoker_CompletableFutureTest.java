@@ -0,0 +1,112 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestOperations;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+
+class MethodInvoker_CompletableFutureTest {
+
+    @RestClient(url = "http://my-uri")
+    interface CompletableFutureTestClient {
+
+        @RequestMapping(path = "/{id}")
+        CompletableFuture<String> get(@PathVariable String id);
+
+        @RequestMapping(path = "/list")
+        CompletableFuture<List<String>> getList();
+    }
+
+    private ExecutorService executor;
+
+    private RestOperations restOperations;
+
+    private RestClientFactoryBean factoryBean;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        restOperations = Mockito.mock(RestOperations.class);
+
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(CompletableFutureTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restOperations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void payloadTypeIsUnwrapped() {
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment())
+                .parse(ReflectionUtils.findMethod(CompletableFutureTestClient.class, "getList"));
+
+        assertEquals(ReturnType.CompletableFuture, methodMetaData.getReturnType());
+        assertEquals(new ParameterizedTypeReference<List<String>>() {
+        }, methodMetaData.getResponseType());
+    }
+
+    @Test
+    void executedOnExecutor() throws Exception {
+        Thread executorThread = executor.submit(Thread::currentThread).get();
+        Mockito.when(restOperations.exchange(eq(new URI("http://my-uri/1")), eq(HttpMethod.GET),
+                any(HttpEntity.class), eq(ParameterizedTypeReference.forType(String.class))))
+                .then(invocation -> {
+                    assertSame(executorThread, Thread.currentThread());
+                    return new ResponseEntity<Object>("SUCCESS", HttpStatus.OK);
+                });
+        factoryBean.setExecutor(executor);
+        CompletableFutureTestClient client = (CompletableFutureTestClient) factoryBean.getObject();
+
+        assertEquals("SUCCESS", client.get("1").get());
+    }
+
+    @Test
+    void exceptionCompletesFuture() throws Exception {
+        Mockito.when(restOperations.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ParameterizedTypeReference.forType(String.class))))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        factoryBean.setExecutor(executor);
+        CompletableFutureTestClient client = (CompletableFutureTestClient) factoryBean.getObject();
+
+        CompletableFuture<String> future = client.get("1");
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertEquals(HttpServerErrorException.class, exception.getCause().getClass());
+    }
+
+    @Test
+    void noExecutor() {
+        assertThrows(IllegalStateException.class, factoryBean::getObject);
+    }
+}
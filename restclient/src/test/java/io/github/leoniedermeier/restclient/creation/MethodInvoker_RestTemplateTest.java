@@ -0,0 +1,96 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * Invocations through a {@link RestTemplate}, where the response converters are
+ * selected at parse time.
+ */
+class MethodInvoker_RestTemplateTest {
+
+    @RestClient(url = "http://my-uri")
+    interface RestTemplateTestClient {
+
+        @RequestMapping(path = "/list/{id}")
+        List<Integer> getList(@PathVariable String id);
+
+        @RequestMapping(path = "/text", method = RequestMethod.POST)
+        String post(@RequestBody String body);
+
+        @RequestMapping(path = "/void", method = RequestMethod.DELETE)
+        void delete();
+    }
+
+    private MockRestServiceServer server;
+    private RestTemplateTestClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(RestTemplateTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        client = (RestTemplateTestClient) factoryBean.getObject();
+    }
+
+    @Test
+    void genericResponse() {
+        server.expect(requestTo("http://my-uri/list/1")).andExpect(method(HttpMethod.GET))
+                .andExpect(header("Accept", "application/json, application/*+json"))
+                .andRespond(withSuccess("[1,2,3]", MediaType.APPLICATION_JSON));
+
+        assertEquals(Arrays.asList(1, 2, 3), client.getList("1"));
+        server.verify();
+    }
+
+    @Test
+    void requestBody() {
+        server.expect(requestTo("http://my-uri/text")).andExpect(method(HttpMethod.POST))
+                .andExpect(content().string("myBody")).andRespond(withSuccess("SUCCESS", MediaType.TEXT_PLAIN));
+
+        assertEquals("SUCCESS", client.post("myBody"));
+        server.verify();
+    }
+
+    @Test
+    void voidResponse() {
+        server.expect(requestTo("http://my-uri/void")).andExpect(method(HttpMethod.DELETE))
+                .andRespond(withSuccess());
+
+        client.delete();
+        server.verify();
+    }
+
+    @Test
+    void emptyResponse() {
+        server.expect(requestTo("http://my-uri/list/1")).andRespond(withSuccess());
+
+        assertNull(client.getList("1"));
+    }
+}
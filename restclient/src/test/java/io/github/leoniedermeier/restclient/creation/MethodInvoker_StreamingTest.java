@@ -0,0 +1,193 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * Methods returning a {@link Stream}, {@link Iterator} or {@link Spliterator}
+ * read the elements of a JSON array from the open response.
+ */
+class MethodInvoker_StreamingTest {
+
+    @RestClient(url = "http://my-uri")
+    interface StreamingTestClient {
+
+        @RequestMapping(path = "/items")
+        Iterator<Item> iterator();
+
+        @RequestMapping(path = "/items")
+        Spliterator<Item> spliterator();
+
+        @RequestMapping(path = "/items/{id}")
+        Stream<Item> stream(@PathVariable String id);
+    }
+
+    static class Item {
+        public String name;
+    }
+
+    static class TrackingInputStream extends ByteArrayInputStream {
+
+        boolean closed;
+
+        TrackingInputStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private final List<MockClientHttpRequest> requests = new ArrayList<>();
+
+    private TrackingInputStream body;
+
+    private StreamingTestClient client(HttpStatus status, String content) throws Exception {
+        body = new TrackingInputStream(content);
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(body, status);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.setResponse(response);
+            requests.add(request);
+            return request;
+        });
+
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(StreamingTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        return (StreamingTestClient) factoryBean.getObject();
+    }
+
+    @Test
+    void stream() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"}]");
+
+        try (Stream<Item> stream = client.stream("1")) {
+            assertEquals(Arrays.asList("a", "b", "c"), stream.map(item -> item.name).collect(Collectors.toList()));
+        }
+        assertTrue(body.closed);
+        assertEquals("http://my-uri/items/1", requests.get(0).getURI().toString());
+        assertEquals(Arrays.asList(MediaType.APPLICATION_JSON), requests.get(0).getHeaders().getAccept());
+    }
+
+    @Test
+    void streamClosedBeforeEnd() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "[{\"name\":\"a\"},{\"name\":\"b\"}]");
+
+        try (Stream<Item> stream = client.stream("1")) {
+            assertEquals("a", stream.findFirst().get().name);
+            assertFalse(body.closed);
+        }
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void iterator() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "[{\"name\":\"a\"},{\"name\":\"b\"}]");
+
+        Iterator<Item> iterator = client.iterator();
+        assertTrue(iterator.hasNext());
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next().name);
+        assertEquals("b", iterator.next().name);
+        assertFalse(body.closed);
+        assertFalse(iterator.hasNext());
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void iteratorClosedBeforeEnd() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "[{\"name\":\"a\"},{\"name\":\"b\"}]");
+
+        Iterator<Item> iterator = client.iterator();
+        assertEquals("a", iterator.next().name);
+        assertFalse(body.closed);
+        ((Closeable) iterator).close();
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void spliterator() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "[{\"name\":\"a\"}]");
+
+        List<String> names = new ArrayList<>();
+        client.spliterator().forEachRemaining(item -> names.add(item.name));
+
+        assertEquals(Arrays.asList("a"), names);
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void spliteratorClosedBeforeEnd() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "[{\"name\":\"a\"},{\"name\":\"b\"}]");
+
+        Spliterator<Item> spliterator = client.spliterator();
+        assertTrue(spliterator.tryAdvance(item -> assertEquals("a", item.name)));
+        assertFalse(body.closed);
+        ((Closeable) spliterator).close();
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void emptyBody() throws Exception {
+        StreamingTestClient client = client(HttpStatus.OK, "");
+
+        assertFalse(client.iterator().hasNext());
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void errorStatus() throws Exception {
+        StreamingTestClient client = client(HttpStatus.INTERNAL_SERVER_ERROR, "");
+
+        assertThrows(HttpServerErrorException.class, () -> client.stream("1"));
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void explicitAcceptHeaderIsKept() {
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment())
+                .parse(ReflectionTestClient.class.getMethods()[0]);
+
+        assertEquals("application/x-ndjson", methodMetaData.getHeaders().getFirst(HttpHeaders.ACCEPT));
+        assertTrue(methodMetaData.getReturnType().isStreaming());
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface ReflectionTestClient {
+
+        @RequestMapping(path = "/items", headers = "Accept=application/x-ndjson")
+        Stream<Item> stream();
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+/**
+ * <code>Path</code>, <code>InputStream</code> and <code>RequestPart</code>
+ * request bodies are written without message conversion.
+ */
+class MethodInvoker_StreamingUploadTest {
+
+    @RestClient(url = "http://my-uri")
+    interface UploadTestClient {
+
+        @RequestMapping(path = "/files", method = RequestMethod.PUT)
+        String upload(@RequestBody Path file);
+
+        @RequestMapping(path = "/files", method = RequestMethod.PUT, headers = "Content-Type=image/png")
+        void upload(@RequestBody InputStream data);
+
+        @RequestMapping(path = "/files", method = RequestMethod.POST)
+        String multipart(@RequestPart("file") Path file, @RequestPart("description") String description,
+                @RequestPart(name = "meta", required = false) Map<String, Object> meta);
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidUploadClient {
+
+        @RequestMapping(path = "/files", method = RequestMethod.POST)
+        void upload(@RequestBody String body, @RequestPart("file") Path file);
+    }
+
+    static class TrackingInputStream extends ByteArrayInputStream {
+
+        boolean closed;
+
+        TrackingInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private UploadTestClient client;
+
+    private final byte[] content = new byte[100_000];
+
+    private MockClientHttpRequest request;
+
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        new Random(42).nextBytes(content);
+        restTemplate = new RestTemplate((uri, httpMethod) -> {
+            request = new MockClientHttpRequest(httpMethod, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(
+                    "OK".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+            request.setResponse(response);
+            return request;
+        });
+
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(UploadTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        client = (UploadTestClient) factoryBean.getObject();
+    }
+
+    @Test
+    void pathBody(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("upload.bin"), content);
+
+        assertEquals("OK", client.upload(file));
+
+        assertEquals(HttpMethod.PUT, request.getMethod());
+        assertEquals(content.length, request.getHeaders().getContentLength());
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, request.getHeaders().getContentType());
+        assertArrayEquals(content, request.getBodyAsBytes());
+    }
+
+    @Test
+    void inputStreamBody() {
+        TrackingInputStream data = new TrackingInputStream(content);
+
+        client.upload(data);
+
+        assertEquals(MediaType.IMAGE_PNG, request.getHeaders().getContentType());
+        assertEquals(-1, request.getHeaders().getContentLength());
+        assertArrayEquals(content, request.getBodyAsBytes());
+        assertTrue(data.closed);
+    }
+
+    @Test
+    void multipart(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("a.txt"), "file content".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("OK", client.multipart(file, "a description", Collections.singletonMap("key", "value")));
+
+        MediaType contentType = request.getHeaders().getContentType();
+        assertTrue(MediaType.MULTIPART_FORM_DATA.includes(contentType));
+        String boundary = contentType.getParameter("boundary");
+        String body = request.getBodyAsString(StandardCharsets.UTF_8);
+        assertEquals("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n"
+                + "file content\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"description\"\r\n"
+                + "Content-Type: text/plain;charset=UTF-8\r\n\r\n"
+                + "a description\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"meta\"\r\n"
+                + "Content-Type: application/json\r\n\r\n"
+                + "{\"key\":\"value\"}\r\n"
+                + "--" + boundary + "--\r\n", body);
+    }
+
+    @Test
+    void multipartWithoutOptionalPart(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("a.txt"), "file content".getBytes(StandardCharsets.UTF_8));
+
+        client.multipart(file, "a description", null);
+
+        assertFalse(request.getBodyAsString(StandardCharsets.UTF_8).contains("name=\"meta\""));
+    }
+
+    @Test
+    void generatedMultipart(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("a.txt"), "file content".getBytes(StandardCharsets.UTF_8));
+        Method method = UploadTestClient.class.getMethod("multipart", Path.class, String.class, Map.class);
+        GeneratedMethodMetaData generatedMethod = new GeneratedMethodMetaData("multipart",
+                method.getParameterTypes(), "POST", "/files", new String[0],
+                GeneratedMethodMetaData.parameter("RequestPart", "file", 0, true),
+                GeneratedMethodMetaData.parameter("RequestPart", "description", 1, true),
+                GeneratedMethodMetaData.parameter("RequestPart", "meta", 2, false));
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment(),
+                restTemplate.getMessageConverters()).parse(method, generatedMethod);
+
+        assertTrue(methodMetaData.isStreamingRequestBody());
+        new RestOperationsMethodInvoker(restTemplate, methodMetaData, null)
+                .invoke(new Object[] { file, "a description", null });
+
+        assertTrue(MediaType.MULTIPART_FORM_DATA.includes(request.getHeaders().getContentType()));
+        String body = request.getBodyAsString(StandardCharsets.UTF_8);
+        assertTrue(body.contains("name=\"file\"; filename=\"a.txt\""));
+        assertTrue(body.contains("a description"));
+    }
+
+    @Test
+    void requestBodyAndRequestPart() throws Exception {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment());
+        Method method = InvalidUploadClient.class.getMethod("upload", String.class, Path.class);
+
+        GeneratedMethodMetaData generatedMethod = new GeneratedMethodMetaData("upload", method.getParameterTypes(),
+                "POST", "/files", new String[0],
+                GeneratedMethodMetaData.parameter("RequestBody", "__requestBody", 0, true),
+                GeneratedMethodMetaData.parameter("RequestPart", "file", 1, true));
+
+        assertThrows(IllegalStateException.class, () -> parser.parse(method));
+        assertThrows(IllegalStateException.class, () -> parser.parse(method, generatedMethod));
+    }
+
+    @Test
+    void bufferingRequestFactories() throws Exception {
+        URI uri = URI.create("http://my-uri/files");
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+        try {
+            assertTrue(StreamingRequestCallback.isBuffering(requestFactory.createRequest(uri, HttpMethod.PUT)));
+            requestFactory.setBufferRequestBody(false);
+            assertFalse(StreamingRequestCallback.isBuffering(requestFactory.createRequest(uri, HttpMethod.PUT)));
+        } finally {
+            requestFactory.destroy();
+        }
+        assertFalse(StreamingRequestCallback.isBuffering(new MockClientHttpRequest(HttpMethod.PUT, uri)));
+    }
+}
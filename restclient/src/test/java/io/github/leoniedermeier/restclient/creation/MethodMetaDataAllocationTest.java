@@ -0,0 +1,119 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+
+/**
+ * Regression test: binding the arguments of a call with the
+ * {@link MethodMetaData} must not allocate.
+ */
+class MethodMetaDataAllocationTest {
+
+    @RestClient(url = "http://my-uri")
+    interface AllocationTestClient {
+
+        @RequestMapping(path = "/{id}", headers = "x=1")
+        String all(@PathVariable String id, @RequestParam String query, @RequestHeader String header,
+                @RequestBody String body);
+    }
+
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * The bytes which the JVM may allocate once during a measurement, for example
+     * for a compilation, independent of the number of calls.
+     */
+    private static final long MAX_ALLOCATED_BYTES = 1024;
+
+    private static final Type[] TYPES = Type.values();
+
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    private long allocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * The arguments bound by the last call. The field lets the values escape, so
+     * the JIT cannot remove the lookups as dead code.
+     */
+    private Object[] bound;
+
+    /**
+     * The number of arguments bound by the measured calls, it escapes like
+     * {@link #bound}.
+     */
+    private long boundCount;
+
+    /**
+     * Binds the arguments to the parameters like a call does: the parameter
+     * descriptions of every type are looked up and their argument values read.
+     */
+    private int bindArguments(MethodMetaData methodMetaData, Object[] arguments) {
+        int count = 0;
+        for (int t = 0; t < TYPES.length; t++) {
+            ParameterDesciption[] parameterDesciptions = methodMetaData.getParameterDesciptions(TYPES[t]);
+            for (int i = 0; i < parameterDesciptions.length; i++) {
+                bound[count++] = parameterDesciptions[i].getArgumentValue(arguments);
+            }
+        }
+        bound[count++] = MethodInvoker.buildBody(methodMetaData, arguments);
+        bound[count++] = methodMetaData.getHeaders();
+        bound[count++] = methodMetaData.getUriTemplate();
+        bound[count++] = methodMetaData.getHttpMethod();
+        return count;
+    }
+
+    /**
+     * Returns the bytes allocated by the given number of calls, including the
+     * overhead of the measurement itself.
+     */
+    private long measure(MethodMetaData methodMetaData, Object[] arguments, int iterations) {
+        long count = 0;
+        long before = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            count += bindArguments(methodMetaData, arguments);
+        }
+        long allocated = allocatedBytes() - before;
+        boundCount = count;
+        return allocated;
+    }
+
+    @Test
+    void bindingArgumentsDoesNotAllocate() {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment()).parse(ReflectionUtils
+                .findMethod(AllocationTestClient.class, "all", String.class, String.class, String.class, String.class));
+        Object[] arguments = { "id", "query", "header", "body" };
+        bound = new Object[arguments.length + 4];
+
+        // warm up, then determine the overhead of the measurement without calls
+        measure(methodMetaData, arguments, ITERATIONS);
+        long overhead = measure(methodMetaData, arguments, 0);
+
+        long allocated = measure(methodMetaData, arguments, ITERATIONS) - overhead;
+        assertTrue(allocated < MAX_ALLOCATED_BYTES,
+                () -> allocated + " bytes allocated by " + ITERATIONS + " calls");
+        assertEquals((long) ITERATIONS * bound.length, boundCount);
+        assertEquals("body", bound[arguments.length]);
+    }
+}
@@ -224,25 +224,25 @@ class MethodMetaDataParserTest {
 		void noPathVariable() throws Exception {
 			MethodMetaData methodMetaData = parser.parse(getMethod("noPathVariable"));
 
-			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable).size(), 0);
+			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable).length, 0);
 		}
 
 		@Test
 		void withPathVariable() throws Exception {
 			MethodMetaData methodMetaData = parser.parse(getMethod("withPathVariable"));
 
-			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable).size(), 1);
-			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable).get(0).getIndex(), 1);
-			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable).get(0).getName(), "myPathVariable");
+			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable).length, 1);
+			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable)[0].getIndex(), 1);
+			assertEquals(methodMetaData.getParameterDesciptions(Type.PathVariable)[0].getName(), "myPathVariable");
 		}
 
 		@Test
 		void withPathVariableAndName() throws Exception {
 			MethodMetaData methodMetaData = parser.parse(getMethod("withPathVariableAndName"));
 
-			assertEquals(1, methodMetaData.getParameterDesciptions(Type.PathVariable).size());
-			assertEquals(0, methodMetaData.getParameterDesciptions(Type.PathVariable).get(0).getIndex());
-			assertEquals("myName", methodMetaData.getParameterDesciptions(Type.PathVariable).get(0).getName());
+			assertEquals(1, methodMetaData.getParameterDesciptions(Type.PathVariable).length);
+			assertEquals(0, methodMetaData.getParameterDesciptions(Type.PathVariable)[0].getIndex());
+			assertEquals("myName", methodMetaData.getParameterDesciptions(Type.PathVariable)[0].getName());
 		}
 
 	}
@@ -0,0 +1,63 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ParameterDesciption.Type;
+
+class MethodMetaDataParser_ParallelTest {
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidClient {
+
+        @RequestMapping(path = { "/a", "/b" })
+        String invalid();
+    }
+
+    private static final int METHODS = 200;
+
+    private final MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment());
+
+    private static List<Method> methods(Class<?> type) {
+        List<Method> methods = new ArrayList<>(Arrays.asList(type.getMethods()));
+        methods.sort(Comparator.comparing(method -> Integer.parseInt(method.getName().substring(1))));
+        return methods;
+    }
+
+    @Test
+    void parsedInOrder() {
+        Class<?> type = new ClientInterfaceGenerator().generate("parallel.Client", METHODS);
+        List<Method> methods = methods(type);
+
+        List<MethodMetaData> methodMetaDatas = parser.parse(methods);
+
+        assertEquals(METHODS, methodMetaDatas.size());
+        for (int i = 0; i < METHODS; i++) {
+            MethodMetaData methodMetaData = methodMetaDatas.get(i);
+            assertEquals(methods.get(i), methodMetaData.getMethod());
+            assertEquals("http://stub/m" + i + "/x?query=y",
+                    methodMetaData.getUriTemplate().expand(new Object[] { "x", "y", "z" }).toString());
+            assertEquals("X-Header", methodMetaData.getParameterDesciptions(Type.RequestHeader)[0].getName());
+        }
+    }
+
+    @Test
+    void exceptionOfParallelParsing() {
+        Class<?> type = new ClientInterfaceGenerator().generate("parallel.ValidClient", METHODS);
+        List<Method> methods = methods(type);
+        methods.add(METHODS / 2, InvalidClient.class.getMethods()[0]);
+
+        assertThrows(IllegalStateException.class, () -> parser.parse(methods));
+    }
+}
@@ -6,7 +6,6 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.util.ReflectionUtils.getUniqueDeclaredMethods;
 
 import java.lang.reflect.Method;
-import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.env.MockEnvironment;
@@ -43,7 +42,7 @@ class MethodMetaDataParser_PathVariableTest {
         return  ReflectionUtils.findMethod(PathVariableTestClient.class, methodName, null);
     }
 
-    private List<ParameterDesciption> getParameterDescriptionsForPathVariable(MethodMetaData methodMetaData) {
+    private ParameterDesciption[] getParameterDescriptionsForPathVariable(MethodMetaData methodMetaData) {
         return methodMetaData.getParameterDesciptions(Type.PathVariable);
     }
 
@@ -51,7 +50,7 @@ class MethodMetaDataParser_PathVariableTest {
     void noPathVariable() {
         MethodMetaData methodMetaData = parser.parse(getMethod("noPathVariable"));
 
-        assertEquals(0, getParameterDescriptionsForPathVariable(methodMetaData).size());
+        assertEquals(0, getParameterDescriptionsForPathVariable(methodMetaData).length);
     }
 
     @Test
@@ -77,8 +76,8 @@ class MethodMetaDataParser_PathVariableTest {
 
     private static void assertOnePathVariableWithName(MethodMetaData methodMetaData, int parameterIndex, String name,
             boolean required) {
-        assertEquals(1, methodMetaData.getParameterDesciptions(Type.PathVariable).size());
-        ParameterDesciption parameterDesciption = methodMetaData.getParameterDesciptions(Type.PathVariable).get(0);
+        assertEquals(1, methodMetaData.getParameterDesciptions(Type.PathVariable).length);
+        ParameterDesciption parameterDesciption = methodMetaData.getParameterDesciptions(Type.PathVariable)[0];
         assertEquals(parameterIndex, parameterDesciption.getIndex());
         assertEquals(name, parameterDesciption.getName());
         assertEquals(required, parameterDesciption.isRequired());
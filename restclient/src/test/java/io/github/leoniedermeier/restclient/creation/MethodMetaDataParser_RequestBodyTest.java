@@ -44,7 +44,7 @@ class MethodMetaDataParser_RequestBodyTest {
     void noRequestBody() {
         MethodMetaData methodMetaData = parser.parse(getMethod("noRequestBody"));
 
-        assertEquals(methodMetaData.getParameterDesciptions(Type.RequestBody).size(), 0);
+        assertEquals(methodMetaData.getParameterDesciptions(Type.RequestBody).length, 0);
     }
 
     @Test
@@ -65,8 +65,8 @@ class MethodMetaDataParser_RequestBodyTest {
     }
 
     private static void assertRequestBody(MethodMetaData methodMetaData, int parameterIndex, boolean required) {
-        assertEquals(1, methodMetaData.getParameterDesciptions(Type.RequestBody).size());
-        ParameterDesciption parameterDesciption = methodMetaData.getParameterDesciptions(Type.RequestBody).get(0);
+        assertEquals(1, methodMetaData.getParameterDesciptions(Type.RequestBody).length);
+        ParameterDesciption parameterDesciption = methodMetaData.getParameterDesciptions(Type.RequestBody)[0];
         assertEquals(parameterIndex, parameterDesciption.getIndex());
         assertEquals(required, parameterDesciption.isRequired());
     }
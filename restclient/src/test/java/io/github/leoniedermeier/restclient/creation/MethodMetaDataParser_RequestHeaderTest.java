@@ -42,7 +42,7 @@ class MethodMetaDataParser_RequestHeaderTest {
     void noRequestHeader() throws Exception {
         MethodMetaData methodMetaData = parser.parse(getMethod("noRequestHeader"));
 
-        assertEquals(methodMetaData.getParameterDesciptions(Type.RequestHeader).size(), 0);
+        assertEquals(methodMetaData.getParameterDesciptions(Type.RequestHeader).length, 0);
     }
 
     @Test
@@ -65,8 +65,8 @@ class MethodMetaDataParser_RequestHeaderTest {
 
     private static void assertOneRequestHeaderWithName(MethodMetaData methodMetaData, int parameterIndex,
             String expected, boolean required) {
-        assertEquals(1, methodMetaData.getParameterDesciptions(Type.RequestHeader).size());
-        ParameterDesciption parameterDesciption = methodMetaData.getParameterDesciptions(Type.RequestHeader).get(0);
+        assertEquals(1, methodMetaData.getParameterDesciptions(Type.RequestHeader).length);
+        ParameterDesciption parameterDesciption = methodMetaData.getParameterDesciptions(Type.RequestHeader)[0];
         assertEquals(parameterIndex, parameterDesciption.getIndex());
         assertEquals(expected, parameterDesciption.getName());
         assertEquals(required, parameterDesciption.isRequired());
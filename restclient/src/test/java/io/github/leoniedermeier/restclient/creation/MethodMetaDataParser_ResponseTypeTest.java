@@ -0,0 +1,78 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+class MethodMetaDataParser_ResponseTypeTest {
+
+    @RestClient(url = "myUrl")
+    interface ResponseTypeTestClient {
+
+        @RequestMapping
+        List<String> genericResponse();
+
+        @RequestMapping(headers = "Accept=text/plain")
+        String withAcceptHeader();
+
+        @RequestMapping
+        void noResponse();
+    }
+
+    private MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment(),
+            new RestTemplate().getMessageConverters());
+
+    private Method getMethod(String methodName) {
+        return ReflectionUtils.findMethod(ResponseTypeTestClient.class, methodName);
+    }
+
+    @Test
+    void genericResponse() {
+        MethodMetaData methodMetaData = parser.parse(getMethod("genericResponse"));
+
+        assertEquals(new ParameterizedTypeReference<List<String>>() {
+        }, methodMetaData.getResponseType());
+        assertNotNull(methodMetaData.getResponseExtractor());
+        assertTrue(methodMetaData.getHeaders().getAccept().contains(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void withAcceptHeader() {
+        MethodMetaData methodMetaData = parser.parse(getMethod("withAcceptHeader"));
+
+        assertNotNull(methodMetaData.getResponseExtractor());
+        assertEquals("text/plain", methodMetaData.getHeaders().getFirst(HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void noResponse() {
+        MethodMetaData methodMetaData = parser.parse(getMethod("noResponse"));
+
+        assertNull(methodMetaData.getResponseExtractor());
+        assertNull(methodMetaData.getHeaders().get(HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void withoutMessageConverters() {
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment())
+                .parse(getMethod("genericResponse"));
+
+        assertNull(methodMetaData.getResponseExtractor());
+        assertNull(methodMetaData.getHeaders().get(HttpHeaders.ACCEPT));
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.CircuitBreaker;
+import io.github.leoniedermeier.restclient.annotation.Hedged;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.annotation.Retry;
+
+/**
+ * Spring WebFlux and Reactor are optional dependencies: a client without
+ * reactive methods works without them on the class path.
+ */
+class OptionalReactorTest {
+
+    @RestClient(url = "http://my-uri")
+    @Retry
+    @Hedged(delay = 1000)
+    @CircuitBreaker
+    interface ServletClient {
+
+        @RequestMapping(path = "/{id}")
+        String get(@PathVariable String id);
+    }
+
+    /**
+     * Hides Reactor and Spring WebFlux. The classes of the library are loaded by
+     * this class loader, so they do not see the hidden classes either.
+     */
+    private static final class HidingClassLoader extends ClassLoader {
+
+        private static final String LIBRARY_PACKAGE = "io.github.leoniedermeier.restclient.";
+
+        HidingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("reactor.") || name.startsWith("org.springframework.web.reactive.")) {
+                throw new ClassNotFoundException(name);
+            }
+            if (!name.startsWith(LIBRARY_PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    byte[] bytes;
+                    try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        if (in == null) {
+                            throw new ClassNotFoundException(name);
+                        }
+                        bytes = StreamUtils.copyToByteArray(in);
+                    } catch (IOException ex) {
+                        throw new ClassNotFoundException(name, ex);
+                    }
+                    loaded = defineClass(name, bytes, 0, bytes.length);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+    }
+
+    @Test
+    void clientWithoutReactiveMethodsDoesNotNeedReactor() throws Exception {
+        ClassLoader classLoader = new HidingClassLoader(getClass().getClassLoader());
+        assertThrows(ClassNotFoundException.class, () -> classLoader.loadClass("reactor.core.publisher.Mono"));
+        Class<?> factoryBeanType = classLoader.loadClass(RestClientFactoryBean.class.getName());
+        Class<?> clientType = classLoader.loadClass(ServletClient.class.getName());
+
+        // like the bean introspection of an application context
+        BeanUtils.getPropertyDescriptors(factoryBeanType);
+        BeanWrapper factoryBean = new BeanWrapperImpl(factoryBeanType);
+        factoryBean.setPropertyValue("type", clientType);
+        factoryBean.setPropertyValue("environment", new MockEnvironment());
+        factoryBean.setPropertyValue("restOperations", new RestTemplate((uri, httpMethod) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse(uri.getPath().getBytes(), HttpStatus.OK));
+            return request;
+        }));
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        // the proxy class is defined in the context class loader
+        thread.setContextClassLoader(classLoader);
+        try {
+            Object client = ((FactoryBean<?>) factoryBean.getWrappedInstance()).getObject();
+            // the interface is package private in another class loader
+            Method get = clientType.getMethod("get", String.class);
+            get.setAccessible(true);
+
+            assertEquals("/id", get.invoke(client, "id"));
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+
+class PooledHttpTransportTest {
+
+    @RestClient(name = "pooled", url = "http://localhost:${server.port}", maxConnectionsTotal = 10, readTimeout = 1000)
+    interface PooledClient {
+
+        @RequestMapping(path = "/text")
+        String getText();
+
+        @RequestMapping(path = "/upload", method = RequestMethod.PUT)
+        String upload(@RequestBody InputStream data);
+    }
+
+    /**
+     * Returns <code>size</code> zero bytes without holding them in memory.
+     */
+    static class ZeroInputStream extends InputStream {
+
+        private long remaining;
+
+        ZeroInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = (int) Math.min(len, remaining);
+            Arrays.fill(b, off, off + read, (byte) 0);
+            remaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * The heap which an upload may allocate, far less than the uploaded body.
+     */
+    private static final long HEAP_BUDGET = 8L * 1024 * 1024;
+
+    @RestClient(url = "http://localhost")
+    interface DefaultClient {
+
+        @RequestMapping(path = "/text")
+        String getText();
+    }
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private RestClientFactoryBean factoryBean;
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/text", exchange -> {
+            byte[] body = "text".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/upload", exchange -> {
+            long received = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = exchange.getRequestBody()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    received += read;
+                }
+            }
+            byte[] body = String.valueOf(received).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        environment.setProperty("server.port", String.valueOf(server.getAddress().getPort()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop(0);
+        if (factoryBean != null) {
+            factoryBean.destroy();
+        }
+    }
+
+    private Object createClient(Class<?> type) throws Exception {
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(type);
+        factoryBean.setEnvironment(environment);
+        return factoryBean.getObject();
+    }
+
+    @Test
+    void factoryCreatesPooledTransport() throws Exception {
+        environment.setProperty("restclient.pooled.max-connections-per-route", "5");
+        PooledClient client = (PooledClient) createClient(PooledClient.class);
+
+        assertEquals("text", client.getText());
+        assertEquals("text", client.getText());
+
+        PooledHttpTransport transport = factoryBean.getPooledHttpTransport();
+        assertEquals(10, transport.getMaxTotal());
+        assertEquals(5, transport.getMaxPerRoute());
+        assertEquals(1000, transport.getRequestConfig().getSocketTimeout());
+        assertEquals(5000, transport.getRequestConfig().getConnectTimeout());
+        assertEquals(0, transport.getLeased());
+        assertEquals(1, transport.getAvailable());
+        assertEquals(0, transport.getPending());
+    }
+
+    @Test
+    void defaultSettings() throws Exception {
+        createClient(DefaultClient.class);
+
+        PooledHttpTransport transport = factoryBean.getPooledHttpTransport();
+        assertEquals(50, transport.getMaxTotal());
+        assertEquals(20, transport.getMaxPerRoute());
+        assertEquals(30000, transport.getRequestConfig().getSocketTimeout());
+    }
+
+    @Test
+    void noTransportWithRestOperations() throws Exception {
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(DefaultClient.class);
+        factoryBean.setEnvironment(environment);
+        factoryBean.setRestOperations(new RestTemplate());
+
+        assertNotNull(factoryBean.getObject());
+        assertNull(factoryBean.getPooledHttpTransport());
+    }
+
+    @Test
+    void requestBodyIsNotBuffered() throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        // the wire log of HttpClient, which is on if no logging is configured, allocates for every byte
+        LoggingSystem loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        loggingSystem.setLogLevel("org.apache.http.wire", LogLevel.OFF);
+        try {
+            PooledClient client = (PooledClient) createClient(PooledClient.class);
+            long size = 8 * HEAP_BUDGET;
+            // warm up the connection and the converters
+            assertEquals("1", client.upload(new ZeroInputStream(1)));
+
+            long threadId = Thread.currentThread().getId();
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            assertEquals(String.valueOf(size), client.upload(new ZeroInputStream(size)));
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+            assertTrue(allocated < HEAP_BUDGET, "allocated " + allocated + " bytes");
+        } finally {
+            loggingSystem.setLogLevel("org.apache.http.wire", null);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mockito;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestOperations;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.RestClientFactoryBean.ProxyMode;
+
+class RestClientFactoryBeanTest {
+
+    @RestClient(url = "http://my-uri")
+    interface FactoryBeanTestClient {
+
+        @RequestMapping(path = "/{id}")
+        String get(@PathVariable String id);
+
+        @RequestMapping(path = "/other")
+        String other();
+
+        String notAnnotated();
+
+        default String withDefault() {
+            return "default " + other();
+        }
+    }
+
+    private RestOperations restOperations;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        restOperations = Mockito.mock(RestOperations.class);
+        Mockito.when(restOperations.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ParameterizedTypeReference.forType(String.class))))
+                .then(invocation -> new ResponseEntity<Object>(invocation.getArgument(0).toString(), HttpStatus.OK));
+    }
+
+    private FactoryBeanTestClient createClient(ProxyMode proxyMode) throws Exception {
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(FactoryBeanTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restOperations);
+        factoryBean.setProxyMode(proxyMode);
+        return (FactoryBeanTestClient) factoryBean.getObject();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProxyMode.class)
+    void dispatchToMethods(ProxyMode proxyMode) throws Exception {
+        FactoryBeanTestClient client = createClient(proxyMode);
+
+        assertEquals("http://my-uri/1", client.get("1"));
+        assertEquals("http://my-uri/other", client.other());
+        assertEquals("http://my-uri/2", client.get("2"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProxyMode.class)
+    void notAnnotatedMethod(ProxyMode proxyMode) throws Exception {
+        FactoryBeanTestClient client = createClient(proxyMode);
+
+        assertThrows(IllegalStateException.class, () -> client.notAnnotated());
+    }
+
+    @Test
+    void generatedProxy() throws Exception {
+        FactoryBeanTestClient client = createClient(ProxyMode.GENERATED);
+        FactoryBeanTestClient other = createClient(ProxyMode.GENERATED);
+
+        assertEquals(false, AopUtils.isAopProxy(client));
+        assertEquals(client, client);
+        assertNotEquals(client, other);
+        // the proxies share the generated class
+        assertEquals(client.getClass(), other.getClass());
+        assertEquals(System.identityHashCode(client), client.hashCode());
+        assertEquals("default http://my-uri/other", client.withDefault());
+    }
+}
@@ -0,0 +1,289 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.annotation.Retry;
+import io.github.leoniedermeier.restclient.creation.MethodMetaData.ReturnType;
+import reactor.core.publisher.Mono;
+
+class RetryingMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    @Retry(backoff = 1)
+    interface RetryClient {
+
+        @RequestMapping(path = "/{path}")
+        String get(@PathVariable String path);
+
+        @RequestMapping(path = "/{path}", method = RequestMethod.POST)
+        String post(@PathVariable String path);
+
+        @RequestMapping(path = "/{path}", method = RequestMethod.POST)
+        @Retry(backoff = 1, maxAttempts = 2)
+        String postWithRetry(@PathVariable String path);
+
+        @RequestMapping(path = "/{path}")
+        CompletableFuture<String> getAsync(@PathVariable String path);
+
+        @RequestMapping(path = "/{path}")
+        InputStream stream(@PathVariable String path);
+    }
+
+    @RestClient(url = "http://my-uri")
+    interface InvalidRetryClient {
+
+        @RequestMapping(path = "/")
+        @Retry
+        InputStream stream();
+    }
+
+    interface Delays {
+
+        @Retry(backoff = 100, multiplier = 2, maxBackoff = 300, jitter = 0)
+        void exponential();
+
+        @Retry(backoff = 100, jitter = 0.5)
+        void jitter();
+
+        @Retry(backoff = 5000, jitter = 0)
+        void slow();
+    }
+
+    /**
+     * The number of requests which fail. A path starting with <code>io</code>
+     * fails with an I/O error, <code>404</code> with status 404, all others with
+     * 503.
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final List<String> requests = new ArrayList<>();
+
+    private RestClientFactoryBean createFactoryBean() {
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            String path = uri.getPath();
+            synchronized (requests) {
+                requests.add(path);
+            }
+            if (failures.getAndDecrement() > 0) {
+                if (path.startsWith("/io")) {
+                    throw new IOException("Connection reset");
+                }
+                MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+                request.setResponse(new MockClientHttpResponse(new byte[0],
+                        path.startsWith("/404") ? HttpStatus.NOT_FOUND : HttpStatus.SERVICE_UNAVAILABLE));
+                return request;
+            }
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse("text".getBytes(), HttpStatus.OK));
+            return request;
+        });
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(RetryClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        factoryBean.setExecutor(Runnable::run);
+        return factoryBean;
+    }
+
+    private static Retry retry(Class<?> type, String methodName) {
+        return AnnotatedElementUtils.findMergedAnnotation(ReflectionUtils.findMethod(type, methodName), Retry.class);
+    }
+
+    @Test
+    void failedAttemptsAreRetried() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean();
+        RetryClient client = (RetryClient) factoryBean.getObject();
+        failures.set(2);
+
+        assertEquals("text", client.get("path"));
+
+        assertEquals(3, requests.size());
+        MethodMetrics methodMetrics = factoryBean.getMetrics()
+                .getMethodMetrics(ReflectionUtils.findMethod(RetryClient.class, "get", String.class));
+        assertEquals(2, methodMetrics.getRetryCount());
+        assertEquals(1, methodMetrics.getCallCount());
+    }
+
+    @Test
+    void ioErrorsAreRetried() throws Exception {
+        RetryClient client = (RetryClient) createFactoryBean().getObject();
+        failures.set(1);
+
+        assertEquals("text", client.get("io"));
+
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void attemptsAreLimited() throws Exception {
+        RetryClient client = (RetryClient) createFactoryBean().getObject();
+        failures.set(5);
+
+        assertThrows(HttpServerErrorException.class, () -> client.get("path"));
+
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void otherStatusesAreNotRetried() throws Exception {
+        RetryClient client = (RetryClient) createFactoryBean().getObject();
+        failures.set(1);
+
+        assertThrows(HttpClientErrorException.class, () -> client.get("404"));
+
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void interfaceAnnotationOnlyAppliesToIdempotentMethods() throws Exception {
+        RetryClient client = (RetryClient) createFactoryBean().getObject();
+        failures.set(1);
+
+        assertThrows(HttpServerErrorException.class, () -> client.post("path"));
+        assertEquals(1, requests.size());
+
+        failures.set(1);
+        assertEquals("text", client.postWithRetry("path"));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void unsupportedMethodsAreNotRetried() throws Exception {
+        MethodMetaDataParser parser = new MethodMetaDataParser(new MockEnvironment());
+
+        assertNull(parser.parse(ReflectionUtils.findMethod(RetryClient.class, "stream", String.class)).getRetry());
+        assertNull(parser.parse(ReflectionUtils.findMethod(RetryClient.class, "post", String.class)).getRetry());
+        assertEquals(1,
+                parser.parse(ReflectionUtils.findMethod(RetryClient.class, "get", String.class)).getRetry().backoff());
+        assertThrows(IllegalStateException.class,
+                () -> parser.parse(ReflectionUtils.findMethod(InvalidRetryClient.class, "stream")));
+    }
+
+    @Test
+    void completableFutureIsRetried() throws Exception {
+        RetryClient client = (RetryClient) createFactoryBean().getObject();
+        failures.set(2);
+
+        assertEquals("text", client.getAsync("path").get(5, TimeUnit.SECONDS));
+
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void completableFutureFailsAfterLastAttempt() throws Exception {
+        RetryClient client = (RetryClient) createFactoryBean().getObject();
+        failures.set(5);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.getAsync("path").get(5, TimeUnit.SECONDS));
+
+        assertTrue(exception.getCause() instanceof HttpServerErrorException);
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void monoIsSubscribedAgain() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> mono = Mono.defer(() -> subscriptions.incrementAndGet() < 3
+                ? Mono.error(new ResourceAccessException("reset", new IOException("reset")))
+                : Mono.just("text"));
+        Retry retry = AnnotatedElementUtils.findMergedAnnotation(RetryClient.class, Retry.class);
+        RetryingMethodInvoker invoker = new RetryingMethodInvoker(arguments -> mono, retry, ReturnType.Mono,
+                new RetryBudget(), null, null);
+
+        assertEquals("text", ((Mono<?>) invoker.invoke(new Object[0])).block(Duration.ofSeconds(5)));
+        assertEquals(3, subscriptions.get());
+    }
+
+    @Test
+    void exhaustedBudgetStopsRetries() throws Exception {
+        RestClientFactoryBean factoryBean = createFactoryBean();
+        RetryBudget budget = new RetryBudget(4, 0.5);
+        factoryBean.setRetryBudget(budget);
+        RetryClient client = (RetryClient) factoryBean.getObject();
+
+        // the first failure takes a token, the second leaves half of the tokens
+        failures.set(5);
+        assertThrows(HttpServerErrorException.class, () -> client.get("path"));
+        assertEquals(2, requests.size());
+        assertFalse(budget.isRetryAllowed());
+        MethodMetrics methodMetrics = factoryBean.getMetrics()
+                .getMethodMetrics(ReflectionUtils.findMethod(RetryClient.class, "get", String.class));
+        assertEquals(1, methodMetrics.getRetryCount());
+        assertEquals(1, methodMetrics.getRetryRejectedCount());
+
+        // successful calls refill the budget
+        failures.set(0);
+        client.get("path");
+        assertTrue(budget.isRetryAllowed());
+        assertEquals(2.5, budget.getTokens(), 0.001);
+    }
+
+    @Test
+    void delaysGrowExponentially() {
+        RetryingMethodInvoker invoker = new RetryingMethodInvoker(arguments -> null, retry(Delays.class, "exponential"),
+                ReturnType.Value, new RetryBudget(), null, null);
+
+        assertEquals(100, invoker.delay(1));
+        assertEquals(200, invoker.delay(2));
+        assertEquals(300, invoker.delay(3));
+    }
+
+    @Test
+    void jitterReducesTheDelay() {
+        RetryingMethodInvoker invoker = new RetryingMethodInvoker(arguments -> null, retry(Delays.class, "jitter"),
+                ReturnType.Value, new RetryBudget(), null, null);
+
+        for (int i = 0; i < 100; i++) {
+            long delay = invoker.delay(1);
+            assertTrue(delay >= 50 && delay <= 100, () -> "delay " + delay);
+        }
+    }
+
+    @Test
+    void retryIsNotDelayedBeyondTheDeadline() {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryingMethodInvoker invoker = new RetryingMethodInvoker(arguments -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("reset", new IOException("reset"));
+        }, retry(Delays.class, "slow"), ReturnType.Value, new RetryBudget(), null, null);
+
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.after(1, TimeUnit.SECONDS).attach()) {
+            assertThrows(ResourceAccessException.class, () -> invoker.invoke(new Object[0]));
+        }
+
+        assertEquals(1, attempts.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.leoniedermeier.restclient.annotation.CoalesceRequests;
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.creation.SingleFlight.RequestKey;
+
+class SingleFlightTest {
+
+    @RestClient(url = "http://my-uri")
+    interface CoalescingClient {
+
+        @CoalesceRequests
+        @RequestMapping(path = "/text/{id}")
+        String getText(@PathVariable String id);
+    }
+
+    private static final int THREADS = 8;
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Waits until all callers are blocked, either in the request or waiting for
+     * the request in flight.
+     */
+    private void awaitBlocked() throws InterruptedException {
+        while (threads.size() < THREADS || threads.stream().anyMatch(
+                thread -> thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING)) {
+            Thread.sleep(5);
+        }
+    }
+
+    private List<Future<Object>> submit(Callable<Object> call) {
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executorService.submit(() -> {
+                synchronized (threads) {
+                    threads.add(Thread.currentThread());
+                }
+                return call.call();
+            }));
+        }
+        return futures;
+    }
+
+    @Test
+    void concurrentCallsShareOneRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger requests = new AtomicInteger();
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            requests.incrementAndGet();
+            return new MockClientHttpRequest(httpMethod, uri) {
+                @Override
+                protected ClientHttpResponse executeInternal() throws IOException {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        throw new IOException(ex);
+                    }
+                    MockClientHttpResponse response = new MockClientHttpResponse(
+                            "text".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+                    response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+                    return response;
+                }
+            };
+        });
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(CoalescingClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setRestOperations(restTemplate);
+        CoalescingClient client = (CoalescingClient) factoryBean.getObject();
+
+        List<Future<Object>> futures = submit(() -> client.getText("1"));
+        awaitBlocked();
+        release.countDown();
+
+        for (Future<Object> future : futures) {
+            assertEquals("text", future.get());
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void errorIsPassedToAllWaiters() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        RequestKey key = new RequestKey(URI.create("http://my-uri"), new HttpHeaders());
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("failed");
+
+        List<Future<Object>> futures = submit(() -> singleFlight.execute(key, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            throw failure;
+        }));
+        awaitBlocked();
+        release.countDown();
+
+        for (Future<Object> future : futures) {
+            ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+            assertSame(failure, ex.getCause());
+        }
+        assertEquals(THREADS - 1, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void sequentialCallsAreNotCoalesced() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute(new RequestKey(URI.create("http://my-uri"), new HttpHeaders()), calls::incrementAndGet);
+        singleFlight.execute(new RequestKey(URI.create("http://my-uri"), new HttpHeaders()), calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void keysDifferByHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("x", "1");
+
+        assertFalse(new RequestKey(URI.create("http://my-uri"), headers)
+                .equals(new RequestKey(URI.create("http://my-uri"), new HttpHeaders())));
+    }
+
+    @Test
+    void annotatedMethodIsCoalesced() throws Exception {
+        MethodMetaData methodMetaData = new MethodMetaDataParser(new MockEnvironment())
+                .parse(CoalescingClient.class.getMethod("getText", String.class));
+
+        assertTrue(methodMetaData.isCoalesced());
+    }
+}
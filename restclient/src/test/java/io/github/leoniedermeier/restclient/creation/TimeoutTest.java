@@ -0,0 +1,259 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import io.github.leoniedermeier.restclient.annotation.Timeout;
+import reactor.core.publisher.Mono;
+
+class TimeoutTest {
+
+    @RestClient(name = "timed", url = "http://localhost:${server.port}", readTimeout = 5000)
+    @Timeout(deadlineHeader = "X-Deadline")
+    interface TimedClient {
+
+        @RequestMapping(path = "/slow")
+        @Timeout(read = 100)
+        String getSlow();
+
+        @RequestMapping(path = "/slow")
+        String getSlowWithClientTimeout();
+
+        @RequestMapping(path = "/deadline")
+        String getDeadline();
+
+        @RequestMapping(path = "/deadline")
+        String getDeadline(Deadline deadline);
+
+        @RequestMapping(path = "/deadline")
+        CompletableFuture<String> getDeadlineAsync();
+    }
+
+    @RestClient(url = "http://localhost")
+    interface ReactiveTimedClient {
+
+        @RequestMapping(path = "/slow")
+        @Timeout(read = 100)
+        Mono<String> getSlow();
+    }
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private ExecutorService executor;
+
+    private RestClientFactoryBean factoryBean;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "slow");
+        });
+        server.createContext("/deadline", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, String.valueOf(exchange.getRequestHeaders().getFirst("X-Deadline")));
+        });
+        server.start();
+        environment.setProperty("server.port", String.valueOf(server.getAddress().getPort()));
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    private static void respond(HttpExchange exchange, String text) {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            outputStream.write(body);
+        } catch (IOException ex) {
+            // the client has given up
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        executor.shutdownNow();
+        if (factoryBean != null) {
+            factoryBean.destroy();
+        }
+    }
+
+    private TimedClient createClient() throws Exception {
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(TimedClient.class);
+        factoryBean.setEnvironment(environment);
+        factoryBean.setExecutor(executor);
+        return (TimedClient) factoryBean.getObject();
+    }
+
+    @Test
+    void methodTimeoutOverridesClientTimeout() throws Exception {
+        TimedClient client = createClient();
+
+        ResourceAccessException exception = assertThrows(ResourceAccessException.class, client::getSlow);
+        assertTrue(exception.getCause() instanceof SocketTimeoutException);
+        assertEquals("slow", client.getSlowWithClientTimeout());
+    }
+
+    @Test
+    void propertyOverridesAnnotation() throws Exception {
+        environment.setProperty("restclient.timed.methods.getSlow.read-timeout", "2000");
+        TimedClient client = createClient();
+
+        assertEquals("slow", client.getSlow());
+    }
+
+    @Test
+    void propertyOfSignatureOverridesPropertyOfName() {
+        environment.setProperty("restclient.timed.methods.getDeadline.read-timeout", "200");
+        environment.setProperty("restclient.timed.methods.getDeadline(Deadline).read-timeout", "300");
+        MethodMetaDataParser parser = new MethodMetaDataParser(environment);
+
+        assertEquals(200, parser.parse(ReflectionUtils.findMethod(TimedClient.class, "getDeadline")).getTimeouts()
+                .getReadTimeout());
+        assertEquals(300, parser.parse(ReflectionUtils.findMethod(TimedClient.class, "getDeadline", Deadline.class))
+                .getTimeouts().getReadTimeout());
+    }
+
+    @Test
+    void deadlineOfThreadCapsTimeout() throws Exception {
+        TimedClient client = createClient();
+
+        try (Deadline.Scope scope = Deadline.after(100, TimeUnit.MILLISECONDS).attach()) {
+            assertThrows(ResourceAccessException.class, client::getSlowWithClientTimeout);
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    void deadlineIsForwarded() throws Exception {
+        TimedClient client = createClient();
+
+        assertEquals("null", client.getDeadline());
+        try (Deadline.Scope scope = Deadline.after(10, TimeUnit.SECONDS).attach()) {
+            long remaining = Long.parseLong(client.getDeadline());
+            assertTrue(remaining > 5000 && remaining <= 10000, () -> "remaining " + remaining);
+            // the parameter is earlier
+            long parameter = Long.parseLong(client.getDeadline(Deadline.after(2, TimeUnit.SECONDS)));
+            assertTrue(parameter > 1000 && parameter <= 2000, () -> "remaining " + parameter);
+        }
+    }
+
+    @Test
+    void deadlineIsPassedToExecutor() throws Exception {
+        TimedClient client = createClient();
+
+        CompletableFuture<String> future;
+        try (Deadline.Scope scope = Deadline.after(10, TimeUnit.SECONDS).attach()) {
+            future = client.getDeadlineAsync();
+        }
+
+        long remaining = Long.parseLong(future.get(5, TimeUnit.SECONDS));
+        assertTrue(remaining > 5000 && remaining <= 10000, () -> "remaining " + remaining);
+    }
+
+    @Test
+    void expiredDeadlineSendsNoRequest() throws Exception {
+        TimedClient client = createClient();
+
+        assertThrows(DeadlineExceededException.class, () -> client.getDeadline(Deadline.after(0, TimeUnit.SECONDS)));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void ignoredTimeoutsAreLogged(CapturedOutput output) throws Exception {
+        factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(TimedClient.class);
+        factoryBean.setEnvironment(environment);
+        factoryBean.setExecutor(executor);
+        factoryBean.setRestOperations(new RestTemplate());
+        factoryBean.getObject();
+
+        RestClientFactoryBean reactiveFactoryBean = new RestClientFactoryBean();
+        reactiveFactoryBean.setType(ReactiveTimedClient.class);
+        reactiveFactoryBean.setEnvironment(environment);
+        reactiveFactoryBean.setRestOperations(new RestTemplate());
+        reactiveFactoryBean.setWebClient(WebClient.create());
+        reactiveFactoryBean.getObject();
+
+        assertTrue(output.getOut().contains("Connect and read timeout of method "
+                + TimedClient.class.getMethod("getSlow") + " are ignored"), output::getOut);
+        assertFalse(output.getOut().contains("Connect and read timeout of method "
+                + TimedClient.class.getMethod("getSlowWithClientTimeout")), output::getOut);
+        // the deadline header of the interface
+        assertTrue(output.getOut().contains("Deadline of method " + TimedClient.class.getMethod("getDeadline")
+                + " does not limit the connect and read timeout"), output::getOut);
+        assertTrue(output.getOut().contains(
+                "Timeout of method " + ReactiveTimedClient.class.getMethod("getSlow") + " is ignored"),
+                output::getOut);
+    }
+
+    @Test
+    void timeoutsAreParsed() {
+        MethodMetaDataParser parser = new MethodMetaDataParser(environment);
+
+        MethodTimeouts slow = parser.parse(ReflectionUtils.findMethod(TimedClient.class, "getSlow")).getTimeouts();
+        assertEquals(100, slow.getReadTimeout());
+        assertEquals(-1, slow.getConnectTimeout());
+        assertEquals("X-Deadline", slow.getDeadlineHeader());
+        assertEquals(-1, parser.parse(ReflectionUtils.findMethod(TimedClient.class, "getDeadline")).getTimeouts()
+                .getReadTimeout());
+
+        environment.setProperty("restclient.pooled.methods.getText.connect-timeout", "200");
+        MethodTimeouts text = parser
+                .parse(ReflectionUtils.findMethod(PooledHttpTransportTest.PooledClient.class, "getText"))
+                .getTimeouts();
+        assertEquals(200, text.getConnectTimeout());
+        assertSame(MethodTimeouts.NONE, parser
+                .parse(ReflectionUtils.findMethod(PooledHttpTransportTest.DefaultClient.class, "getText"))
+                .getTimeouts());
+    }
+}
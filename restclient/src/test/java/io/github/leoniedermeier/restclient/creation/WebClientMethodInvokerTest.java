@@ -0,0 +1,117 @@
+package io.github.leoniedermeier.restclient.creation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.leoniedermeier.restclient.annotation.RestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class WebClientMethodInvokerTest {
+
+    @RestClient(url = "http://my-uri")
+    interface WebClientTestClient {
+
+        @RequestMapping(path = "/posts/{id}")
+        Mono<String> get(@PathVariable String id, @RequestHeader("X-Header") String header);
+
+        @RequestMapping(path = "/posts")
+        Flux<Integer> getAll(@RequestParam String userId);
+
+        @RequestMapping(path = "/posts/{id}", method = RequestMethod.DELETE)
+        Mono<Void> delete(@PathVariable String id);
+    }
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+
+    private ClientResponse response;
+
+    private WebClientTestClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+            requests.add(request);
+            return Mono.just(response);
+        }).build();
+
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(WebClientTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+        factoryBean.setWebClient(webClient);
+        client = (WebClientTestClient) factoryBean.getObject();
+    }
+
+    private static ClientResponse response(HttpStatus status, MediaType contentType, String body) {
+        return ClientResponse.create(status).header(HttpHeaders.CONTENT_TYPE, contentType.toString()).body(body)
+                .build();
+    }
+
+    @Test
+    void mono() {
+        response = response(HttpStatus.OK, MediaType.TEXT_PLAIN, "SUCCESS");
+
+        Mono<String> result = client.get("1", "value");
+
+        assertEquals(0, requests.size(), "no request before subscription");
+        assertEquals("SUCCESS", result.block());
+        assertEquals(1, requests.size());
+        assertEquals("http://my-uri/posts/1", requests.get(0).url().toString());
+        assertEquals(HttpMethod.GET, requests.get(0).method());
+        assertEquals("value", requests.get(0).headers().getFirst("X-Header"));
+    }
+
+    @Test
+    void flux() {
+        response = response(HttpStatus.OK, MediaType.APPLICATION_JSON, "[1,2,3]");
+
+        assertEquals(Arrays.asList(1, 2, 3), client.getAll("7").collectList().block());
+        assertEquals("http://my-uri/posts?userId=7", requests.get(0).url().toString());
+    }
+
+    @Test
+    void noResponse() {
+        response = ClientResponse.create(HttpStatus.NO_CONTENT).build();
+
+        assertNull(client.delete("1").block());
+        assertEquals(HttpMethod.DELETE, requests.get(0).method());
+    }
+
+    @Test
+    void errorStatus() {
+        response = response(HttpStatus.SERVICE_UNAVAILABLE, MediaType.TEXT_PLAIN, "unavailable");
+
+        assertThrows(WebClientResponseException.ServiceUnavailable.class, () -> client.get("1", "value").block());
+    }
+
+    @Test
+    void noWebClient() {
+        RestClientFactoryBean factoryBean = new RestClientFactoryBean();
+        factoryBean.setType(WebClientTestClient.class);
+        factoryBean.setEnvironment(new MockEnvironment());
+
+        assertThrows(IllegalStateException.class, factoryBean::getObject);
+    }
+}
@@ -1,27 +0,0 @@
-package io.github.leoniedermeier.restclient.annotation;
-
-import java.lang.annotation.Documented;
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-import org.springframework.core.annotation.AliasFor;
-
-@Target(ElementType.TYPE)
-@Retention(RetentionPolicy.RUNTIME)
-@Documented
-public @interface RestClient {
-
-	@AliasFor("name")
-	String value() default "";
-
-	@AliasFor("value")
-	String name() default "";
-
-	/**
-	 * @return an absolute URL or resolvable hostname (the protocol is optional).
-	 */
-	String url();
-
-}